@@ -1,8 +1,5 @@
 package es.pic.hadoop.udf.adql;
 
-import java.util.Arrays;
-import java.util.List;
-
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.serde2.io.DoubleWritable;
 
@@ -16,56 +13,62 @@ import healpix.essentials.RangeSet;
 
 public class ADQLCircle extends ADQLGeometry {
 
+    private S2Cap cap;
+
     public ADQLCircle(double ra, double dec, double radius) {
-        this(new DoubleWritable(ra), new DoubleWritable(dec), new DoubleWritable(radius));
+        this(new double[] {
+                ra, dec, radius
+        });
     }
 
     public ADQLCircle(DoubleWritable ra, DoubleWritable dec, DoubleWritable radius) {
-        this(Arrays.asList(new DoubleWritable[] {
-                ra, dec, radius
-        }));
+        this(ra.get(), dec.get(), radius.get());
     }
 
-    protected ADQLCircle(List<DoubleWritable> coords) {
-        super(ADQLGeometry.Kind.CIRCLE, coords, null);
+    protected ADQLCircle(double[] coords) {
+        super(ADQLGeometry.Kind.CIRCLE, coords);
     }
 
-    public DoubleWritable getRa() {
+    public double getRa() {
         return getCoord(0);
     }
 
-    public DoubleWritable getDec() {
+    public double getDec() {
         return getCoord(1);
     }
 
-    public DoubleWritable getRadius() {
+    public double getRadius() {
         return getCoord(2);
     }
 
+    /** @return the S2 representation of this circle, built on first use. */
+    public S2Cap toS2Cap() {
+        if (cap == null) {
+            cap = S2Cap.fromAxisAngle(S2LatLng.fromDegrees(getDec(), getRa()).toPoint(),
+                    S1Angle.degrees(getRadius()));
+        }
+        return cap;
+    }
+
     @Override
     public ADQLCircle complement() {
-        return new ADQLCircle((getRa().get() + 180) % 360, -getDec().get(), 180 - getRadius().get());
+        return new ADQLCircle((getRa() + 180) % 360, -getDec(), 180 - getRadius());
     }
 
     @Override
     public ADQLPoint centroid() {
-        return new ADQLPoint(Arrays.asList(new DoubleWritable[] {
-                getRa(), getDec()
-        }));
+        return new ADQLPoint(getRa(), getDec());
     }
 
     @Override
     public double area() {
-        S2Cap circle = S2Cap.fromAxisAngle(S2LatLng.fromDegrees(getDec().get(), getRa().get()).toPoint(),
-                S1Angle.degrees(getRadius().get()));
-
-        return Math.toDegrees(Math.toDegrees(circle.area()));
+        return Math.toDegrees(Math.toDegrees(toS2Cap().area()));
     }
 
     public ADQLRegion toRegion(byte order) throws HiveException {
-        double theta = Math.toRadians(90 - this.getDec().get());
-        double phi = Math.toRadians(this.getRa().get());
-        double radius = Math.toRadians(this.getRadius().get());
+        double theta = Math.toRadians(90 - this.getDec());
+        double phi = Math.toRadians(this.getRa());
+        double radius = Math.toRadians(this.getRadius());
 
         Pointing pt = new Pointing(theta, phi);
 
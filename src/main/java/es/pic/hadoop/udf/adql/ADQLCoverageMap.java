@@ -0,0 +1,221 @@
+package es.pic.hadoop.udf.adql;
+
+/**
+ * Piecewise-constant coverage count over NESTED pixels at order_max, stored as sorted, non-overlapping segments
+ * [lo, hi) with the number of sets covering them. Uncovered values have no segment, and consecutive segments may
+ * touch when their counts differ.
+ *
+ * Maps are built by merge(), which sweeps all boundaries of a batch of range sets, of this map and optionally of
+ * another map in a single k-way merge, so both raw regions and partial maps from other tasks can be added.
+ */
+public final class ADQLCoverageMap {
+
+    /** Segment boundaries, lo and hi of each segment one after the other. */
+    private long[] r;
+    /** Coverage count of each segment. */
+    private long[] counts;
+    /** Scratch arrays the next merge is written to. */
+    private long[] tmp;
+    private long[] tmpCounts;
+    /** Current number of segments. */
+    private int nseg;
+
+    /** Heap of sources and their current position, end and counts, only used by merge(). */
+    private int[] heap = new int[0];
+    private int[] pos = new int[0];
+    private int[] ends = new int[0];
+    private long[][] arrays = new long[0][];
+    private long[][] weights = new long[0][];
+
+    public ADQLCoverageMap() {
+        r = new long[8];
+        counts = new long[4];
+        tmp = new long[8];
+        tmpCounts = new long[4];
+    }
+
+    /** @return number of segments. */
+    public int size() {
+        return nseg;
+    }
+
+    public boolean isEmpty() {
+        return nseg == 0;
+    }
+
+    /** @return first value of segment i. */
+    public long lo(int i) {
+        return r[2 * i];
+    }
+
+    /** @return one-past-last value of segment i. */
+    public long hi(int i) {
+        return r[2 * i + 1];
+    }
+
+    /** @return number of sets covering segment i. */
+    public long count(int i) {
+        return counts[i];
+    }
+
+    /** Remove all segments, keeping the arrays. */
+    public void clear() {
+        nseg = 0;
+    }
+
+    /**
+     * Append a segment. It must not start before the end of the last one.
+     */
+    public void append(long lo, long hi, long count) {
+        if (lo >= hi || count == 0) {
+            return;
+        }
+        if (count < 0 || (nseg > 0 && lo < r[2 * nseg - 1])) {
+            throw new IllegalArgumentException("bad append operation");
+        }
+        if (counts.length <= nseg) {
+            r = grow(r, 2 * nseg + 2, 2 * nseg);
+            counts = grow(counts, nseg + 1, nseg);
+        }
+        r[2 * nseg] = lo;
+        r[2 * nseg + 1] = hi;
+        counts[nseg] = count;
+        nseg++;
+    }
+
+    /**
+     * Add to this map one unit of coverage for every range in every set of batch, and the segments of other if it is
+     * not null. All boundaries are swept in order through a heap holding the next boundary of each source, in
+     * O(N log k) for N boundaries in k sources.
+     */
+    public void merge(ADQLRangeSetBatch batch, ADQLCoverageMap other) {
+        int nbatch = batch == null ? 0 : batch.count;
+        int k = nbatch + 1 + (other == null ? 0 : 1);
+        ensureSources(k);
+
+        // Sources are the sets in the batch, followed by this map and other
+        int nheap = 0;
+        int total = 0;
+        for (int i = 0; i < k; i++) {
+            int begin, end;
+            if (i < nbatch) {
+                arrays[i] = batch.data;
+                weights[i] = null;
+                begin = batch.starts[i];
+                end = batch.starts[i + 1];
+            } else {
+                ADQLCoverageMap map = i == nbatch ? this : other;
+                arrays[i] = map.r;
+                weights[i] = map.counts;
+                begin = 0;
+                end = 2 * map.nseg;
+            }
+            if (begin < end) {
+                pos[i] = begin;
+                ends[i] = end;
+                heap[nheap++] = i;
+                total += end - begin;
+            }
+        }
+        for (int i = nheap / 2 - 1; i >= 0; i--) {
+            siftDown(i, nheap);
+        }
+
+        // Every boundary may close a segment and open another one
+        tmp = grow(tmp, 2 * total, 0);
+        tmpCounts = grow(tmpCounts, total, 0);
+
+        int n = 0;
+        long coverage = 0;
+        while (nheap > 0) {
+            long value = head(heap[0]);
+            long before = coverage;
+
+            while (nheap > 0 && head(heap[0]) == value) {
+                int src = heap[0];
+                // Sets and maps start at even offsets, so even positions open a range and odd ones close it
+                long weight = weights[src] == null ? 1 : weights[src][pos[src] >>> 1];
+                coverage += (pos[src] & 1) == 0 ? weight : -weight;
+                if (++pos[src] == ends[src]) {
+                    heap[0] = heap[--nheap];
+                }
+                siftDown(0, nheap);
+            }
+
+            if (coverage != before) {
+                if (before > 0) {
+                    tmp[2 * n - 1] = value;
+                }
+                if (coverage > 0) {
+                    tmp[2 * n] = value;
+                    tmpCounts[n] = coverage;
+                    n++;
+                }
+            }
+        }
+
+        for (int i = 0; i < k; i++) {
+            arrays[i] = null;
+            weights[i] = null;
+        }
+
+        long[] swap = r;
+        r = tmp;
+        tmp = swap;
+        swap = counts;
+        counts = tmpCounts;
+        tmpCounts = swap;
+        nseg = n;
+    }
+
+    private long head(int src) {
+        return arrays[src][pos[src]];
+    }
+
+    private void siftDown(int i, int nheap) {
+        int src = heap[i];
+        long value = nheap > i ? head(src) : 0L;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= nheap) {
+                break;
+            }
+            if (child + 1 < nheap && head(heap[child + 1]) < head(heap[child])) {
+                child++;
+            }
+            if (head(heap[child]) >= value) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = src;
+    }
+
+    private void ensureSources(int k) {
+        if (heap.length < k) {
+            int n = Math.max(2 * heap.length, k);
+            heap = new int[n];
+            pos = new int[n];
+            ends = new int[n];
+            arrays = new long[n][];
+            weights = new long[n][];
+        }
+    }
+
+    /** @return array if it can hold size entries, or a larger copy of its first used entries otherwise. */
+    private static long[] grow(long[] array, int size, int used) {
+        if (array.length >= size) {
+            return array;
+        }
+        long[] grown = new long[Math.max(2 * array.length, size)];
+        System.arraycopy(array, 0, grown, 0, used);
+        return grown;
+    }
+
+    /** @return approximate number of bytes held by the map. */
+    public int estimate() {
+        return (r.length + counts.length + tmp.length + tmpCounts.length) * Long.BYTES
+                + heap.length * (3 * Integer.BYTES + 16);
+    }
+}
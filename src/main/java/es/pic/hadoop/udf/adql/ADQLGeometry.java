@@ -1,5 +1,7 @@
 package es.pic.hadoop.udf.adql;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -8,15 +10,13 @@ import java.util.Map;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.serde2.io.ByteWritable;
 import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters.Converter;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
 import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.StandardStructObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.StructField;
-import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.BinaryObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 import org.apache.hadoop.io.BytesWritable;
@@ -67,66 +67,44 @@ public abstract class ADQLGeometry {
         public static Kind valueOfTag(ByteWritable tag) {
             return BY_TAG.get(tag.get());
         }
+
+        public static Kind valueOfTag(byte tag) {
+            return BY_TAG.get(tag);
+        }
     }
 
     private Kind kind;
-    private List<DoubleWritable> coords;
-    private ADQLRangeSet rs;
+    /** Flat list of coordinates, in degrees. Writables are only created when the geometry is serialized. */
+    private double[] coords;
 
-    private static Kind getTag(Object blob, StructObjectInspector OI) {
-        StructField field = OI.getStructFieldRef("tag");
-        Object obj = OI.getStructFieldData(blob, field);
-        ObjectInspector extOI = field.getFieldObjectInspector();
-        Converter converter = ObjectInspectorConverters.getConverter(extOI, tagOI);
+    /** Default order region, computed on first use. Geometries are immutable, so it can be reused. */
+    private ADQLRegion region;
 
-        return Kind.valueOfTag((ByteWritable) converter.convert(obj));
+    protected ADQLGeometry(Kind kind, double[] coords) {
+        this.kind = kind;
+        this.coords = coords;
     }
 
-    @SuppressWarnings("unchecked")
-    private static List<DoubleWritable> getCoords(Object blob, StructObjectInspector OI) {
-        StructField field = OI.getStructFieldRef("coords");
-        Object obj = OI.getStructFieldData(blob, field);
-        if (obj == null) {
-            return null;
-        } else {
-            ObjectInspector extOI = field.getFieldObjectInspector();
-            Converter converter = ObjectInspectorConverters.getConverter(extOI, coordsOI);
-            return (List<DoubleWritable>) converter.convert(obj);
-        }
+    /**
+     * Decode a single geometry. UDFs bind an ADQLGeometryReader to their arguments instead, so the field references
+     * and converters are not resolved again for every row.
+     */
+    protected static ADQLGeometry fromBlob(Object blob, ObjectInspector OI) {
+        return ADQLGeometryReader.create(OI).read(blob);
     }
 
-    private static ADQLRangeSet getRs(Object blob, StructObjectInspector OI) {
-        StructField field = OI.getStructFieldRef("rs");
-        Object obj = OI.getStructFieldData(blob, field);
-        if (obj == null) {
+    /**
+     * Decode the value of a constant geometry argument once, at initialization time. The returned geometry keeps its
+     * S2 shape and region once computed, so it can be reused for every row.
+     *
+     * @return the constant geometry, or null if the constant is NULL.
+     */
+    protected static ADQLGeometry fromConstant(ConstantObjectInspector OI) {
+        Object blob = OI.getWritableConstantValue();
+        if (blob == null) {
             return null;
         } else {
-            ObjectInspector extOI = field.getFieldObjectInspector();
-            Converter converter = ObjectInspectorConverters.getConverter(extOI, rsOI);
-            return new ADQLRangeSet((BytesWritable) converter.convert(obj));
-        }
-    }
-
-    protected ADQLGeometry(Kind kind, List<DoubleWritable> coords, ADQLRangeSet rs) {
-        this.kind = kind;
-        this.coords = coords;
-        this.rs = rs;
-    }
-
-    protected static ADQLGeometry fromBlob(Object blob, StructObjectInspector OI) {
-        Kind kind = getTag(blob, OI);
-        List<DoubleWritable> coords = getCoords(blob, OI);
-        ADQLRangeSet rs = getRs(blob, OI);
-
-        switch (kind) {
-        case POINT:
-            return new ADQLPoint(coords);
-        case CIRCLE:
-            return new ADQLCircle(coords);
-        case POLYGON:
-            return new ADQLPolygon(coords);
-        default: //REGION
-            return new ADQLRegion(rs);
+            return ADQLGeometryReader.create(OI).read(blob);
         }
     }
 
@@ -138,16 +116,20 @@ public abstract class ADQLGeometry {
         if (this.coords == null) {
             return null;
         } else {
-            return this.coords.size();
+            return this.coords.length;
         }
     }
 
-    protected DoubleWritable getCoord(int i) {
-        return this.coords.get(i);
+    protected double getCoord(int i) {
+        return this.coords[i];
     }
 
     protected ADQLRangeSet getRangeSet() {
-        return this.rs;
+        return null;
+    }
+
+    protected byte[] getRangesAsBytes() {
+        return null;
     }
 
     public abstract ADQLGeometry complement() throws HiveException;
@@ -157,20 +139,49 @@ public abstract class ADQLGeometry {
     public abstract double area();
 
     public ADQLRegion toRegion() throws HiveException {
-        return toRegion(DEFAULT_ORDER);
+        if (region == null) {
+            region = toRegion(DEFAULT_ORDER);
+        }
+        return region;
     }
 
     public abstract ADQLRegion toRegion(byte order) throws HiveException;
 
+    /**
+     * Compact single-binary encoding of this geometry: the tag byte, followed by the number of coordinates as a
+     * variable-length integer and the coordinates as 8-byte doubles. REGIONs write their delta-encoded boundaries
+     * instead.
+     */
+    public byte[] toBinary() {
+        ByteBuffer buf = ByteBuffer.allocate(1 + VarInt.size(coords.length) + coords.length * Double.BYTES);
+
+        buf.put(kind.value);
+        VarInt.put(buf, coords.length);
+        for (double coord : coords) {
+            buf.putDouble(coord);
+        }
+
+        return buf.array();
+    }
+
     public Object serialize() {
         Object blob = OI.create();
 
         OI.setStructFieldData(blob, ADQLGeometry.tagField, new ByteWritable(kind.value));
-        OI.setStructFieldData(blob, ADQLGeometry.coordsField, coords);
-        if (rs == null) {
+        if (coords == null) {
+            OI.setStructFieldData(blob, ADQLGeometry.coordsField, null);
+        } else {
+            List<DoubleWritable> list = new ArrayList<DoubleWritable>(coords.length);
+            for (double coord : coords) {
+                list.add(new DoubleWritable(coord));
+            }
+            OI.setStructFieldData(blob, ADQLGeometry.coordsField, list);
+        }
+        byte[] bytes = getRangesAsBytes();
+        if (bytes == null) {
             OI.setStructFieldData(blob, ADQLGeometry.rsField, null);
         } else {
-            OI.setStructFieldData(blob, ADQLGeometry.rsField, new BytesWritable(rs.getRangesAsBytes()));
+            OI.setStructFieldData(blob, ADQLGeometry.rsField, new BytesWritable(bytes));
         }
         return blob;
     }
@@ -0,0 +1,172 @@
+package es.pic.hadoop.udf.adql;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * Bounded LRU cache of decoded CIRCLE and POLYGON geometries, keyed by their contents. Cached geometries keep their
+ * prepared S2 shape and their default order region once computed, so a blob that is seen again, as in a join against
+ * a small table of fields, is neither decoded nor prepared again.
+ *
+ * POINTs are not cached, as they are cheaper to decode than to look up, and REGIONs are already decoded as views over
+ * their serialized bytes. Hive reuses row objects, so blobs are fingerprinted by content and never by identity.
+ *
+ * Each cache belongs to the function that configured it, and is only used from the thread evaluating that function,
+ * as prepared S2 shapes are not safe to share. Its capacity is read from the {@value #CAPACITY_PROPERTY} property,
+ * and a capacity of 0 disables it. Hits and misses are counted per cache.
+ */
+public final class ADQLGeometryCache {
+
+    public static final String CAPACITY_PROPERTY = "adql.geometry.cache.capacity";
+    public static final int DEFAULT_CAPACITY = 128;
+
+    private int capacity = DEFAULT_CAPACITY;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Content of a geometry, hashed once. The probe instance wraps the reader's reusable array for every lookup, and
+     * is only copied when a new entry is added.
+     */
+    private static final class Key {
+        ADQLGeometry.Kind kind;
+        double[] coords;
+        int size;
+        int hash;
+
+        void set(ADQLGeometry.Kind kind, double[] coords, int size) {
+            this.kind = kind;
+            this.coords = coords;
+            this.size = size;
+
+            int h = kind.hashCode();
+            for (int i = 0; i < size; i++) {
+                long bits = Double.doubleToLongBits(coords[i]);
+                h = 31 * h + (int) (bits ^ (bits >>> 32));
+            }
+            this.hash = h;
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.kind = kind;
+            key.coords = Arrays.copyOf(coords, size);
+            key.size = size;
+            key.hash = hash;
+            return key;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            if (hash != other.hash || kind != other.kind || size != other.size) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (Double.doubleToLongBits(coords[i]) != Double.doubleToLongBits(other.coords[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final Key probe = new Key();
+
+    private final LinkedHashMap<Key, ADQLGeometry> entries = new LinkedHashMap<Key, ADQLGeometry>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, ADQLGeometry> eldest) {
+            return size() > capacity;
+        }
+    };
+
+    /** Read the cache capacity from the job configuration. */
+    public void configure(Configuration conf) {
+        setCapacity(conf.getInt(CAPACITY_PROPERTY, DEFAULT_CAPACITY));
+    }
+
+    /** Set the number of entries kept, evicting the least recently used ones if there are more. */
+    public void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException(CAPACITY_PROPERTY + " cannot be negative.");
+        }
+        this.capacity = capacity;
+
+        Iterator<Key> keys = entries.keySet().iterator();
+        for (int n = entries.size(); n > capacity; n--) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** @return number of lookups answered from the cache. */
+    public long getHits() {
+        return hits;
+    }
+
+    /** @return number of lookups that had to decode the geometry. */
+    public long getMisses() {
+        return misses;
+    }
+
+    public void resetCounters() {
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Returns the cached geometry with these contents, decoding it on a miss. The coordinates are copied before being
+     * used, as readers reuse their arrays between rows.
+     */
+    ADQLGeometry get(ADQLGeometry.Kind kind, double[] coords, int size) {
+        if (capacity == 0) {
+            return decode(kind, coords, size);
+        }
+
+        probe.set(kind, coords, size);
+
+        ADQLGeometry geom = entries.get(probe);
+        if (geom != null) {
+            hits++;
+            return geom;
+        }
+        misses++;
+
+        geom = decode(kind, coords, size);
+        entries.put(probe.copy(), geom);
+
+        return geom;
+    }
+
+    private static ADQLGeometry decode(ADQLGeometry.Kind kind, double[] coords, int size) {
+        double[] copy = Arrays.copyOf(coords, size);
+
+        switch (kind) {
+        case CIRCLE:
+            return new ADQLCircle(copy);
+        case POLYGON:
+            return new ADQLPolygon(copy);
+        default:
+            throw new IllegalArgumentException("Only CIRCLEs and POLYGONs are cached.");
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package es.pic.hadoop.udf.adql;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+import org.apache.hadoop.hive.serde2.io.ByteWritable;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters.Converter;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector.PrimitiveCategory;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.BytesWritable;
+
+/**
+ * Decoder of ADQL geometries bound to the ObjectInspector of a UDF argument. Field references and converters are
+ * resolved once, when the UDF is initialized, and coordinates are read into a reusable array, so decoding a row does
+ * not look up fields by name nor build any converter.
+ *
+ * Geometries may be given either as the tag/coords/rs struct described by ADQLGeometry.OI or in the compact binary
+ * form produced by ADQLGeometry.toBinary().
+ */
+public abstract class ADQLGeometryReader {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    protected double[] coords = new double[6];
+    protected int numCoords;
+
+    /** Decoded CIRCLEs and POLYGONs, shared with the other readers of the same function. */
+    private ADQLGeometryCache cache = new ADQLGeometryCache();
+
+    /** @return true if OI describes a geometry, either as an ADQLGeometry struct or in its binary form. */
+    public static boolean accepts(ObjectInspector OI) {
+        return ObjectInspectorUtils.compareTypes(OI, ADQLGeometry.OI) || (OI.getCategory() == Category.PRIMITIVE
+                && ((PrimitiveObjectInspector) OI).getPrimitiveCategory() == PrimitiveCategory.BINARY);
+    }
+
+    /**
+     * @return a reader for geometries described by OI, which must be accepted by accepts(), with a cache of its own
+     *         of the default capacity.
+     */
+    public static ADQLGeometryReader create(ObjectInspector OI) {
+        if (OI.getCategory() == Category.STRUCT) {
+            return new StructReader((StructObjectInspector) OI);
+        } else {
+            return new BinaryReader(OI);
+        }
+    }
+
+    /** @return a reader for geometries described by OI, which looks up CIRCLEs and POLYGONs in cache. */
+    public static ADQLGeometryReader create(ObjectInspector OI, ADQLGeometryCache cache) {
+        ADQLGeometryReader reader = create(OI);
+        reader.cache = cache;
+        return reader;
+    }
+
+    /** @return the kind of the geometry stored in blob. */
+    public abstract ADQLGeometry.Kind readKind(Object blob);
+
+    /**
+     * Read the coordinates of the geometry stored in blob into the reusable array returned by getCoords().
+     *
+     * @return the number of coordinates read, or -1 if there are none.
+     */
+    public abstract int readCoords(Object blob);
+
+    /** @return a view over the ranges of the geometry stored in blob, or null if there are none. */
+    public abstract ADQLRangeSetView readRs(Object blob);
+
+    /**
+     * Point cursor to the ranges of the REGION stored in blob, which must be a REGION, without decoding them nor
+     * building any region. A REGION with no ranges is read as an empty set.
+     */
+    public abstract void readRanges(Object blob, ADQLRangeSetCursor cursor);
+
+    /** @return the coordinates read by the last call to readCoords(). Only the first entries are valid. */
+    public double[] getCoords() {
+        return coords;
+    }
+
+    protected void ensureCoords(int size) {
+        if (coords.length < size) {
+            coords = new double[Math.max(size, 2 * coords.length)];
+        }
+    }
+
+    /**
+     * Decode the geometry stored in blob. CIRCLEs and POLYGONs are looked up in the cache of the reader first.
+     *
+     * @return the decoded geometry, or null if blob is null.
+     * @throws IllegalArgumentException if a POINT, CIRCLE or POLYGON has no coordinates.
+     */
+    public ADQLGeometry read(Object blob) {
+        if (blob == null) {
+            return null;
+        }
+
+        ADQLGeometry.Kind kind = readKind(blob);
+
+        switch (kind) {
+        case POINT:
+            readCoords(blob, kind, 2);
+            return new ADQLPoint(coords[0], coords[1]);
+        case CIRCLE:
+        case POLYGON:
+            readCoords(blob, kind, 0);
+            return cache.get(kind, coords, numCoords);
+        default: //REGION
+            return readRegion(blob);
+        }
+    }
+
+    /**
+     * Read the coordinates of blob, a geometry of this kind, so the array never keeps those of a previous row.
+     *
+     * @throws IllegalArgumentException if there are fewer than min coordinates, or none at all.
+     */
+    void readCoords(Object blob, ADQLGeometry.Kind kind, int min) {
+        if (readCoords(blob) < min) {
+            throw new IllegalArgumentException(String.format("%s without coordinates.", kind.name()));
+        }
+    }
+
+    /** @return the REGION stored in blob. */
+    protected ADQLRegion readRegion(Object blob) {
+        return new ADQLRegion(readRs(blob));
+    }
+
+    /** Reader of the tag/coords/rs struct. */
+    static final class StructReader extends ADQLGeometryReader {
+
+        private final StructObjectInspector OI;
+
+        private final StructField tagField;
+        private final StructField coordsField;
+        private final StructField rsField;
+
+        private final Converter tagConverter;
+        private final ListObjectInspector coordsOI;
+        private final Converter coordConverter;
+        private final Converter rsConverter;
+
+        StructReader(StructObjectInspector OI) {
+            this.OI = OI;
+
+            tagField = OI.getStructFieldRef("tag");
+            coordsField = OI.getStructFieldRef("coords");
+            rsField = OI.getStructFieldRef("rs");
+
+            tagConverter = ObjectInspectorConverters.getConverter(tagField.getFieldObjectInspector(),
+                    PrimitiveObjectInspectorFactory.writableByteObjectInspector);
+            coordsOI = (ListObjectInspector) coordsField.getFieldObjectInspector();
+            coordConverter = ObjectInspectorConverters.getConverter(coordsOI.getListElementObjectInspector(),
+                    PrimitiveObjectInspectorFactory.writableDoubleObjectInspector);
+            rsConverter = ObjectInspectorConverters.getConverter(rsField.getFieldObjectInspector(),
+                    PrimitiveObjectInspectorFactory.writableBinaryObjectInspector);
+        }
+
+        @Override
+        public ADQLGeometry.Kind readKind(Object blob) {
+            return ADQLGeometry.Kind
+                    .valueOfTag((ByteWritable) tagConverter.convert(OI.getStructFieldData(blob, tagField)));
+        }
+
+        @Override
+        public int readCoords(Object blob) {
+            Object list = OI.getStructFieldData(blob, coordsField);
+            if (list == null) {
+                numCoords = -1;
+                return numCoords;
+            }
+
+            numCoords = coordsOI.getListLength(list);
+            ensureCoords(numCoords);
+            for (int i = 0; i < numCoords; i++) {
+                coords[i] = ((DoubleWritable) coordConverter.convert(coordsOI.getListElement(list, i))).get();
+            }
+
+            return numCoords;
+        }
+
+        @Override
+        public ADQLRangeSetView readRs(Object blob) {
+            Object obj = OI.getStructFieldData(blob, rsField);
+            if (obj == null) {
+                return null;
+            } else {
+                return new ADQLRangeSetView((BytesWritable) rsConverter.convert(obj));
+            }
+        }
+
+        @Override
+        public void readRanges(Object blob, ADQLRangeSetCursor cursor) {
+            Object obj = OI.getStructFieldData(blob, rsField);
+            if (obj == null) {
+                cursor.reset(EMPTY, 0);
+            } else {
+                BytesWritable bytes = (BytesWritable) rsConverter.convert(obj);
+                cursor.reset(bytes.getBytes(), bytes.getLength());
+            }
+        }
+
+        /** Compressed ranges are left as they are, so predicates can stream them. */
+        @Override
+        protected ADQLRegion readRegion(Object blob) {
+            Object obj = OI.getStructFieldData(blob, rsField);
+            if (obj == null) {
+                return new ADQLRegion((ADQLRangeSetView) null);
+            }
+            BytesWritable bytes = (BytesWritable) rsConverter.convert(obj);
+            return new ADQLRegion(bytes.getBytes(), bytes.getLength());
+        }
+    }
+
+    /** Reader of the compact binary form. */
+    static final class BinaryReader extends ADQLGeometryReader {
+
+        private final Converter converter;
+
+        private byte[] data;
+        private ByteBuffer buf;
+        private long[] ranges = new long[0];
+
+        BinaryReader(ObjectInspector OI) {
+            converter = ObjectInspectorConverters.getConverter(OI,
+                    PrimitiveObjectInspectorFactory.writableBinaryObjectInspector);
+        }
+
+        /** Point the internal buffer to the payload of blob, positioned after the tag byte. */
+        private ByteBuffer wrap(Object blob) {
+            BytesWritable bytes = (BytesWritable) converter.convert(blob);
+            if (bytes.getLength() == 0) {
+                throw new IllegalArgumentException("Empty ADQL geometry.");
+            }
+            if (bytes.getBytes() != data) {
+                data = bytes.getBytes();
+                buf = ByteBuffer.wrap(data);
+            }
+            buf.limit(bytes.getLength());
+            buf.position(1);
+            return buf;
+        }
+
+        @Override
+        public ADQLGeometry.Kind readKind(Object blob) {
+            ADQLGeometry.Kind kind = ADQLGeometry.Kind.valueOfTag(wrap(blob).get(0));
+            if (kind == null) {
+                throw new IllegalArgumentException("Unknown ADQL geometry tag.");
+            }
+            return kind;
+        }
+
+        @Override
+        public int readCoords(Object blob) {
+            ByteBuffer buf = wrap(blob);
+            if (buf.get(0) == ADQLGeometry.Kind.REGION.value) {
+                numCoords = -1;
+                return numCoords;
+            }
+
+            long n = VarInt.get(buf);
+            if (n < 0 || n > buf.remaining() / Double.BYTES) {
+                throw new IllegalArgumentException("invalid number of coordinates");
+            }
+
+            numCoords = (int) n;
+            ensureCoords(numCoords);
+            for (int i = 0; i < numCoords; i++) {
+                coords[i] = buf.getDouble();
+            }
+
+            return numCoords;
+        }
+
+        @Override
+        public void readRanges(Object blob, ADQLRangeSetCursor cursor) {
+            ByteBuffer buf = wrap(blob);
+            if (buf.get(0) != ADQLGeometry.Kind.REGION.value) {
+                throw new IllegalArgumentException("REGION expected.");
+            }
+            cursor.resetDeltas(data, 1, buf.limit());
+        }
+
+        /**
+         * Decode the ranges into an array owned by this reader, so the returned view is only valid until the next
+         * row is read.
+         */
+        @Override
+        public ADQLRangeSetView readRs(Object blob) {
+            ByteBuffer buf = wrap(blob);
+            if (buf.get(0) != ADQLGeometry.Kind.REGION.value) {
+                return null;
+            }
+
+            int n = ADQLRangeSetCodec.getCount(buf);
+            if (ranges.length < n) {
+                ranges = new long[Math.max(n, 2 * ranges.length)];
+            }
+            ADQLRangeSetCodec.getDeltas(buf, ranges, n);
+
+            return new ADQLRangeSetView(LongBuffer.wrap(ranges, 0, n));
+        }
+    }
+}
@@ -1,39 +1,49 @@
 package es.pic.hadoop.udf.adql;
 
-import java.util.Arrays;
-import java.util.List;
-
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.serde2.io.DoubleWritable;
 
+import com.google.common.geometry.S2LatLng;
+import com.google.common.geometry.S2Point;
+
 import healpix.essentials.HealpixBase;
 import healpix.essentials.HealpixProc;
 import healpix.essentials.Pointing;
 
 public class ADQLPoint extends ADQLGeometry {
 
+    private S2Point point;
+
     public ADQLPoint(double ra, double dec) {
-        this(new DoubleWritable(ra), new DoubleWritable(dec));
+        this(new double[] {
+                ra, dec
+        });
     }
 
     public ADQLPoint(DoubleWritable ra, DoubleWritable dec) {
-        this(Arrays.asList(new DoubleWritable[] {
-                ra, dec
-        }));
+        this(ra.get(), dec.get());
     }
 
-    protected ADQLPoint(List<DoubleWritable> coords) {
-        super(ADQLGeometry.Kind.POINT, coords, null);
+    protected ADQLPoint(double[] coords) {
+        super(ADQLGeometry.Kind.POINT, coords);
     }
 
-    public DoubleWritable getRa() {
+    public double getRa() {
         return getCoord(0);
     }
 
-    public DoubleWritable getDec() {
+    public double getDec() {
         return getCoord(1);
     }
 
+    /** @return the S2 representation of this point, built on first use. */
+    public S2Point toS2Point() {
+        if (point == null) {
+            point = S2LatLng.fromDegrees(getDec(), getRa()).toPoint();
+        }
+        return point;
+    }
+
     @Override
     public ADQLGeometry complement() throws HiveException {
         throw new UnsupportedOperationException("Point geometry has no complement.");
@@ -53,18 +63,23 @@ public class ADQLPoint extends ADQLGeometry {
         return toRegion((byte) HealpixBase.order_max);
     }
 
-    public ADQLRegion toRegion(byte order) throws HiveException {
-        double theta = Math.toRadians(90 - this.getDec().get());
-        double phi = Math.toRadians(this.getRa().get());
-
-        Pointing pt = new Pointing(theta, phi);
+    /**
+     * Compute the NESTED pixel index of this point at a given order. The caller provides the Pointing to be filled, so
+     * it can be reused across rows.
+     */
+    public long toPixel(byte order, Pointing pt) throws HiveException {
+        pt.theta = Math.toRadians(90 - this.getDec());
+        pt.phi = Math.toRadians(this.getRa());
 
-        long ipix;
         try {
-            ipix = HealpixProc.ang2pixNest(order, pt);
+            return HealpixProc.ang2pixNest(order, pt);
         } catch (Exception e) {
             throw new HiveException(e);
         }
+    }
+
+    public ADQLRegion toRegion(byte order) throws HiveException {
+        long ipix = toPixel(order, new Pointing());
 
         ADQLRangeSet rs = new ADQLRangeSet();
         rs.addPixel(order, ipix);
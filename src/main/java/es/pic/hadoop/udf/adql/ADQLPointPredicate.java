@@ -0,0 +1,219 @@
+package es.pic.hadoop.udf.adql;
+
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+
+import com.google.common.geometry.S2;
+import com.google.common.geometry.S2Cap;
+import com.google.common.geometry.S2Loop;
+import com.google.common.geometry.S2Point;
+
+import es.pic.hadoop.udf.healpix.HealpixKernel;
+
+/**
+ * Containment test of sky coordinates in a CIRCLE, POLYGON or REGION that does not build an ADQLPoint nor an S2Point
+ * for every row. The geometry is reduced once to plain unit vectors, so testing a point only takes a few trigonometric
+ * functions and dot products. The results are the same as those of contains(point(ra, dec), geom).
+ */
+public abstract class ADQLPointPredicate {
+
+    /** Radians per degree, as used by S2LatLng.fromDegrees(). */
+    static final double DEG_TO_RAD = 0.017453292519943295;
+
+    /** Distance to an edge, in radians, below which the unit vectors alone cannot decide on which side a point is. */
+    static final double EDGE_TOLERANCE = 1e-13;
+
+    /**
+     * @return a predicate testing points against geom, which cannot be a POINT.
+     * @throws IllegalArgumentException if geom is a POINT.
+     */
+    public static ADQLPointPredicate create(ADQLGeometry geom) {
+        if (geom instanceof ADQLCircle) {
+            return new Circle(((ADQLCircle) geom).toS2Cap());
+        } else if (geom instanceof ADQLPolygon) {
+            S2Loop loop = ((ADQLPolygon) geom).toS2Loop();
+            return ConvexPolygon.accepts(loop) ? new ConvexPolygon(loop) : new Polygon(loop);
+        } else if (geom instanceof ADQLRegion) {
+            return new Region((ADQLRegion) geom);
+        } else {
+            throw new IllegalArgumentException("Geometry cannot be a POINT.");
+        }
+    }
+
+    /**
+     * Decode a constant geometry in its binary form and build its predicate. REGIONs are indexed, as every row will be
+     * looked up in them.
+     *
+     * @return the predicate of the geometry, or null if bytes is null.
+     * @throws IllegalArgumentException if the geometry is a POINT or cannot be decoded.
+     */
+    public static ADQLPointPredicate fromBinary(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+
+        ADQLGeometry geom = ADQLGeometryReader.create(PrimitiveObjectInspectorFactory.javaByteArrayObjectInspector)
+                .read(bytes);
+        if (geom instanceof ADQLRegion) {
+            ((ADQLRegion) geom).index();
+        }
+
+        return create(geom);
+    }
+
+    /**
+     * @return true if the point at ra, dec, in degrees, is inside the geometry.
+     * @throws IllegalArgumentException if the geometry is a REGION and dec is out of range.
+     */
+    public abstract boolean contains(double ra, double dec);
+
+    /** Predicates on the unit vector of each point, computed as S2LatLng.fromDegrees(dec, ra).toPoint() does. */
+    static abstract class Spherical extends ADQLPointPredicate {
+
+        @Override
+        public final boolean contains(double ra, double dec) {
+            double lat = dec * DEG_TO_RAD;
+            double lng = ra * DEG_TO_RAD;
+            double cosLat = Math.cos(lat);
+
+            return contains(Math.cos(lng) * cosLat, Math.sin(lng) * cosLat, Math.sin(lat));
+        }
+
+        abstract boolean contains(double x, double y, double z);
+    }
+
+    /** Squared chord distance to the axis of a cap, the same comparison as S2Cap.contains(S2Point). */
+    static final class Circle extends Spherical {
+
+        private final double ax;
+        private final double ay;
+        private final double az;
+        private final double length2;
+
+        Circle(S2Cap cap) {
+            ax = cap.axis().getX();
+            ay = cap.axis().getY();
+            az = cap.axis().getZ();
+            length2 = cap.radius().getLength2();
+        }
+
+        @Override
+        boolean contains(double x, double y, double z) {
+            double dx = ax - x;
+            double dy = ay - y;
+            double dz = az - z;
+
+            return Math.min(4, dx * dx + dy * dy + dz * dz) <= length2;
+        }
+    }
+
+    /**
+     * Convex loop, tested against the normals of its edges. A point is inside if it is on the left of every edge, and
+     * outside if it is on the right of any of them. Points closer to an edge than EDGE_TOLERANCE are left to S2Loop.
+     */
+    static final class ConvexPolygon extends Spherical {
+
+        private final S2Loop loop;
+
+        private final double[] nx;
+        private final double[] ny;
+        private final double[] nz;
+
+        /** @return true if every vertex of loop lies on the left of every edge it does not belong to. */
+        static boolean accepts(S2Loop loop) {
+            int n = loop.numVertices();
+            if (n < 3) {
+                return false;
+            }
+
+            for (int i = 0; i < n; i++) {
+                S2Point normal = edgeNormal(loop, i);
+                if (normal == null) {
+                    return false;
+                }
+                for (int j = 2; j < n; j++) {
+                    if (normal.dotProd(loop.vertex((i + j) % n)) <= EDGE_TOLERANCE) {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * @return the unit normal of the i-th edge of loop, pointing to its left, or null if the edge is degenerate. The
+         *         robust cross product keeps its direction accurate even for very short edges.
+         */
+        private static S2Point edgeNormal(S2Loop loop, int i) {
+            S2Point normal = S2.robustCrossProd(loop.vertex(i), loop.vertex((i + 1) % loop.numVertices()));
+            double norm = normal.norm();
+            if (!(norm > EDGE_TOLERANCE)) {
+                return null;
+            }
+            return S2Point.div(normal, norm);
+        }
+
+        ConvexPolygon(S2Loop loop) {
+            this.loop = loop;
+
+            int n = loop.numVertices();
+            nx = new double[n];
+            ny = new double[n];
+            nz = new double[n];
+            for (int i = 0; i < n; i++) {
+                S2Point normal = edgeNormal(loop, i);
+                nx[i] = normal.getX();
+                ny[i] = normal.getY();
+                nz[i] = normal.getZ();
+            }
+        }
+
+        @Override
+        boolean contains(double x, double y, double z) {
+            boolean onEdge = false;
+
+            for (int i = 0; i < nx.length; i++) {
+                double d = nx[i] * x + ny[i] * y + nz[i] * z;
+                if (d < -EDGE_TOLERANCE) {
+                    return false;
+                }
+                onEdge |= d <= EDGE_TOLERANCE;
+            }
+
+            return !onEdge || loop.contains(new S2Point(x, y, z));
+        }
+    }
+
+    /** Any other loop. Points outside its bounding cap are discarded before asking S2Loop. */
+    static final class Polygon extends Spherical {
+
+        private final S2Loop loop;
+        private final Circle bound;
+
+        Polygon(S2Loop loop) {
+            this.loop = loop;
+            this.bound = new Circle(loop.getCapBound());
+        }
+
+        @Override
+        boolean contains(double x, double y, double z) {
+            return bound.contains(x, y, z) && loop.contains(new S2Point(x, y, z));
+        }
+    }
+
+    /** Lookup of the order 29 NESTED pixel of each point, as ADQLPoint.toPixel() computes it. */
+    static final class Region extends ADQLPointPredicate {
+
+        private final ADQLRegion region;
+
+        Region(ADQLRegion region) {
+            this.region = region;
+        }
+
+        @Override
+        public boolean contains(double ra, double dec) {
+            return region.contains(HealpixKernel.ang2pixNest(HealpixKernel.ORDER_MAX, Math.toRadians(90 - dec),
+                    Math.toRadians(ra)));
+        }
+    }
+}
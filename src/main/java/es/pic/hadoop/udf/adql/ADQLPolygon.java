@@ -4,7 +4,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.hadoop.hive.ql.metadata.HiveException;
-import org.apache.hadoop.hive.serde2.io.DoubleWritable;
 
 import com.google.common.geometry.S2LatLng;
 import com.google.common.geometry.S2Loop;
@@ -16,30 +15,41 @@ import healpix.essentials.RangeSet;
 
 public class ADQLPolygon extends ADQLGeometry {
 
-    private static List<DoubleWritable> parseCoords(double... args) {
-        List<DoubleWritable> coords = new ArrayList<DoubleWritable>(args.length);
-        for (double coord : args) {
-            coords.add(new DoubleWritable(coord));
-        }
-        return coords;
-    }
+    private S2Loop loop;
 
-    public ADQLPolygon(double... args) {
-        this(parseCoords(args));
+    /**
+     * Construct a polygon from a flat list of ra, dec pairs. The array is adopted, not copied, so it must not be
+     * modified afterwards.
+     */
+    public ADQLPolygon(double... coords) {
+        super(ADQLGeometry.Kind.POLYGON, coords);
     }
 
-    protected ADQLPolygon(List<DoubleWritable> coords) {
-        super(ADQLGeometry.Kind.POLYGON, coords, null);
+    /** @return the S2 representation of this polygon, built on first use. */
+    public S2Loop toS2Loop() {
+        if (loop == null) {
+            int size = getNumCoords();
+            List<S2Point> vertices = new ArrayList<S2Point>(size / 2);
+
+            for (int i = 0; i < size; i += 2) {
+                double ra = getCoord(i);
+                double dec = getCoord(i + 1);
+                vertices.add(S2LatLng.fromDegrees(dec, ra).toPoint());
+            }
+
+            loop = new S2Loop(vertices);
+        }
+        return loop;
     }
 
     @Override
     public ADQLPolygon complement() {
         int size = getNumCoords();
-        List<DoubleWritable> coords = new ArrayList<DoubleWritable>(size);
+        double[] coords = new double[size];
 
-        for (int i = size - 2; i >= 0; i -= 2) {
-            coords.add(getCoord(i));
-            coords.add(getCoord(i + 1));
+        for (int i = size - 2, j = 0; i >= 0; i -= 2, j += 2) {
+            coords[j] = getCoord(i);
+            coords[j + 1] = getCoord(i + 1);
         }
 
         return new ADQLPolygon(coords);
@@ -47,37 +57,14 @@ public class ADQLPolygon extends ADQLGeometry {
 
     @Override
     public ADQLPoint centroid() {
-        List<S2Point> vertices = new ArrayList<S2Point>();
-
-        double ra;
-        double dec;
-
-        for (int i = 0; i < getNumCoords(); i += 2) {
-            ra = getCoord(i).get();
-            dec = getCoord(i + 1).get();
-            vertices.add(S2LatLng.fromDegrees(dec, ra).toPoint());
-        }
-
-        S2Loop loop = new S2Loop(vertices);
-        S2LatLng point = new S2LatLng(loop.getCentroid());
+        S2LatLng point = new S2LatLng(toS2Loop().getCentroid());
 
         return new ADQLPoint(point.lngDegrees(), point.latDegrees());
     }
 
     @Override
     public double area() {
-        int size = getNumCoords();
-        List<S2Point> vertices = new ArrayList<S2Point>();
-
-        for (int i = 0; i < size; i += 2) {
-            double ra = getCoord(i).get();
-            double dec = getCoord(i + 1).get();
-            vertices.add(S2LatLng.fromDegrees(dec, ra).toPoint());
-        }
-
-        S2Loop loop = new S2Loop(vertices);
-
-        return Math.toDegrees(Math.toDegrees(loop.getArea()));
+        return Math.toDegrees(Math.toDegrees(toS2Loop().getArea()));
     }
 
     public ADQLRegion toRegion(byte order) throws HiveException {
@@ -89,8 +76,8 @@ public class ADQLPolygon extends ADQLGeometry {
         int size = getNumCoords();
         ArrayList<Pointing> vertices = new ArrayList<Pointing>();
         for (int i = 0; i < size; i += 2) {
-            theta = Math.toRadians(90 - getCoord(i + 1).get());
-            phi = Math.toRadians(getCoord(i).get());
+            theta = Math.toRadians(90 - getCoord(i + 1));
+            phi = Math.toRadians(getCoord(i));
             pt = new Pointing(theta, phi);
             vertices.add(pt);
         }
@@ -1,7 +1,13 @@
 package es.pic.hadoop.udf.adql;
 
 import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiFunction;
 
 import org.apache.hadoop.io.BytesWritable;
 
@@ -34,6 +40,9 @@ public class ADQLRangeSet {
         }
     };
 
+    /** Smallest number of boundaries worth a chunk of its own, beyond the first two. */
+    private static final int MIN_CHUNK = 1 << 16;
+
     /** Sorted list of interval boundaries. */
     private long[] r;
     /** Current number of active entries. */
@@ -210,7 +219,7 @@ public class ADQLRangeSet {
     }
 
     /** Estimate a good strategy for set operations involving two ADQLRangeSets. */
-    private static int strategy(int sza, int szb) {
+    static int strategy(int sza, int szb) {
         final double fct1 = 1.;
         final double fct2 = 1.;
         int slo = sza < szb ? sza : szb, shi = sza < szb ? szb : sza;
@@ -265,12 +274,21 @@ public class ADQLRangeSet {
         return true;
     }
 
-    private static boolean generalAllOrNothing(ADQLRangeSet a, ADQLRangeSet b, boolean flip_a, boolean flip_b) {
+    private static boolean generalAllOrNothing(ADQLRangeSet a, ADQLRangeSet b, boolean flip_a, boolean flip_b,
+            ADQLRangeSetExecutor executor) {
         if (a.isEmpty())
             return flip_a ? true : b.isEmpty();
         if (b.isEmpty())
             return flip_b ? true : a.isEmpty();
         int strat = strategy(a.nranges(), b.nranges());
+        long[] splits = (strat == 1) ? splits(a, b, executor) : null;
+        if (splits != null) {
+            // Outside its chunk, each slice is empty and keeps the initial state, so the answer holds for all chunks
+            for (boolean chunk : forkJoin(executor, a, b, splits, (sa, sb) -> generalAllOrNothing1(sa, sb, flip_a, flip_b)))
+                if (!chunk)
+                    return false;
+            return true;
+        }
         return (strat == 1) ? generalAllOrNothing1(a, b, flip_a, flip_b)
                 : ((strat == 2) ? generalAllOrNothing2(a, b, flip_a, flip_b)
                         : generalAllOrNothing2(b, a, flip_b, flip_a));
@@ -329,29 +347,113 @@ public class ADQLRangeSet {
         return res;
     }
 
-    private static ADQLRangeSet generalUnion(ADQLRangeSet a, ADQLRangeSet b, boolean flip_a, boolean flip_b) {
+    private static ADQLRangeSet generalUnion(ADQLRangeSet a, ADQLRangeSet b, boolean flip_a, boolean flip_b,
+            ADQLRangeSetExecutor executor) {
         if (a.isEmpty())
             return flip_a ? new ADQLRangeSet() : new ADQLRangeSet(b);
         if (b.isEmpty())
             return flip_b ? new ADQLRangeSet() : new ADQLRangeSet(a);
         int strat = strategy(a.nranges(), b.nranges());
+        long[] splits = (strat == 1) ? splits(a, b, executor) : null;
+        if (splits != null) {
+            // Unions, intersections and differences never leave a ∪ b, so each result stays within its chunk
+            List<ADQLRangeSet> chunks = forkJoin(executor, a, b, splits, (sa, sb) -> generalUnion1(sa, sb, flip_a, flip_b));
+            int n = 0;
+            for (ADQLRangeSet chunk : chunks)
+                n += chunk.nranges();
+            ADQLRangeSet res = new ADQLRangeSet(n);
+            for (ADQLRangeSet chunk : chunks)
+                res.append(chunk);
+            return res;
+        }
         return (strat == 1) ? generalUnion1(a, b, flip_a, flip_b)
                 : ((strat == 2) ? generalUnion2(a, b, flip_a, flip_b) : generalUnion2(b, a, flip_b, flip_a));
     }
 
+    /**
+     * Choose where to split the index space for a parallel operation on a and b. Splits are range starts of the
+     * larger operand, evenly spaced by rank, so every chunk holds about as many of its boundaries.
+     *
+     * @return the sorted split values, or null if the operands are too small to be worth splitting, or the executor
+     *         is sequential.
+     */
+    private static long[] splits(ADQLRangeSet a, ADQLRangeSet b, ADQLRangeSetExecutor executor) {
+        long total = (long) a.sz + b.sz;
+        if (!executor.splits(total))
+            return null;
+
+        ADQLRangeSet big = a.sz >= b.sz ? a : b;
+        int nchunks = (int) Math.max(2, Math.min(4L * executor.getParallelism(), total / MIN_CHUNK));
+        nchunks = Math.min(nchunks, big.nranges());
+        if (nchunks < 2)
+            return null;
+
+        long[] splits = new long[nchunks - 1];
+        for (int i = 1; i < nchunks; i++)
+            splits[i - 1] = big.r[2 * (int) ((long) big.nranges() * i / nchunks)];
+        return splits;
+    }
+
+    /**
+     * Apply op to the slices of a and b between consecutive splits, in parallel in the pool of executor.
+     *
+     * @return the result of each chunk, in order.
+     */
+    private static <T> List<T> forkJoin(ADQLRangeSetExecutor executor, ADQLRangeSet a, ADQLRangeSet b, long[] splits,
+            BiFunction<ADQLRangeSet, ADQLRangeSet, T> op) {
+        List<ForkJoinTask<T>> tasks = new ArrayList<ForkJoinTask<T>>(splits.length + 1);
+        for (int i = 0; i <= splits.length; i++) {
+            long lo = (i == 0) ? Long.MIN_VALUE : splits[i - 1];
+            long hi = (i == splits.length) ? Long.MAX_VALUE : splits[i];
+            tasks.add(ForkJoinTask.adapt(() -> op.apply(a.slice(lo, hi), b.slice(lo, hi))));
+        }
+        executor.invokeAll(tasks);
+
+        List<T> results = new ArrayList<T>(tasks.size());
+        for (ForkJoinTask<T> task : tasks)
+            results.add(task.join());
+        return results;
+    }
+
+    /** @return a new set with the ranges of this one clipped to [lo, hi). */
+    private ADQLRangeSet slice(long lo, long hi) {
+        int i = iiv(lo), end = iiv(hi);
+        ADQLRangeSet res = new ADQLRangeSet(Math.max(0, (end - i) / 2 + 1));
+        // An even index means that lo falls inside a range
+        i = ((i & 1) == 0) ? i : i + 1;
+        for (; i < sz && r[i] < hi; i += 2)
+            res.append(Math.max(r[i], lo), Math.min(r[i + 1], hi));
+        return res;
+    }
+
     /** Return the union of this ADQLRangeSet and other. */
     public ADQLRangeSet union(ADQLRangeSet other) {
-        return generalUnion(this, other, false, false);
+        return union(other, ADQLRangeSetExecutor.SEQUENTIAL);
+    }
+
+    /** Return the union of this ADQLRangeSet and other, merged in executor. */
+    public ADQLRangeSet union(ADQLRangeSet other, ADQLRangeSetExecutor executor) {
+        return generalUnion(this, other, false, false, executor);
     }
 
     /** Return the intersection of this ADQLRangeSet and other. */
     public ADQLRangeSet intersection(ADQLRangeSet other) {
-        return generalUnion(this, other, true, true);
+        return intersection(other, ADQLRangeSetExecutor.SEQUENTIAL);
+    }
+
+    /** Return the intersection of this ADQLRangeSet and other, merged in executor. */
+    public ADQLRangeSet intersection(ADQLRangeSet other, ADQLRangeSetExecutor executor) {
+        return generalUnion(this, other, true, true, executor);
     }
 
     /** Return the difference of this ADQLRangeSet and other. */
     public ADQLRangeSet difference(ADQLRangeSet other) {
-        return generalUnion(this, other, true, false);
+        return difference(other, ADQLRangeSetExecutor.SEQUENTIAL);
+    }
+
+    /** Return the difference of this ADQLRangeSet and other, merged in executor. */
+    public ADQLRangeSet difference(ADQLRangeSet other, ADQLRangeSetExecutor executor) {
+        return generalUnion(this, other, true, false, executor);
     }
 
     /** Returns true if a is contained in the set, else false. */
@@ -389,7 +491,12 @@ public class ADQLRangeSet {
 
     /** Returns true if the set completely contains "other", else false. */
     public boolean contains(ADQLRangeSet other) {
-        return generalAllOrNothing(this, other, false, true);
+        return contains(other, ADQLRangeSetExecutor.SEQUENTIAL);
+    }
+
+    /** Returns true if the set completely contains "other", else false, merging both in executor. */
+    public boolean contains(ADQLRangeSet other, ADQLRangeSetExecutor executor) {
+        return generalAllOrNothing(this, other, false, true, executor);
     }
 
     @Deprecated
@@ -399,7 +506,12 @@ public class ADQLRangeSet {
 
     /** Returns true if there is overlap between the set and "other", else false. */
     public boolean overlaps(ADQLRangeSet other) {
-        return !generalAllOrNothing(this, other, true, true);
+        return overlaps(other, ADQLRangeSetExecutor.SEQUENTIAL);
+    }
+
+    /** Returns true if there is overlap between the set and "other", else false, merging both in executor. */
+    public boolean overlaps(ADQLRangeSet other, ADQLRangeSetExecutor executor) {
+        return !generalAllOrNothing(this, other, true, true, executor);
     }
 
     @Deprecated
@@ -600,10 +712,35 @@ public class ADQLRangeSet {
         this(data.getBytes(), data.getLength());
     }
 
+    /**
+     * Build a new object from a serialized range set, in any of the formats of ADQLRangeSetCodec. Compressed sets are
+     * checked for consistency. RAW boundaries are taken as they are, as they always have been, so existing rows with
+     * unsorted or overlapping boundaries can still be read.
+     */
     public ADQLRangeSet(byte[] data, int length) {
-        this(length / Long.BYTES / 2);
-        ByteBuffer.wrap(data, 0, length).asLongBuffer().get(r);
-        sz = length / Long.BYTES;
+        this(0);
+        LongBuffer ranges = ADQLRangeSetCodec.decode(data, length, null);
+        r = ranges.array();
+        sz = ranges.limit();
+        if (ADQLRangeSetCodec.format(data, length) != ADQLRangeSetCodec.RAW) {
+            checkConsistency();
+        }
+    }
+
+    /**
+     * Build a new object that takes ownership of the first sz entries of an array, without copying them.
+     */
+    static ADQLRangeSet wrap(long[] data, int sz) {
+        ADQLRangeSet rs = new ADQLRangeSet(0);
+        rs.r = data;
+        rs.sz = sz;
+        rs.checkConsistency();
+        return rs;
+    }
+
+    /** @return a read-only view over the ranges of this object, sharing its storage. */
+    public ADQLRangeSetView asView() {
+        return new ADQLRangeSetView(LongBuffer.wrap(r, 0, sz));
     }
 
     public byte[] getRangesAsBytes() {
@@ -630,22 +767,155 @@ public class ADQLRangeSet {
         this.add(p1 << shift, p2 << shift);
     }
 
+    /**
+     * Decompose the set into the minimal list of multi-order cells, in the NUNIQ scheme of the IVOA MOC standard: a
+     * NESTED pixel p at order o is 4 * 4^o + p. Each range is split into its largest aligned cells, so it takes at most
+     * a few cells per order.
+     *
+     * @return the cells, sorted by NUNIQ, that is by order and then by pixel.
+     */
+    public long[] toNuniq() {
+        int n = 0;
+        for (int i = 0; i < sz; i += 2) {
+            n += countCells(r[i], r[i + 1]);
+        }
+
+        long[] cells = new long[n];
+        n = 0;
+        for (int i = 0; i < sz; i += 2) {
+            long a = r[i], b = r[i + 1];
+            while (a < b) {
+                int shift = cellShift(a, b);
+                int order = maxorder - shift / 2;
+                cells[n++] = (4L << (2 * order)) + (a >>> shift);
+                a += 1L << shift;
+            }
+        }
+
+        Arrays.sort(cells);
+        return cells;
+    }
+
+    /** @return number of cells in the decomposition of [a, b). */
+    private static int countCells(long a, long b) {
+        int n = 0;
+        while (a < b) {
+            a += 1L << cellShift(a, b);
+            n++;
+        }
+        return n;
+    }
+
+    /** @return twice the difference between order_max and the order of the largest aligned cell starting at a. */
+    private static int cellShift(long a, long b) {
+        int shift = a == 0 ? 2 * maxorder : Math.min(2 * maxorder, Long.numberOfTrailingZeros(a) & ~1);
+        while ((1L << shift) > b - a) {
+            shift -= 2;
+        }
+        return shift;
+    }
+
+    /**
+     * Build a new object from a list of cells in the NUNIQ scheme, in any order. Cells may overlap or touch, and are
+     * coalesced into ranges at order_max.
+     */
+    public static ADQLRangeSet fromNuniq(long[] cells, int n) {
+        long[] starts = new long[n];
+        long[] ends = new long[n];
+        for (int i = 0; i < n; i++) {
+            long uniq = cells[i];
+            if (uniq < 4) {
+                throw new IllegalArgumentException("invalid NUNIQ cell");
+            }
+            int order = (63 - Long.numberOfLeadingZeros(uniq)) / 2 - 1;
+            if (order > maxorder) {
+                throw new IllegalArgumentException("invalid NUNIQ cell");
+            }
+            int shift = 2 * (maxorder - order);
+            long ipix = uniq - (4L << (2 * order));
+            starts[i] = ipix << shift;
+            ends[i] = (ipix + 1) << shift;
+        }
+
+        // Sorting starts and ends on their own is enough to sweep the coverage of the cells
+        Arrays.sort(starts);
+        Arrays.sort(ends);
+
+        ADQLRangeSet rs = new ADQLRangeSet(n);
+        int i = 0, j = 0, depth = 0;
+        long begin = 0;
+        while (j < n) {
+            // Starts go first on ties, so touching cells are coalesced
+            if (i < n && starts[i] <= ends[j]) {
+                if (depth++ == 0) {
+                    begin = starts[i];
+                }
+                i++;
+            } else {
+                if (--depth == 0) {
+                    rs.append(begin, ends[j]);
+                }
+                j++;
+            }
+        }
+        return rs;
+    }
+
     public ADQLRangeSet degradedToOrder(int order) {
         return degradedToOrder(order, true);
     }
 
     public ADQLRangeSet degradedToOrder(int order, boolean keepPartialCells) {
+        ADQLRangeSetCursor cursor = new ADQLRangeSetCursor();
+        cursor.reset(asView());
+        return degradedToOrder(cursor, order, keepPartialCells);
+    }
+
+    /**
+     * Degrade the set walked by cursor, which may still be serialized, to the given order. Ranges that touch or
+     * overlap once their boundaries are rounded are coalesced on the fly. The set is streamed twice, first to count
+     * the ranges of the result and then to fill an array of exactly that size, so degrading a large set to a coarse
+     * order never holds more than the result.
+     */
+    static ADQLRangeSet degradedToOrder(ADQLRangeSetCursor cursor, int order, boolean keepPartialCells) {
         int shift = 2 * (maxorder - order);
         long ofs = (1L << shift) - 1;
         long mask = ~ofs;
         long adda = keepPartialCells ? 0L : ofs, addb = keepPartialCells ? ofs : 0L;
-        ADQLRangeSet rs2 = new ADQLRangeSet();
-        for (int i = 0; i < nranges(); ++i) {
-            long a = (ivbegin(i) + adda) & mask;
-            long b = (ivend(i) + addb) & mask;
-            if (b > a)
-                rs2.append(a, b);
+
+        // Rounded boundaries are still sorted, so a range can only touch or overlap the previous one
+        int n = 0;
+        long last = -1;
+        while (cursor.hasNext()) {
+            long a = (cursor.next() + adda) & mask;
+            long b = (cursor.next() + addb) & mask;
+            if (b > a) {
+                if (n == 0 || a > last) {
+                    n += 2;
+                }
+                last = Math.max(last, b);
+            }
+        }
+
+        long[] r = new long[n];
+        n = 0;
+        cursor.rewind();
+        while (cursor.hasNext()) {
+            long a = (cursor.next() + adda) & mask;
+            long b = (cursor.next() + addb) & mask;
+            if (b > a) {
+                if (n == 0 || a > r[n - 1]) {
+                    r[n++] = a;
+                    r[n++] = b;
+                } else if (b > r[n - 1]) {
+                    r[n - 1] = b;
+                }
+            }
         }
-        return rs2;
+
+        ADQLRangeSet rs = new ADQLRangeSet(0);
+        rs.r = r;
+        rs.sz = n;
+        return rs;
     }
 }
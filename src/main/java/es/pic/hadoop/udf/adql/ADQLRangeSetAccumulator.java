@@ -0,0 +1,202 @@
+package es.pic.hadoop.udf.adql;
+
+import java.nio.LongBuffer;
+
+/**
+ * Mutable range set for aggregations. Each incoming set is merged with the current ranges into a second array, and
+ * both arrays are then swapped, so once they have grown to the size of the result no more memory is allocated, no
+ * matter how many sets are merged. Arrays grow geometrically.
+ *
+ * Sets are merged many at once from an ADQLRangeSetBatch.
+ */
+public final class ADQLRangeSetAccumulator {
+
+    /** Sorted list of interval boundaries. */
+    private long[] r;
+    /** Scratch array the next merge is written to. */
+    private long[] tmp;
+    /** Current number of active entries. */
+    private int sz;
+
+    /** Heap of sources and their current position and end, only used by merge(). */
+    private int[] heap = new int[0];
+    private int[] pos = new int[0];
+    private int[] ends = new int[0];
+    private long[][] arrays = new long[0][];
+
+    /** Construct an empty accumulator. */
+    public ADQLRangeSetAccumulator() {
+        this(4);
+    }
+
+    /** Construct an empty accumulator with initial capacity for a given number of ranges. */
+    public ADQLRangeSetAccumulator(int cap) {
+        if (cap < 0)
+            throw new IllegalArgumentException("capacity must be positive");
+        r = new long[cap << 1];
+        tmp = new long[cap << 1];
+        sz = 0;
+    }
+
+    /** @return number of boundaries (twice the number of ranges). */
+    public int size() {
+        return sz;
+    }
+
+    /** @return number of ranges in the set. */
+    public int nranges() {
+        return sz >>> 1;
+    }
+
+    /** @return true if no entries are stored, else false. */
+    public boolean isEmpty() {
+        return sz == 0;
+    }
+
+    /** Remove all entries in the set, keeping the arrays. */
+    public void clear() {
+        sz = 0;
+    }
+
+    /**
+     * Append a range to the set. It must not start before the last range, and is coalesced with it if they touch.
+     */
+    public void append(long a, long b) {
+        if (a >= b)
+            return;
+        if ((sz > 0) && (a <= r[sz - 1])) {
+            if (a < r[sz - 2])
+                throw new IllegalArgumentException("bad append operation");
+            if (b > r[sz - 1])
+                r[sz - 1] = b;
+            return;
+        }
+        r = ensure(r, sz + 2, sz);
+        r[sz] = a;
+        r[sz + 1] = b;
+        sz += 2;
+    }
+
+    /**
+     * Replace the set with the values covered by at least minCount of the sets in batch, also counting this set if
+     * self is true. A minCount of 1 gives their union, and the number of sets their intersection.
+     *
+     * All boundaries are swept in order through a heap holding the next boundary of each set, so merging k sets with N
+     * boundaries in total costs O(N log k), instead of the O(N k) of merging them one at a time.
+     */
+    public void merge(ADQLRangeSetBatch batch, boolean self, int minCount) {
+        int k = batch.count + (self ? 1 : 0);
+        ensureSources(k);
+
+        // Sources are the sets in the batch, followed by this one
+        int nheap = 0;
+        for (int i = 0; i < k; i++) {
+            long[] array = i < batch.count ? batch.data : r;
+            int begin = i < batch.count ? batch.starts[i] : 0;
+            int end = i < batch.count ? batch.starts[i + 1] : sz;
+            if (begin < end) {
+                arrays[i] = array;
+                pos[i] = begin;
+                ends[i] = end;
+                heap[nheap++] = i;
+            }
+        }
+        for (int i = nheap / 2 - 1; i >= 0; i--) {
+            siftDown(i, nheap);
+        }
+
+        tmp = ensure(tmp, batch.size() + (self ? sz : 0), 0);
+
+        int n = 0;
+        int coverage = 0;
+        while (nheap > 0) {
+            long value = head(heap[0]);
+            boolean before = coverage >= minCount;
+
+            // Apply every boundary at this value before deciding, so touching ranges are coalesced
+            while (nheap > 0 && head(heap[0]) == value) {
+                int src = heap[0];
+                // Sets start at even offsets, so even positions open a range and odd ones close it
+                coverage += (pos[src] & 1) == 0 ? 1 : -1;
+                if (++pos[src] == ends[src]) {
+                    heap[0] = heap[--nheap];
+                }
+                siftDown(0, nheap);
+            }
+
+            if (before != (coverage >= minCount)) {
+                tmp[n++] = value;
+            }
+        }
+
+        for (int i = 0; i < k; i++) {
+            arrays[i] = null;
+        }
+
+        long[] swap = r;
+        r = tmp;
+        tmp = swap;
+        sz = n;
+    }
+
+    private long head(int src) {
+        return arrays[src][pos[src]];
+    }
+
+    private void siftDown(int i, int nheap) {
+        int src = heap[i];
+        long value = nheap > i ? head(src) : 0L;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= nheap) {
+                break;
+            }
+            if (child + 1 < nheap && head(heap[child + 1]) < head(heap[child])) {
+                child++;
+            }
+            if (head(heap[child]) >= value) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = src;
+    }
+
+    private void ensureSources(int k) {
+        if (heap.length < k) {
+            int n = Math.max(2 * heap.length, k);
+            heap = new int[n];
+            pos = new int[n];
+            ends = new int[n];
+            arrays = new long[n][];
+        }
+    }
+
+    /** @return a read-only view over the ranges, sharing storage with this accumulator until it is modified. */
+    public ADQLRangeSetView asView() {
+        return new ADQLRangeSetView(LongBuffer.wrap(r, 0, sz));
+    }
+
+    /** @return a copy of the ranges. */
+    public ADQLRangeSet toRangeSet() {
+        long[] data = new long[sz];
+        System.arraycopy(r, 0, data, 0, sz);
+        return ADQLRangeSet.wrap(data, sz);
+    }
+
+    /** @return array if it can hold size entries, or a larger copy of its first used entries otherwise. */
+    private static long[] ensure(long[] array, int size, int used) {
+        if (array.length >= size) {
+            return array;
+        }
+        long[] grown = new long[Math.max(2 * array.length, size)];
+        System.arraycopy(array, 0, grown, 0, used);
+        return grown;
+    }
+
+    /** @return approximate number of bytes held by the accumulator. */
+    public int estimate() {
+        return (r.length + tmp.length) * Long.BYTES + heap.length * (3 * Integer.BYTES + 8);
+    }
+}
@@ -0,0 +1,122 @@
+package es.pic.hadoop.udf.adql;
+
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * Range sets waiting to be merged together, packed one after the other in a single array. Aggregations gather incoming
+ * sets here until the batch reaches its memory budget, and then fold all of them at once with
+ * ADQLRangeSetAccumulator.merge(), which is a single k-way merge instead of one pairwise merge per set.
+ *
+ * The budget, in bytes, is read from the {@value #BUDGET_PROPERTY} property. It applies to every aggregation buffer,
+ * and a budget of 0 merges each set as soon as it arrives.
+ */
+public final class ADQLRangeSetBatch {
+
+    public static final String BUDGET_PROPERTY = "adql.region.aggregation.budget";
+    public static final int DEFAULT_BUDGET = 8 << 20;
+
+    private static volatile int budget = DEFAULT_BUDGET;
+
+    /** Boundaries of every set, one after the other. */
+    long[] data = new long[16];
+    /** Offset of the first boundary of each set, plus the total number of boundaries at the end. */
+    int[] starts = new int[5];
+    /** Number of sets in the batch. */
+    int count;
+
+    /** Read the budget from the job configuration. */
+    public static void configure(Configuration conf) {
+        setBudget(conf.getInt(BUDGET_PROPERTY, DEFAULT_BUDGET));
+    }
+
+    public static void setBudget(int budget) {
+        if (budget < 0) {
+            throw new IllegalArgumentException(BUDGET_PROPERTY + " cannot be negative.");
+        }
+        ADQLRangeSetBatch.budget = budget;
+    }
+
+    public static int getBudget() {
+        return budget;
+    }
+
+    /** @return number of sets in the batch. */
+    public int count() {
+        return count;
+    }
+
+    /** @return number of boundaries in the batch, across all sets. */
+    public int size() {
+        return starts[count];
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /** @return true if the batch has reached its budget and should be merged. */
+    public boolean isFull() {
+        return (long) size() * Long.BYTES >= budget;
+    }
+
+    /** Copy the ranges of a set into the batch. */
+    public void add(ADQLRangeSetView rs) {
+        int size = size(), n = rs.size();
+        ensure(n);
+
+        for (int i = 0; i < n; i++) {
+            data[size + i] = rs.get(i);
+        }
+        starts[++count] = size + n;
+    }
+
+    /**
+     * Decode a set serialized in the DELTA format of ADQLRangeSetCodec straight into the batch, with no intermediate
+     * array nor view.
+     */
+    public void addDelta(byte[] bytes, int length) {
+        ByteBuffer buf = ByteBuffer.wrap(bytes, 0, length);
+        if (length == 0 || buf.get() != ADQLRangeSetCodec.DELTA) {
+            throw new IllegalArgumentException("Delta-encoded range set expected.");
+        }
+        int shift = ADQLRangeSetCodec.getShift(buf);
+        int n = ADQLRangeSetCodec.getCount(buf);
+        // Every boundary takes at least one byte
+        if (n > buf.remaining()) {
+            throw new IllegalArgumentException("invalid number of entries");
+        }
+
+        int size = size();
+        ensure(n);
+        ADQLRangeSetCodec.getDeltas(buf, data, size, n, shift);
+        starts[++count] = size + n;
+    }
+
+    /** Make room for one more set of n boundaries. */
+    private void ensure(int n) {
+        int size = size();
+
+        if (data.length < size + n) {
+            long[] grown = new long[Math.max(2 * data.length, size + n)];
+            System.arraycopy(data, 0, grown, 0, size);
+            data = grown;
+        }
+        if (starts.length < count + 2) {
+            int[] grown = new int[2 * starts.length];
+            System.arraycopy(starts, 0, grown, 0, count + 1);
+            starts = grown;
+        }
+    }
+
+    /** Remove all sets from the batch, keeping the arrays. */
+    public void clear() {
+        count = 0;
+    }
+
+    /** @return approximate number of bytes held by the batch. */
+    public int estimate() {
+        return data.length * Long.BYTES + starts.length * Integer.BYTES;
+    }
+}
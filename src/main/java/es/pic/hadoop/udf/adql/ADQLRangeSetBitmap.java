@@ -0,0 +1,83 @@
+package es.pic.hadoop.udf.adql;
+
+import java.util.BitSet;
+
+import healpix.essentials.HealpixBase;
+
+/**
+ * Dense range set at a coarse order, with one bit per NESTED pixel. Large regions built at a low order, as those of
+ * an all-sky aggregation at order 10, take far less space as a bitmap than as a list of ranges, and each incoming set
+ * is merged by setting or clearing whole words instead of by merging sorted lists.
+ *
+ * Only sets whose boundaries fall on pixels of the bitmap order can be merged into it.
+ */
+public final class ADQLRangeSetBitmap {
+
+    public static final byte MAX_ORDER = 12;
+
+    private final byte order;
+    private final int shift;
+    private final int ncells;
+    private final BitSet bits;
+
+    public ADQLRangeSetBitmap(byte order) {
+        if (order < 0 || order > MAX_ORDER) {
+            throw new IllegalArgumentException(String.format("order must be between 0 and %d", MAX_ORDER));
+        }
+        this.order = order;
+        shift = 2 * (HealpixBase.order_max - order);
+        ncells = 12 << (2 * order);
+        bits = new BitSet(ncells);
+    }
+
+    /** @return the coarsest order at which every boundary in rs falls on a pixel boundary. */
+    public static byte orderOf(ADQLRangeSetView rs) {
+        int shift = Math.min(ADQLRangeSetCodec.shift(rs), 2 * HealpixBase.order_max);
+        return (byte) (HealpixBase.order_max - shift / 2);
+    }
+
+    /** @return number of bytes taken by a bitmap at order. */
+    public static long sizeOf(byte order) {
+        return (12L << (2 * order)) / Byte.SIZE;
+    }
+
+    public byte getOrder() {
+        return order;
+    }
+
+    /** @return true if every boundary in rs falls on a pixel boundary at the order of this bitmap. */
+    public boolean accepts(ADQLRangeSetView rs) {
+        return rs.isEmpty() || orderOf(rs) <= order;
+    }
+
+    /** Add the ranges in rs to the set. */
+    public void or(ADQLRangeSetView rs) {
+        for (int iv = 0; iv < rs.nranges(); iv++) {
+            bits.set((int) (rs.ivbegin(iv) >>> shift), (int) (rs.ivend(iv) >>> shift));
+        }
+    }
+
+    /** Remove from the set the ranges not in rs. */
+    public void and(ADQLRangeSetView rs) {
+        int prev = 0;
+        for (int iv = 0; iv < rs.nranges(); iv++) {
+            bits.clear(prev, (int) (rs.ivbegin(iv) >>> shift));
+            prev = (int) (rs.ivend(iv) >>> shift);
+        }
+        bits.clear(prev, ncells);
+    }
+
+    /** Append the ranges of the set, at order_max, to acc. */
+    public void appendTo(ADQLRangeSetAccumulator acc) {
+        for (int a = bits.nextSetBit(0); a >= 0; a = bits.nextSetBit(a)) {
+            int b = bits.nextClearBit(a);
+            acc.append((long) a << shift, (long) b << shift);
+            a = b;
+        }
+    }
+
+    /** @return approximate number of bytes held by the bitmap. */
+    public int estimate() {
+        return bits.size() / Byte.SIZE;
+    }
+}
@@ -0,0 +1,233 @@
+package es.pic.hadoop.udf.adql;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+import healpix.essentials.Compressor;
+
+/**
+ * Compact encoding of range boundaries: the number of boundaries, followed by the first boundary and the gaps between
+ * consecutive ones, all of them as variable-length integers. As boundaries are sorted and HEALPix regions are
+ * spatially coherent, most gaps fit in one to three bytes instead of eight.
+ *
+ * The same encoding, or HEALPix interpolative coding, may also be used for the "rs" field of an ADQLGeometry, behind a
+ * header byte that tells them apart from the raw boundaries.
+ */
+final class ADQLRangeSetCodec {
+
+    private ADQLRangeSetCodec() {
+    }
+
+    /** @return number of bytes needed to delta-encode the boundaries in rs. */
+    static int deltaSize(ADQLRangeSetView rs) {
+        return deltaSize(rs, 0);
+    }
+
+    /** @return number of bytes needed to delta-encode the boundaries in rs, shifted right by shift bits. */
+    static int deltaSize(ADQLRangeSetView rs, int shift) {
+        int sz = rs.size();
+        int size = VarInt.size(sz);
+        long prev = 0;
+        for (int i = 0; i < sz; i++) {
+            long value = rs.get(i) >>> shift;
+            size += VarInt.size(value - prev);
+            prev = value;
+        }
+        return size;
+    }
+
+    /** Write the boundaries in rs, delta-encoded, at the current position of buf. */
+    static void putDeltas(ByteBuffer buf, ADQLRangeSetView rs) {
+        putDeltas(buf, rs, 0);
+    }
+
+    /** Write the boundaries in rs, shifted right by shift bits and delta-encoded, at the current position of buf. */
+    static void putDeltas(ByteBuffer buf, ADQLRangeSetView rs, int shift) {
+        int sz = rs.size();
+        VarInt.put(buf, sz);
+        long prev = 0;
+        for (int i = 0; i < sz; i++) {
+            long value = rs.get(i) >>> shift;
+            VarInt.put(buf, value - prev);
+            prev = value;
+        }
+    }
+
+    /** Read the number of delta-encoded boundaries that follow at the current position of buf. */
+    static int getCount(ByteBuffer buf) {
+        long n = VarInt.get(buf);
+        if (n < 0 || n > Integer.MAX_VALUE || (n & 1) != 0) {
+            throw new IllegalArgumentException("invalid number of entries");
+        }
+        return (int) n;
+    }
+
+    /** Read n delta-encoded boundaries from the current position of buf into the first n entries of into. */
+    static void getDeltas(ByteBuffer buf, long[] into, int n) {
+        getDeltas(buf, into, n, 0);
+    }
+
+    /** Read n delta-encoded boundaries, shifted right by shift bits, into the first n entries of into. */
+    static void getDeltas(ByteBuffer buf, long[] into, int n, int shift) {
+        getDeltas(buf, into, 0, n, shift);
+    }
+
+    /** Read n delta-encoded boundaries, shifted right by shift bits, into into, starting at offset. */
+    static void getDeltas(ByteBuffer buf, long[] into, int offset, int n, int shift) {
+        long prev = 0;
+        for (int i = 0; i < n; i++) {
+            prev += VarInt.get(buf);
+            into[offset + i] = prev << shift;
+        }
+    }
+
+    /**
+     * @return the number of trailing zero bits shared by every boundary in rs. Regions built at order o leave the
+     *         lowest 2 * (29 - o) bits of every boundary clear, so they can be dropped before the gaps are encoded.
+     */
+    static int shift(ADQLRangeSetView rs) {
+        long bits = 0;
+        for (int i = 0; i < rs.size(); i++) {
+            bits |= rs.get(i);
+        }
+        return bits == 0 ? 0 : Long.numberOfTrailingZeros(bits);
+    }
+
+    /** Read the shift that follows at the current position of buf. */
+    static int getShift(ByteBuffer buf) {
+        int shift = buf.get();
+        if (shift < 0 || shift >= Long.SIZE) {
+            throw new IllegalArgumentException("invalid shift");
+        }
+        return shift;
+    }
+
+    /**
+     * Formats of a serialized range set, as stored in the "rs" field of an ADQLGeometry. RAW boundaries are plain
+     * 8-byte big-endian longs with no header, as written by ADQLRangeSet.getRangesAsBytes(). Boundaries at order_max
+     * are below 12 * 4^29, so the first byte of a RAW set never has its high bit set, and any other format starts with
+     * a header byte that has it. Header values are never reused, so a new layout gets a new header.
+     *
+     * DELTA is followed by the number of trailing zero bits shared by every boundary, as a single byte, and then by
+     * the same payload as a REGION in the binary form, with those bits dropped: the number of boundaries and the gaps
+     * between them as variable-length integers. INTERPOLATIVE is followed by the output of Compressor.interpol_encode(), which is
+     * smaller for large and irregular sets but can only be decoded as a whole.
+     */
+    static final byte RAW = 0;
+    static final byte DELTA = (byte) 0x81;
+    static final byte INTERPOLATIVE = (byte) 0x82;
+
+    /** @return the format of the first length bytes of a serialized range set. */
+    static byte format(byte[] data, int length) {
+        if (length == 0 || data[0] >= 0) {
+            return RAW;
+        }
+        if (data[0] != DELTA && data[0] != INTERPOLATIVE) {
+            throw new IllegalArgumentException("Unknown range set format.");
+        }
+        return data[0];
+    }
+
+    /** @return the format with the given name: raw, delta or interpolative. */
+    static byte format(String name) {
+        switch (name.toLowerCase()) {
+        case "raw":
+            return RAW;
+        case "delta":
+            return DELTA;
+        case "interpolative":
+            return INTERPOLATIVE;
+        default:
+            throw new IllegalArgumentException("Unknown range set format: " + name);
+        }
+    }
+
+    /** Serialize the boundaries in rs using the given format. */
+    static byte[] encode(ADQLRangeSetView rs, byte format) {
+        switch (format) {
+        case RAW:
+            return rs.getRangesAsBytes();
+        case DELTA: {
+            int shift = shift(rs);
+            ByteBuffer buf = ByteBuffer.allocate(2 + deltaSize(rs, shift));
+            buf.put(DELTA);
+            buf.put((byte) shift);
+            putDeltas(buf, rs, shift);
+            return buf.array();
+        }
+        case INTERPOLATIVE: {
+            int sz = rs.size();
+            if (sz == 0) {
+                return new byte[] {
+                        INTERPOLATIVE
+                };
+            }
+            long[] r = new long[sz];
+            for (int i = 0; i < sz; i++) {
+                r[i] = rs.get(i);
+            }
+            byte[] body;
+            try {
+                body = Compressor.interpol_encode(r, 0, sz);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Unable to compress range set.", e);
+            }
+            byte[] bytes = new byte[1 + body.length];
+            bytes[0] = INTERPOLATIVE;
+            System.arraycopy(body, 0, bytes, 1, body.length);
+            return bytes;
+        }
+        default:
+            throw new IllegalArgumentException("Unknown range set format.");
+        }
+    }
+
+    /**
+     * Decode the boundaries of a serialized range set, in any format, into into if it is large enough or into a new
+     * array otherwise.
+     *
+     * @return a buffer over the decoded boundaries, backed by the array that was used.
+     */
+    static LongBuffer decode(byte[] data, int length, long[] into) {
+        switch (format(data, length)) {
+        case RAW: {
+            LongBuffer raw = ByteBuffer.wrap(data, 0, length).asLongBuffer();
+            int n = raw.remaining();
+            into = ensure(into, n);
+            raw.get(into, 0, n);
+            return LongBuffer.wrap(into, 0, n);
+        }
+        case DELTA: {
+            ByteBuffer buf = ByteBuffer.wrap(data, 1, length - 1);
+            int shift = getShift(buf);
+            int n = getCount(buf);
+            into = ensure(into, n);
+            getDeltas(buf, into, n, shift);
+            return LongBuffer.wrap(into, 0, n);
+        }
+        default: { // INTERPOLATIVE
+            if (length == 1) {
+                return LongBuffer.wrap(ensure(into, 0), 0, 0);
+            }
+            long[] r;
+            try {
+                r = Compressor.interpol_decode(Arrays.copyOfRange(data, 1, length));
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Corrupt compressed range set.", e);
+            }
+            if ((r.length & 1) != 0) {
+                throw new IllegalArgumentException("invalid number of entries");
+            }
+            return LongBuffer.wrap(r);
+        }
+        }
+    }
+
+    private static long[] ensure(long[] into, int n) {
+        if (into == null || into.length < n) {
+            return new long[into == null ? n : Math.max(n, 2 * into.length)];
+        }
+        return into;
+    }
+}
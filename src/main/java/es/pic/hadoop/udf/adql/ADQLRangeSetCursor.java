@@ -0,0 +1,262 @@
+package es.pic.hadoop.udf.adql;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.NoSuchElementException;
+
+import org.apache.hadoop.io.BytesWritable;
+
+import healpix.essentials.HealpixBase;
+
+/**
+ * Forward-only reader of the boundaries of a serialized range set, in any of the formats of ADQLRangeSetCodec. RAW and
+ * DELTA sets are decoded one boundary at a time, straight from their bytes, so a caller that stops as soon as it knows
+ * its answer never touches the rest of the payload. INTERPOLATIVE sets can only be decoded as a whole, and are expanded
+ * into an array owned by the cursor when it is reset.
+ *
+ * A cursor may also walk an in-memory ADQLRangeSetView, so serialized and in-memory sets can be merged together. It
+ * can be reset over any number of sets, and only allocates when a wider array or another byte array is met.
+ *
+ * The static predicates below merge two cursors range by range and return as soon as their answer is known.
+ */
+public final class ADQLRangeSetCursor {
+
+    /** Format of a cursor over an ADQLRangeSetView, never found in serialized sets. */
+    private static final byte VIEW = 1;
+
+    private byte[] data;
+    private ByteBuffer buf;
+    private long[] decoded;
+    private ADQLRangeSetView view;
+
+    private byte format;
+    /** Number of boundaries in the set. */
+    private int sz;
+    /** Number of boundaries already read. */
+    private int pos;
+    /** Last boundary read. */
+    private long value;
+    /** Last boundary read, shifted right by shift bits, for DELTA sets. */
+    private long delta;
+    private int shift;
+    /** Offset of the first boundary in buf. */
+    private int start;
+
+    /** Construct a cursor over an empty set. */
+    public ADQLRangeSetCursor() {
+        reset(new byte[0], 0);
+    }
+
+    public ADQLRangeSetCursor(BytesWritable data) {
+        this(data.getBytes(), data.getLength());
+    }
+
+    public ADQLRangeSetCursor(byte[] data, int length) {
+        reset(data, length);
+    }
+
+    public void reset(BytesWritable data) {
+        reset(data.getBytes(), data.getLength());
+    }
+
+    /** Point this cursor to the first boundary of the set serialized in the first length bytes of data. */
+    public void reset(byte[] data, int length) {
+        view = null;
+        format = ADQLRangeSetCodec.format(data, length);
+        if (data != this.data) {
+            this.data = data;
+            buf = ByteBuffer.wrap(data);
+        }
+        buf.limit(length);
+        pos = 0;
+        value = 0;
+        delta = 0;
+
+        switch (format) {
+        case ADQLRangeSetCodec.RAW:
+            if (length % (2 * Long.BYTES) != 0) {
+                throw new IllegalArgumentException("invalid number of entries");
+            }
+            buf.position(0);
+            sz = length / Long.BYTES;
+            start = 0;
+            break;
+        case ADQLRangeSetCodec.DELTA:
+            buf.position(1);
+            shift = ADQLRangeSetCodec.getShift(buf);
+            sz = ADQLRangeSetCodec.getCount(buf);
+            start = buf.position();
+            break;
+        default: // INTERPOLATIVE
+            LongBuffer ranges = ADQLRangeSetCodec.decode(data, length, decoded);
+            decoded = ranges.array();
+            sz = ranges.limit();
+        }
+    }
+
+    /**
+     * Point this cursor to the first boundary of the delta-encoded boundaries, with no header nor shift, stored in
+     * data between offset and length, as in the binary form of a REGION.
+     */
+    void resetDeltas(byte[] data, int offset, int length) {
+        view = null;
+        format = ADQLRangeSetCodec.DELTA;
+        if (data != this.data) {
+            this.data = data;
+            buf = ByteBuffer.wrap(data);
+        }
+        buf.limit(length);
+        buf.position(offset);
+        pos = 0;
+        value = 0;
+        delta = 0;
+        shift = 0;
+        sz = ADQLRangeSetCodec.getCount(buf);
+        start = buf.position();
+    }
+
+    /** Point this cursor to the first boundary of an in-memory set. */
+    public void reset(ADQLRangeSetView view) {
+        this.view = view;
+        format = VIEW;
+        sz = view.size();
+        pos = 0;
+        value = 0;
+        delta = 0;
+    }
+
+    /** Go back to the first boundary of the same set, without parsing its header nor decoding it again. */
+    public void rewind() {
+        if (view == null && format != ADQLRangeSetCodec.INTERPOLATIVE) {
+            buf.position(start);
+        }
+        pos = 0;
+        value = 0;
+        delta = 0;
+    }
+
+    /** @return number of boundaries in the set, twice its number of ranges. */
+    public int size() {
+        return sz;
+    }
+
+    /** @return number of boundaries already read. Even positions are the start of a range. */
+    public int position() {
+        return pos;
+    }
+
+    public boolean hasNext() {
+        return pos < sz;
+    }
+
+    /** @return the next boundary of the set. */
+    public long next() {
+        if (pos >= sz) {
+            throw new NoSuchElementException();
+        }
+        switch (format) {
+        case ADQLRangeSetCodec.RAW:
+            value = buf.getLong();
+            break;
+        case ADQLRangeSetCodec.DELTA:
+            delta += VarInt.get(buf);
+            value = delta << shift;
+            break;
+        case VIEW:
+            value = view.get(pos);
+            break;
+        default: // INTERPOLATIVE
+            value = decoded[pos];
+        }
+        pos++;
+        return value;
+    }
+
+    /** @return the number of values in the ranges left in cursor, read up to the end. */
+    public static long nval(ADQLRangeSetCursor cursor) {
+        long nval = 0;
+        while (cursor.hasNext()) {
+            long a = cursor.next();
+            nval += cursor.next() - a;
+        }
+        return nval;
+    }
+
+    /**
+     * @return the number of NESTED pixels at order that overlap the ranges left in cursor, read up to the end. Pixels
+     *         shared by consecutive ranges are only counted once.
+     */
+    public static long ncells(ADQLRangeSetCursor cursor, int order) {
+        int shift = 2 * (HealpixBase.order_max - order);
+        long ncells = 0, last = 0;
+        while (cursor.hasNext()) {
+            long a = cursor.next() >>> shift;
+            long b = ((cursor.next() - 1) >>> shift) + 1;
+            ncells += b - Math.max(a, last);
+            last = b;
+        }
+        return ncells;
+    }
+
+    /** Returns true if the NESTED pixel at order_max a belongs to the set walked by cursor, else false. */
+    public static boolean contains(ADQLRangeSetCursor cursor, long a) {
+        while (cursor.hasNext()) {
+            long begin = cursor.next(), end = cursor.next();
+            if (a < begin) {
+                return false;
+            }
+            if (a < end) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns true if some range walked by a overlaps some range walked by b, else false. */
+    public static boolean overlaps(ADQLRangeSetCursor a, ADQLRangeSetCursor b) {
+        if (!a.hasNext() || !b.hasNext()) {
+            return false;
+        }
+        long abegin = a.next(), aend = a.next();
+        long bbegin = b.next(), bend = b.next();
+        while (true) {
+            if (aend <= bbegin) {
+                if (!a.hasNext()) {
+                    return false;
+                }
+                abegin = a.next();
+                aend = a.next();
+            } else if (bend <= abegin) {
+                if (!b.hasNext()) {
+                    return false;
+                }
+                bbegin = b.next();
+                bend = b.next();
+            } else {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns true if every range walked by b lies within the ranges walked by a, else false. As the ranges of a set
+     * never touch, each range of b has to fit in a single range of a.
+     */
+    public static boolean contains(ADQLRangeSetCursor a, ADQLRangeSetCursor b) {
+        long abegin = 0, aend = 0;
+        while (b.hasNext()) {
+            long bbegin = b.next(), bend = b.next();
+            while (aend <= bbegin) {
+                if (!a.hasNext()) {
+                    return false;
+                }
+                abegin = a.next();
+                aend = a.next();
+            }
+            if (bbegin < abegin || bend > aend) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
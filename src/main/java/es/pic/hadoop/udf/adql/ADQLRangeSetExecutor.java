@@ -0,0 +1,91 @@
+package es.pic.hadoop.udf.adql;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * Where the linear merges of large ADQLRangeSets run. Parallel merges are opt-in: the {@value #PARALLELISM_PROPERTY}
+ * property sets the number of threads, which should not exceed the vcores of the task, and
+ * {@value #THRESHOLD_PROPERTY} the number of boundaries, across both operands, above which a merge is split into
+ * chunks. Chunks run in a pool of their own, never in the common fork-join pool, whose size is that of the host.
+ *
+ * Each caller owns its executor, and should close it once done.
+ */
+public final class ADQLRangeSetExecutor implements AutoCloseable {
+
+    public static final String PARALLELISM_PROPERTY = "adql.rangeset.parallelism";
+    public static final String THRESHOLD_PROPERTY = "adql.rangeset.parallel.threshold";
+    public static final int DEFAULT_PARALLELISM = 1;
+    public static final int DEFAULT_THRESHOLD = 1 << 20;
+
+    /** Runs every merge in the calling thread. */
+    public static final ADQLRangeSetExecutor SEQUENTIAL = new ADQLRangeSetExecutor(1, DEFAULT_THRESHOLD);
+
+    private final int parallelism;
+    private final int threshold;
+    /** Created on the first parallel merge. */
+    private ForkJoinPool pool;
+
+    public ADQLRangeSetExecutor(int parallelism, int threshold) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(PARALLELISM_PROPERTY + " must be positive.");
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException(THRESHOLD_PROPERTY + " cannot be negative.");
+        }
+        this.parallelism = parallelism;
+        this.threshold = threshold;
+    }
+
+    /** @return an executor configured from the job configuration, sequential unless a parallelism is set. */
+    public static ADQLRangeSetExecutor configure(Configuration conf) {
+        int parallelism = conf.getInt(PARALLELISM_PROPERTY, DEFAULT_PARALLELISM);
+        if (parallelism == 1) {
+            return SEQUENTIAL;
+        }
+        return new ADQLRangeSetExecutor(parallelism, conf.getInt(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD));
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /** @return true if a merge of total boundaries should be split into chunks. */
+    boolean splits(long total) {
+        return parallelism > 1 && total >= threshold;
+    }
+
+    /** Run all tasks in the pool, and wait for them to complete. */
+    <T> void invokeAll(List<ForkJoinTask<T>> tasks) {
+        ForkJoinPool pool = pool();
+        for (ForkJoinTask<T> task : tasks) {
+            pool.execute(task);
+        }
+        for (ForkJoinTask<T> task : tasks) {
+            task.join();
+        }
+    }
+
+    private synchronized ForkJoinPool pool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+    /** Stop the threads of the pool, if any. The executor can still be used, and starts a new pool if needed. */
+    @Override
+    public synchronized void close() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+}
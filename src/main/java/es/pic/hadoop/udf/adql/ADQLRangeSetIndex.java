@@ -0,0 +1,87 @@
+package es.pic.hadoop.udf.adql;
+
+import java.util.BitSet;
+
+import healpix.essentials.HealpixBase;
+
+/**
+ * Two-level index over the ranges of a set of NESTED pixels at order_max, for sets that are queried many times, such
+ * as a constant region in a UDF. Every cell of a coarse order is flagged as either fully covered, partially covered or
+ * empty, so most lookups are answered from a bitmap and only those falling in a partially covered cell search the
+ * fine ranges.
+ *
+ * With the default order of {@value #DEFAULT_ORDER} both bitmaps take 96 KiB, whatever the size of the set.
+ */
+public final class ADQLRangeSetIndex {
+
+    public static final byte DEFAULT_ORDER = 8;
+    public static final byte MAX_ORDER = 12;
+
+    private final ADQLRangeSetView view;
+    private final int shift;
+    private final BitSet full;
+    private final BitSet partial;
+
+    public ADQLRangeSetIndex(ADQLRangeSetView view) {
+        this(view, DEFAULT_ORDER);
+    }
+
+    /**
+     * Build the index of the ranges in view, which is kept to answer lookups in partially covered cells.
+     *
+     * @param order order of the coarse cells, up to MAX_ORDER.
+     */
+    public ADQLRangeSetIndex(ADQLRangeSetView view, byte order) {
+        if (order < 0 || order > MAX_ORDER) {
+            throw new IllegalArgumentException(String.format("order must be between 0 and %d", MAX_ORDER));
+        }
+
+        this.view = view;
+        shift = 2 * (HealpixBase.order_max - order);
+
+        int ncells = 12 << (2 * order);
+        full = new BitSet(ncells);
+        partial = new BitSet(ncells);
+
+        long mask = (1L << shift) - 1;
+        for (int iv = 0; iv < view.nranges(); iv++) {
+            long a = view.ivbegin(iv), b = view.ivend(iv);
+            int first = (int) (a >>> shift), last = (int) ((b - 1) >>> shift);
+
+            // Cells at both ends are only full if the range starts or ends on their boundaries
+            if ((a & mask) != 0) {
+                partial.set(first);
+                first++;
+            }
+            if ((b & mask) != 0 && last >= first) {
+                partial.set(last);
+                last--;
+            }
+            if (last >= first) {
+                full.set(first, last + 1);
+            }
+        }
+    }
+
+    /** @return true if the coarse cell is fully covered by the set. */
+    boolean isFull(int cell) {
+        return full.get(cell);
+    }
+
+    /** @return true if the coarse cell is only partly covered by the set. */
+    boolean isPartial(int cell) {
+        return partial.get(cell);
+    }
+
+    /** Returns true if the NESTED pixel at order_max is contained in the set, else false. */
+    public boolean contains(long ipix) {
+        int cell = (int) (ipix >>> shift);
+        if (full.get(cell)) {
+            return true;
+        }
+        if (!partial.get(cell)) {
+            return false;
+        }
+        return view.contains(ipix);
+    }
+}
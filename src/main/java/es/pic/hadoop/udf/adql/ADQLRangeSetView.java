@@ -0,0 +1,291 @@
+package es.pic.hadoop.udf.adql;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.NoSuchElementException;
+
+import org.apache.hadoop.io.BytesWritable;
+
+/**
+ * Read-only view of a set of integer ranges, backed by a LongBuffer. The buffer may wrap the serialized bytes of a
+ * region (as stored in the "rs" field of an ADQLGeometry) or the internal array of an ADQLRangeSet, so no boundary is
+ * ever copied. Ranges are described by the first element and the one-past-last element, exactly as in ADQLRangeSet.
+ */
+public final class ADQLRangeSetView {
+
+    private static final LongBuffer EMPTY = LongBuffer.allocate(0);
+
+    /** Serialized bytes currently wrapped, if any. */
+    private byte[] data;
+    /** Boundaries decoded from a compressed set, if any. */
+    private long[] decoded;
+    /** Sorted list of interval boundaries. */
+    private LongBuffer r;
+    /** Current number of active entries. */
+    private int sz;
+
+    /** Construct an empty view. */
+    public ADQLRangeSetView() {
+        this(EMPTY);
+    }
+
+    /**
+     * Construct a view over the boundaries stored in a buffer, from its position up to its limit.
+     *
+     * @param data buffer holding an even number of sorted boundaries.
+     */
+    public ADQLRangeSetView(LongBuffer data) {
+        wrap(data);
+    }
+
+    /**
+     * Construct a view over a serialized range set.
+     *
+     * @param data serialized boundaries, in any of the formats of ADQLRangeSetCodec.
+     */
+    public ADQLRangeSetView(BytesWritable data) {
+        this(data.getBytes(), data.getLength());
+    }
+
+    /**
+     * Construct a view over the first length bytes of a serialized range set.
+     *
+     * @param data   serialized boundaries, in any of the formats of ADQLRangeSetCodec.
+     * @param length number of valid bytes in data.
+     */
+    public ADQLRangeSetView(byte[] data, int length) {
+        wrap(data, length);
+    }
+
+    /** Point this view to another buffer of boundaries. */
+    public void wrap(LongBuffer data) {
+        if ((data.remaining() & 1) != 0)
+            throw new IllegalArgumentException("invalid number of entries");
+        this.data = null;
+        r = data.slice();
+        sz = r.limit();
+    }
+
+    /**
+     * Point this view to another serialized range set. If the same array is wrapped again, as happens when a
+     * BytesWritable is reused across rows, no new buffer is created. Compressed sets are decoded into an array owned
+     * by this view, which is reused by later calls. A null array, as stored in a REGION with no ranges, is an empty
+     * set.
+     */
+    public void wrap(byte[] data, int length) {
+        if (data == null) {
+            wrap(EMPTY);
+            return;
+        }
+        if (ADQLRangeSetCodec.format(data, length) != ADQLRangeSetCodec.RAW) {
+            LongBuffer ranges = ADQLRangeSetCodec.decode(data, length, decoded);
+            decoded = ranges.array();
+            wrap(ranges);
+            return;
+        }
+        if (data == this.data && length == sz * Long.BYTES) {
+            return;
+        }
+        wrap(ByteBuffer.wrap(data, 0, length).asLongBuffer());
+        this.data = data;
+    }
+
+    /** @return number of ranges in the set. */
+    public int nranges() {
+        return sz >>> 1;
+    }
+
+    /** @return true if no entries are stored, else false. */
+    public boolean isEmpty() {
+        return sz == 0;
+    }
+
+    /** @return first number in range iv. */
+    public long ivbegin(int iv) {
+        return r.get(2 * iv);
+    }
+
+    /** @return one-past-last number in range iv. */
+    public long ivend(int iv) {
+        return r.get(2 * iv + 1);
+    }
+
+    /** @return number of boundaries (twice the number of ranges). */
+    int size() {
+        return sz;
+    }
+
+    /** @return boundary at position i. */
+    long get(int i) {
+        return r.get(i);
+    }
+
+    /**
+     * Returns an internal representation of the interval a number belongs to.
+     *
+     * @see ADQLRangeSet#iiv(long)
+     */
+    int iiv(long val) {
+        int count = sz, first = 0;
+        while (count > 0) {
+            int step = count >>> 1, it = first + step;
+            if (r.get(it) <= val) {
+                first = ++it;
+                count -= step + 1;
+            } else
+                count = step;
+        }
+        return first - 1;
+    }
+
+    /** @return total number of values (not ranges) in the set. */
+    public long nval() {
+        long res = 0;
+        for (int i = 0; i < sz; i += 2)
+            res += r.get(i + 1) - r.get(i);
+        return res;
+    }
+
+    /** Returns true if a is contained in the set, else false. */
+    public boolean contains(long a) {
+        return ((iiv(a) & 1) == 0);
+    }
+
+    /** Returns true if all numbers [a;b[ are contained in the set, else false. */
+    public boolean contains(long a, long b) {
+        int res = iiv(a);
+        if ((res & 1) != 0)
+            return false;
+        return (b <= r.get(res + 1));
+    }
+
+    /** Returns true if any of the numbers [a;b[ are contained in the set, else false. */
+    public boolean overlaps(long a, long b) {
+        int res = iiv(a);
+        if ((res & 1) == 0)
+            return true;
+        if (res == sz - 1)
+            return false; // beyond the end of the set
+        return (r.get(res + 1) < b);
+    }
+
+    /** Returns true if the set completely contains "other", else false. */
+    public boolean contains(ADQLRangeSetView other) {
+        return generalAllOrNothing(this, other, false, true);
+    }
+
+    /** Returns true if there is overlap between the set and "other", else false. */
+    public boolean overlaps(ADQLRangeSetView other) {
+        return !generalAllOrNothing(this, other, true, true);
+    }
+
+    private static boolean generalAllOrNothing1(ADQLRangeSetView a, ADQLRangeSetView b, boolean flip_a,
+            boolean flip_b) {
+        boolean state_a = flip_a, state_b = flip_b, state_res = state_a || state_b;
+        int ia = 0, ea = a.sz, ib = 0, eb = b.sz;
+        boolean runa = ia != ea, runb = ib != eb;
+        while (runa || runb) {
+            long va = runa ? a.r.get(ia) : 0L, vb = runb ? b.r.get(ib) : 0L;
+            boolean adv_a = runa && (!runb || (va <= vb)), adv_b = runb && (!runa || (vb <= va));
+            if (adv_a) {
+                state_a = !state_a;
+                ++ia;
+                runa = ia != ea;
+            }
+            if (adv_b) {
+                state_b = !state_b;
+                ++ib;
+                runb = ib != eb;
+            }
+            if ((state_a || state_b) != state_res)
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean generalAllOrNothing2(ADQLRangeSetView a, ADQLRangeSetView b, boolean flip_a,
+            boolean flip_b) {
+        int iva = flip_a ? 0 : -1;
+        while (iva < a.sz) {
+            if (iva == -1) // implies that flip_a==false
+            {
+                if ((!flip_b) || (b.r.get(0) < a.r.get(0)))
+                    return false;
+            } else if (iva == a.sz - 1) // implies that flip_a==false
+            {
+                if ((!flip_b) || (b.r.get(b.sz - 1) > a.r.get(a.sz - 1)))
+                    return false;
+            } else {
+                int ivb = b.iiv(a.r.get(iva));
+                if ((ivb != b.sz - 1) && (b.r.get(ivb + 1) < a.r.get(iva + 1)))
+                    return false;
+                if (flip_b == ((ivb & 1) == 0))
+                    return false;
+            }
+            iva += 2;
+        }
+        return true;
+    }
+
+    private static boolean generalAllOrNothing(ADQLRangeSetView a, ADQLRangeSetView b, boolean flip_a,
+            boolean flip_b) {
+        if (a.isEmpty())
+            return flip_a ? true : b.isEmpty();
+        if (b.isEmpty())
+            return flip_b ? true : a.isEmpty();
+        int strat = ADQLRangeSet.strategy(a.nranges(), b.nranges());
+        return (strat == 1) ? generalAllOrNothing1(a, b, flip_a, flip_b)
+                : ((strat == 2) ? generalAllOrNothing2(a, b, flip_a, flip_b)
+                        : generalAllOrNothing2(b, a, flip_b, flip_a));
+    }
+
+    /** Returns a ValueIterator, which iterates over all individual numbers in the set. */
+    public ADQLRangeSet.ValueIterator valueIterator() {
+        return new ADQLRangeSet.ValueIterator() {
+            int pos = 0;
+            long value = (sz > 0) ? r.get(0) : 0;
+
+            public boolean hasNext() {
+                return (pos < sz);
+            }
+
+            public long next() {
+                if (pos >= sz)
+                    throw new NoSuchElementException();
+                long ret = value;
+                if (++value == r.get(pos + 1)) {
+                    pos += 2;
+                    if (pos < sz)
+                        value = r.get(pos);
+                }
+                return ret;
+            }
+        };
+    }
+
+    /** @return a new, mutable ADQLRangeSet holding a copy of the ranges in this view. */
+    public ADQLRangeSet toRangeSet() {
+        long[] data = new long[sz];
+        r.duplicate().get(data, 0, sz);
+        return ADQLRangeSet.wrap(data, sz);
+    }
+
+    /** @return the serialized representation of this view, as produced by ADQLRangeSet.getRangesAsBytes(). */
+    public byte[] getRangesAsBytes() {
+        ByteBuffer bb = ByteBuffer.allocate(sz * Long.BYTES);
+        bb.asLongBuffer().put(r.duplicate());
+        return bb.array();
+    }
+
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append("{ ");
+        for (int i = 0; i < sz; i += 2) {
+            s.append("[").append(r.get(i)).append(";").append(r.get(i + 1)).append("[");
+            if (i < sz - 2)
+                s.append(",");
+        }
+        s.append(" }");
+        return s.toString();
+    }
+}
@@ -1,13 +1,115 @@
 package es.pic.hadoop.udf.adql;
 
+import java.nio.ByteBuffer;
+
 import healpix.essentials.HealpixBase;
 
 public class ADQLRegion extends ADQLGeometry {
 
     final static double hpix29_area = 1.1927080055488187e-14;
 
+    private ADQLRangeSet rs;
+    private ADQLRangeSetView view;
+    /** Serialized ranges this region was read from, if they are compressed. */
+    private byte[] data;
+    private int length;
+    private ADQLRangeSetCursor cursor;
+    private ADQLRangeSetIndex index;
+    /** Format of the ranges written by serialize(), one of those in ADQLRangeSetCodec. */
+    private byte format = ADQLRangeSetCodec.RAW;
+
     public ADQLRegion(ADQLRangeSet rs) {
-        super(ADQLGeometry.Kind.REGION, null, rs);
+        super(ADQLGeometry.Kind.REGION, null);
+        this.rs = rs;
+    }
+
+    /**
+     * Construct a region directly on top of a read-only view. The ranges are only copied into an ADQLRangeSet if
+     * getRangeSet() is called.
+     */
+    public ADQLRegion(ADQLRangeSetView view) {
+        super(ADQLGeometry.Kind.REGION, null);
+        this.view = view;
+    }
+
+    /**
+     * Construct a region on top of its serialized ranges, in any of the formats of ADQLRangeSetCodec. Raw ranges are
+     * wrapped by a view, while compressed ones are only decoded when needed, as intersects() and contains() stream
+     * them instead.
+     */
+    public ADQLRegion(byte[] data, int length) {
+        super(ADQLGeometry.Kind.REGION, null);
+        if (ADQLRangeSetCodec.format(data, length) == ADQLRangeSetCodec.RAW) {
+            this.view = new ADQLRangeSetView(data, length);
+        } else {
+            this.data = data;
+            this.length = length;
+        }
+    }
+
+    @Override
+    protected ADQLRangeSet getRangeSet() {
+        if (rs == null) {
+            rs = getRangeSetView().toRangeSet();
+        }
+        return rs;
+    }
+
+    protected ADQLRangeSetView getRangeSetView() {
+        if (view == null) {
+            view = rs == null ? new ADQLRangeSetView(data, length) : rs.asView();
+        }
+        return view;
+    }
+
+    /** @return true if the ranges are still compressed, so they are better streamed than decoded. */
+    private boolean isCompressed() {
+        return data != null && view == null && rs == null;
+    }
+
+    /** @return a cursor over the ranges, at their first boundary. It is reused by later calls. */
+    protected ADQLRangeSetCursor cursor() {
+        if (cursor == null) {
+            cursor = new ADQLRangeSetCursor();
+        }
+        return cursor(cursor);
+    }
+
+    /** @return the given cursor, reset over the ranges at their first boundary. */
+    ADQLRangeSetCursor cursor(ADQLRangeSetCursor cursor) {
+        if (isCompressed()) {
+            cursor.reset(data, length);
+        } else {
+            cursor.reset(getRangeSetView());
+        }
+        return cursor;
+    }
+
+    /** Set the format used to serialize the ranges of this region. RAW by default. */
+    void setFormat(byte format) {
+        this.format = format;
+    }
+
+    @Override
+    protected byte[] getRangesAsBytes() {
+        if (format != ADQLRangeSetCodec.RAW) {
+            return ADQLRangeSetCodec.encode(getRangeSetView(), format);
+        } else if (rs == null) {
+            return getRangeSetView().getRangesAsBytes();
+        } else {
+            return rs.getRangesAsBytes();
+        }
+    }
+
+    @Override
+    public byte[] toBinary() {
+        ADQLRangeSetView rs = getRangeSetView();
+        ByteBuffer buf = ByteBuffer.allocate(1 + ADQLRangeSetCodec.deltaSize(rs));
+
+        buf.put(ADQLGeometry.Kind.REGION.value);
+        ADQLRangeSetCodec.putDeltas(buf, rs);
+
+        return buf.array();
     }
 
     @Override
@@ -25,23 +127,62 @@ public class ADQLRegion extends ADQLGeometry {
 
     @Override
     public double area() {
-        return getRangeSet().nval() * hpix29_area;
+        return getRangeSetView().nval() * hpix29_area;
     }
 
     public ADQLRegion toRegion() {
         return this;
     }
 
+    /** The ranges are degraded straight from their serialized form, if they have not been decoded yet. */
     @Override
     public ADQLRegion toRegion(byte order) {
-        return new ADQLRegion(getRangeSet().degradedToOrder(order));
+        return new ADQLRegion(ADQLRangeSet.degradedToOrder(cursor(), order, true));
+    }
+
+    /**
+     * Build an ADQLRangeSetIndex over the ranges of this region, used by every later call to contains(long). This is
+     * only worth it for regions that are queried many times, such as a constant argument of a UDF.
+     */
+    public ADQLRangeSetIndex index() {
+        if (index == null) {
+            index = new ADQLRangeSetIndex(getRangeSetView());
+        }
+        return index;
+    }
+
+    /**
+     * Returns true if the NESTED pixel at order_max is contained in this region. This is a binary search over the
+     * boundaries, with no intermediate region built for the pixel, unless an index has been built.
+     */
+    public boolean contains(long ipix) {
+        if (index != null) {
+            return index.contains(ipix);
+        } else if (isCompressed()) {
+            return ADQLRangeSetCursor.contains(cursor(), ipix);
+        }
+        return getRangeSetView().contains(ipix);
     }
 
+    /**
+     * Returns true if other is contained in this region. If any of them is still compressed, both are merged range by
+     * range, stopping at the first range of other that is not covered.
+     */
     public boolean contains(ADQLRegion other) {
-        return getRangeSet().contains(other.getRangeSet());
+        if (isCompressed() || other.isCompressed()) {
+            return ADQLRangeSetCursor.contains(cursor(), other.cursor());
+        }
+        return getRangeSetView().contains(other.getRangeSetView());
     }
 
+    /**
+     * Returns true if other intersects this region. If any of them is still compressed, both are merged range by
+     * range, stopping at the first overlap.
+     */
     public boolean intersects(ADQLRegion other) {
-        return getRangeSet().overlaps(other.getRangeSet());
+        if (isCompressed() || other.isCompressed()) {
+            return ADQLRangeSetCursor.overlaps(cursor(), other.cursor());
+        }
+        return getRangeSetView().overlaps(other.getRangeSetView());
     }
 }
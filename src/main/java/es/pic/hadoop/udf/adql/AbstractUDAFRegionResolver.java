@@ -1,5 +1,6 @@
 package es.pic.hadoop.udf.adql;
 
+import org.apache.hadoop.hive.ql.exec.MapredContext;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
@@ -8,9 +9,14 @@ import org.apache.hadoop.hive.ql.udf.generic.AbstractGenericUDAFResolver;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFParameterInfo;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
-import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters.Converter;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector.PrimitiveCategory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.io.BytesWritable;
 
 @SuppressWarnings("deprecation")
 public abstract class AbstractUDAFRegionResolver extends AbstractGenericUDAFResolver {
@@ -46,11 +52,35 @@ public abstract class AbstractUDAFRegionResolver extends AbstractGenericUDAFReso
 
     public abstract static class AbstractUDAFRegionEvaluator extends GenericUDAFEvaluator {
 
+        /**
+         * Partial results are the ranges alone, in the DELTA format of ADQLRangeSetCodec, instead of a whole
+         * ADQLGeometry struct with raw 8-byte boundaries.
+         */
+        public static final ObjectInspector partialOI = PrimitiveObjectInspectorFactory.writableBinaryObjectInspector;
+
+        @AggregationType(estimable = true)
         class RegionAggregationBuffer extends AbstractAggregationBuffer {
-            ADQLRangeSet rs = null;
+            /** Reused across groups, so its arrays are only grown, never reallocated. */
+            ADQLRangeSetAccumulator rs = new ADQLRangeSetAccumulator();
+            /** False until the first batch of regions is merged into rs. */
+            boolean hasInput = false;
+            /** Regions not yet merged into rs. */
+            ADQLRangeSetBatch pending = new ADQLRangeSetBatch();
+            /** Dense form of the result, used instead of rs once it is smaller. */
+            ADQLRangeSetBitmap dense = null;
+            /** True once a region finer than the bitmap has turned the result back into ranges. */
+            boolean sparse = false;
+
+            @Override
+            public int estimate() {
+                return rs.estimate() + pending.estimate() + (dense == null ? 0 : dense.estimate());
+            }
         }
 
-        protected StructObjectInspector inputOI;
+        protected ADQLGeometryReader reader;
+        protected Converter partialConverter;
+        /** View over the last partial result, only used when it is merged into a dense result. */
+        protected ADQLRangeSetView partialView = new ADQLRangeSetView();
 
         protected boolean isAllColumns;
         protected boolean isDistinct;
@@ -76,13 +106,29 @@ public abstract class AbstractUDAFRegionResolver extends AbstractGenericUDAFReso
                 throw new UDFArgumentLengthException("This function takes only one argument: region");
             }
 
-            if (!ObjectInspectorUtils.compareTypes(parameters[0], ADQLGeometry.OI)) {
-                throw new UDFArgumentTypeException(0, "The argument has to be of ADQL geometry type.");
+            if (m == Mode.PARTIAL1 || m == Mode.COMPLETE) {
+                if (!ADQLGeometryReader.accepts(parameters[0])) {
+                    throw new UDFArgumentTypeException(0, "The argument has to be of ADQL geometry type.");
+                }
+                reader = ADQLGeometryReader.create(parameters[0]);
+            } else {
+                if (parameters[0].getCategory() != Category.PRIMITIVE || ((PrimitiveObjectInspector) parameters[0])
+                        .getPrimitiveCategory() != PrimitiveCategory.BINARY) {
+                    throw new UDFArgumentTypeException(0, "The argument has to be a partial region aggregation.");
+                }
+                partialConverter = ObjectInspectorConverters.getConverter(parameters[0], partialOI);
             }
 
-            inputOI = (StructObjectInspector) parameters[0];
+            if (m == Mode.PARTIAL1 || m == Mode.PARTIAL2) {
+                return partialOI;
+            } else {
+                return ADQLGeometry.OI;
+            }
+        }
 
-            return ADQLGeometry.OI;
+        @Override
+        public void configure(MapredContext context) {
+            ADQLRangeSetBatch.configure(context.getJobConf());
         }
 
         @Override
@@ -91,11 +137,88 @@ public abstract class AbstractUDAFRegionResolver extends AbstractGenericUDAFReso
         }
 
         @Override
-        public void reset(AggregationBuffer agg) {
-            ((RegionAggregationBuffer) agg).rs = null;
+        public void reset(AggregationBuffer buff) {
+            RegionAggregationBuffer agg = (RegionAggregationBuffer) buff;
+            agg.rs.clear();
+            agg.hasInput = false;
+            agg.pending.clear();
+            agg.dense = null;
+            agg.sparse = false;
+        }
+
+        /**
+         * @return the number of sets, out of nsets, that must cover a value for it to be in the result: 1 for a
+         *         union, nsets for an intersection.
+         */
+        protected abstract int minCoverage(int nsets);
+
+        /** Merge the ranges in rs into a dense result, as a union or an intersection. */
+        protected abstract void doMerge(ADQLRangeSetBitmap dense, ADQLRangeSetView rs);
+
+        /**
+         * Merge the ranges in rs directly if the result is dense and they fit its order. Otherwise, queue them,
+         * merging the queue if it has reached its budget.
+         */
+        protected void doMerge(RegionAggregationBuffer agg, ADQLRangeSetView rs) {
+            if (agg.dense != null) {
+                if (agg.dense.accepts(rs)) {
+                    doMerge(agg.dense, rs);
+                    return;
+                }
+                toSparse(agg);
+            }
+
+            agg.pending.add(rs);
+            if (agg.pending.isFull()) {
+                flush(agg);
+            }
+        }
+
+        /** Merge all the queued regions, and the result so far, in a single pass. */
+        protected void flush(RegionAggregationBuffer agg) {
+            if (agg.pending.isEmpty()) {
+                return;
+            }
+            int nsets = agg.pending.count() + (agg.hasInput ? 1 : 0);
+            agg.rs.merge(agg.pending, agg.hasInput, minCoverage(nsets));
+            agg.pending.clear();
+            agg.hasInput = true;
+
+            toDense(agg);
         }
 
-        protected abstract void doMerge(RegionAggregationBuffer buff, ADQLRegion region);
+        /**
+         * Switch to a dense result if all its ranges fall on pixels of order ADQLRangeSetBitmap.MAX_ORDER or coarser,
+         * and a bitmap at that order takes less memory than both arrays of the accumulator. A result that has already
+         * been turned back into ranges stays that way until the next group, so mixed-order regions do not keep
+         * switching between both forms and allocating a new bitmap on every flush.
+         */
+        protected void toDense(RegionAggregationBuffer agg) {
+            if (agg.sparse || agg.rs.isEmpty()) {
+                return;
+            }
+            ADQLRangeSetView rs = agg.rs.asView();
+            byte order = ADQLRangeSetBitmap.orderOf(rs);
+            if (order > ADQLRangeSetBitmap.MAX_ORDER
+                    || 2L * agg.rs.size() * Long.BYTES < ADQLRangeSetBitmap.sizeOf(order)) {
+                return;
+            }
+
+            agg.dense = new ADQLRangeSetBitmap(order);
+            agg.dense.or(rs);
+            agg.rs.clear();
+        }
+
+        /** Convert a dense result back into ranges. */
+        protected void toSparse(RegionAggregationBuffer agg) {
+            if (agg.dense == null) {
+                return;
+            }
+            agg.rs.clear();
+            agg.dense.appendTo(agg.rs);
+            agg.dense = null;
+            agg.sparse = true;
+        }
 
         @Override
         public void iterate(AggregationBuffer buff, Object[] parameters) throws HiveException {
@@ -109,9 +232,9 @@ public abstract class AbstractUDAFRegionResolver extends AbstractGenericUDAFReso
             }
 
             RegionAggregationBuffer agg = (RegionAggregationBuffer) buff;
-            ADQLRegion region = (ADQLRegion) ADQLGeometry.fromBlob(parameters[0], inputOI);
+            ADQLRegion region = (ADQLRegion) reader.read(parameters[0]);
 
-            doMerge(agg, region);
+            doMerge(agg, region.getRangeSetView());
         }
 
         @Override
@@ -121,30 +244,44 @@ public abstract class AbstractUDAFRegionResolver extends AbstractGenericUDAFReso
             }
 
             RegionAggregationBuffer agg = (RegionAggregationBuffer) buff;
-            ADQLRegion region = (ADQLRegion) ADQLGeometry.fromBlob(partial, inputOI);
+            BytesWritable bytes = (BytesWritable) partialConverter.convert(partial);
+
+            // Unless the result is dense, the ranges are decoded straight into the queue
+            if (agg.dense != null) {
+                partialView.wrap(bytes.getBytes(), bytes.getLength());
+                doMerge(agg, partialView);
+                return;
+            }
 
-            doMerge(agg, region);
+            agg.pending.addDelta(bytes.getBytes(), bytes.getLength());
+            if (agg.pending.isFull()) {
+                flush(agg);
+            }
         }
 
         @Override
         public Object terminatePartial(AggregationBuffer buff) throws HiveException {
             RegionAggregationBuffer agg = (RegionAggregationBuffer) buff;
+            flush(agg);
 
-            if (agg.rs == null) {
+            if (!agg.hasInput) {
                 return null;
-            } else {
-                return terminate(buff);
             }
+
+            toSparse(agg);
+            return new BytesWritable(ADQLRangeSetCodec.encode(agg.rs.asView(), ADQLRangeSetCodec.DELTA));
         }
 
         @Override
         public Object terminate(AggregationBuffer buff) throws HiveException {
             RegionAggregationBuffer agg = (RegionAggregationBuffer) buff;
+            flush(agg);
+            toSparse(agg);
 
-            if (agg.rs == null) {
+            if (!agg.hasInput) {
                 return new ADQLRegion(new ADQLRangeSet()).serialize();
             } else {
-                return new ADQLRegion(agg.rs).serialize();
+                return new ADQLRegion(agg.rs.asView()).serialize();
             }
         }
     }
@@ -0,0 +1,117 @@
+package es.pic.hadoop.udf.adql;
+
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.io.ByteWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.io.BytesWritable;
+
+/**
+ * Base of the scalar set operations between the REGIONs of two geometries. Both operands are walked with an
+ * ADQLRangeSetCursor, straight from their serialized ranges in any format, and the boundaries of the result are
+ * written as raw 8-byte integers into a buffer reused across rows, so no ADQLRangeSet is built for the operands nor
+ * for the result. Only CIRCLEs and POLYGONs, which have no ranges of their own, are converted to a REGION first.
+ */
+public abstract class AbstractUDFRegionOperation extends GenericUDF {
+
+    ADQLGeometryReader reader1;
+    ADQLGeometryReader reader2;
+
+    Object blob1;
+    Object blob2;
+
+    ADQLRangeSetCursor cursor1 = new ADQLRangeSetCursor();
+    ADQLRangeSetCursor cursor2 = new ADQLRangeSetCursor();
+
+    byte[] bytes = new byte[0];
+    BytesWritable rs = new BytesWritable();
+    Object result;
+
+    /** @return true if a value that is in the first set if in1, and in the second if in2, is in the result. */
+    protected abstract boolean combine(boolean in1, boolean in2);
+
+    @Override
+    public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+        if (arguments.length == 2) {
+            if (!ADQLGeometryReader.accepts(arguments[0])) {
+                throw new UDFArgumentTypeException(0, "First argument has to be of ADQL geometry type.");
+            }
+            reader1 = ADQLGeometryReader.create(arguments[0]);
+            if (!ADQLGeometryReader.accepts(arguments[1])) {
+                throw new UDFArgumentTypeException(1, "Second argument has to be of ADQL geometry type.");
+            }
+            reader2 = ADQLGeometryReader.create(arguments[1]);
+        } else {
+            throw new UDFArgumentLengthException("This function takes 2 arguments: geom1, geom2");
+        }
+
+        result = ADQLGeometry.OI.create();
+        ADQLGeometry.OI.setStructFieldData(result, ADQLGeometry.OI.getStructFieldRef("tag"),
+                new ByteWritable(ADQLGeometry.Kind.REGION.value));
+        ADQLGeometry.OI.setStructFieldData(result, ADQLGeometry.OI.getStructFieldRef("rs"), rs);
+
+        return ADQLGeometry.OI;
+    }
+
+    @Override
+    public Object evaluate(DeferredObject[] arguments) throws HiveException {
+        blob1 = arguments[0].get();
+        blob2 = arguments[1].get();
+
+        if (blob1 == null || blob2 == null) {
+            return null;
+        }
+
+        try {
+            readRanges(reader1, blob1, cursor1);
+            readRanges(reader2, blob2, cursor2);
+        } catch (IllegalArgumentException e) {
+            throw new HiveException(e);
+        }
+
+        // The result has at most as many boundaries as both operands together
+        int size = (cursor1.size() + cursor2.size()) * Long.BYTES;
+        if (bytes.length < size) {
+            bytes = new byte[Math.max(size, 2 * bytes.length)];
+        }
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+
+        long v1 = cursor1.hasNext() ? cursor1.next() : Long.MAX_VALUE;
+        long v2 = cursor2.hasNext() ? cursor2.next() : Long.MAX_VALUE;
+        boolean in1 = false, in2 = false, in = false;
+
+        while (v1 != Long.MAX_VALUE || v2 != Long.MAX_VALUE) {
+            long value = Math.min(v1, v2);
+            if (v1 == value) {
+                in1 = !in1;
+                v1 = cursor1.hasNext() ? cursor1.next() : Long.MAX_VALUE;
+            }
+            if (v2 == value) {
+                in2 = !in2;
+                v2 = cursor2.hasNext() ? cursor2.next() : Long.MAX_VALUE;
+            }
+            if (combine(in1, in2) != in) {
+                in = !in;
+                buf.putLong(value);
+            }
+        }
+
+        rs.set(bytes, 0, buf.position());
+
+        return result;
+    }
+
+    /** Point cursor to the ranges of the geometry in blob, converting it to a REGION if it is not one. */
+    void readRanges(ADQLGeometryReader reader, Object blob, ADQLRangeSetCursor cursor) throws HiveException {
+        if (reader.readKind(blob) == ADQLGeometry.Kind.REGION) {
+            reader.readRanges(blob, cursor);
+        } else {
+            reader.read(blob).toRegion().cursor(cursor);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package es.pic.hadoop.udf.adql;
+
+import org.apache.hadoop.hive.ql.exec.vector.VectorExpressionDescriptor;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+
+/**
+ * Base of the vectorized contains_point(ra, dec, geom), for two columns of coordinates in degrees and a constant
+ * geometry. Hive cannot hand struct constants to vectorized expressions, so the geometry has to be given in its binary
+ * form, as in contains_point(ra, dec, geom2binary(circle(...))), which Hive folds into a single constant.
+ */
+public abstract class AbstractVectorContainsPoint extends VectorExpression {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final int raColumn;
+    protected final int decColumn;
+    protected final byte[] geometry;
+
+    /** Built from geometry by transientInit(), null if the geometry is NULL. */
+    protected transient ADQLPointPredicate predicate;
+
+    protected AbstractVectorContainsPoint(int raColumn, int decColumn, byte[] geometry, int outputColumnNum) {
+        super(outputColumnNum);
+        this.raColumn = raColumn;
+        this.decColumn = decColumn;
+        this.geometry = geometry;
+    }
+
+    protected AbstractVectorContainsPoint() {
+        super();
+        this.raColumn = -1;
+        this.decColumn = -1;
+        this.geometry = null;
+    }
+
+    @Override
+    public void transientInit() throws HiveException {
+        super.transientInit();
+
+        try {
+            predicate = ADQLPointPredicate.fromBinary(geometry);
+        } catch (IllegalArgumentException e) {
+            throw new HiveException(e);
+        }
+    }
+
+    @Override
+    public String vectorExpressionParameters() {
+        String kind = geometry == null || geometry.length == 0 ? "NULL"
+                : String.valueOf(ADQLGeometry.Kind.valueOfTag(geometry[0]));
+        return getColumnParamString(0, raColumn) + ", " + getColumnParamString(1, decColumn) + ", geom " + kind;
+    }
+
+    protected VectorExpressionDescriptor.Descriptor getDescriptor(VectorExpressionDescriptor.Mode mode) {
+        // @formatter:off
+        return new VectorExpressionDescriptor.Builder()
+                .setMode(mode)
+                .setNumArguments(3)
+                .setArgumentTypes(
+                        VectorExpressionDescriptor.ArgumentType.FLOAT_FAMILY,
+                        VectorExpressionDescriptor.ArgumentType.FLOAT_FAMILY,
+                        VectorExpressionDescriptor.ArgumentType.BINARY)
+                .setInputExpressionTypes(
+                        VectorExpressionDescriptor.InputExpressionType.COLUMN,
+                        VectorExpressionDescriptor.InputExpressionType.COLUMN,
+                        VectorExpressionDescriptor.InputExpressionType.SCALAR)
+                .build();
+        // @formatter:on
+    }
+}
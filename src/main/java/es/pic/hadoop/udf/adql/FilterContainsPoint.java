@@ -0,0 +1,85 @@
+package es.pic.hadoop.udf.adql;
+
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorExpressionDescriptor;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+
+/**
+ * Vectorized contains_point(ra, dec, geom) in a filter, keeping only the rows inside the geometry in the selection
+ * vector of the batch. Rows with a NULL coordinate are dropped.
+ */
+public class FilterContainsPoint extends AbstractVectorContainsPoint {
+
+    private static final long serialVersionUID = 1L;
+
+    public FilterContainsPoint(int raColumn, int decColumn, byte[] geometry) {
+        super(raColumn, decColumn, geometry, -1);
+    }
+
+    public FilterContainsPoint() {
+        super();
+    }
+
+    @Override
+    public void evaluate(VectorizedRowBatch batch) throws HiveException {
+        if (childExpressions != null) {
+            super.evaluateChildren(batch);
+        }
+
+        int n = batch.size;
+        if (n == 0) {
+            return;
+        }
+
+        if (predicate == null) {
+            batch.size = 0;
+            return;
+        }
+
+        DoubleColumnVector raVector = (DoubleColumnVector) batch.cols[raColumn];
+        DoubleColumnVector decVector = (DoubleColumnVector) batch.cols[decColumn];
+
+        double[] ra = raVector.vector;
+        double[] dec = decVector.vector;
+
+        // A repeating input is read at index 0 for every row
+        int raMask = raVector.isRepeating ? 0 : -1;
+        int decMask = decVector.isRepeating ? 0 : -1;
+
+        int[] sel = batch.selected;
+        int newSize = 0;
+
+        try {
+            if (raVector.isRepeating && decVector.isRepeating) {
+                // Every row is either kept or dropped
+                if ((!raVector.noNulls && raVector.isNull[0]) || (!decVector.noNulls && decVector.isNull[0])
+                        || !predicate.contains(ra[0], dec[0])) {
+                    batch.size = 0;
+                }
+                return;
+            }
+
+            for (int j = 0; j < n; j++) {
+                int i = batch.selectedInUse ? sel[j] : j;
+                if ((raVector.noNulls || !raVector.isNull[i & raMask])
+                        && (decVector.noNulls || !decVector.isNull[i & decMask])
+                        && predicate.contains(ra[i & raMask], dec[i & decMask])) {
+                    sel[newSize++] = i;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new HiveException(e);
+        }
+
+        if (newSize < n) {
+            batch.size = newSize;
+            batch.selectedInUse = true;
+        }
+    }
+
+    @Override
+    public VectorExpressionDescriptor.Descriptor getDescriptor() {
+        return getDescriptor(VectorExpressionDescriptor.Mode.FILTER);
+    }
+}
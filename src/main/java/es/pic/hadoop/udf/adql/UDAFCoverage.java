@@ -0,0 +1,240 @@
+package es.pic.hadoop.udf.adql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.MapredContext;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.parse.SemanticException;
+import org.apache.hadoop.hive.ql.udf.generic.AbstractGenericUDAFResolver;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFParameterInfo;
+import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters.Converter;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.StandardListObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.LongWritable;
+
+import es.pic.hadoop.udf.map.UDFMap2Footprint;
+
+// @formatter:off
+@Description(
+    name = "coverage",
+    value = "_FUNC_(region:ADQLGeometry) -> map:array<struct<lo:bigint, hi:bigint, value:float>>",
+    extended = "Return the number of regions covering each pixel, as a list of (lo, hi, count) intervals of NESTED "
+             + "pixels at order 29.\nThe result can be given to map_tofootprint."
+)
+// @formatter:on
+@SuppressWarnings("deprecation")
+public class UDAFCoverage extends AbstractGenericUDAFResolver {
+
+    @Override
+    public GenericUDAFEvaluator getEvaluator(TypeInfo[] parameters) throws SemanticException {
+        if (parameters.length != 1) {
+            throw new UDFArgumentLengthException(
+                    String.format("A single parameter was expected, got %d instead.", parameters.length));
+        }
+
+        return new UDAFCoverageEvaluator();
+    }
+
+    @Override
+    public GenericUDAFEvaluator getEvaluator(GenericUDAFParameterInfo info) throws SemanticException {
+        if (info.isAllColumns() || info.isDistinct()) {
+            throw new SemanticException("The specified syntax for UDAF invocation is invalid.");
+        }
+
+        return getEvaluator(info.getParameters());
+    }
+
+    public static class UDAFCoverageEvaluator extends GenericUDAFEvaluator {
+
+        /** Partial maps keep exact counts, which are only converted to float in the final map. */
+        public static final StandardListObjectInspector partialOI = ObjectInspectorFactory
+                .getStandardListObjectInspector(ObjectInspectorFactory.getStandardStructObjectInspector(
+                        Arrays.asList("lo", "hi", "count"),
+                        Arrays.asList(PrimitiveObjectInspectorFactory.writableLongObjectInspector,
+                                PrimitiveObjectInspectorFactory.writableLongObjectInspector,
+                                PrimitiveObjectInspectorFactory.writableLongObjectInspector)));
+
+        @AggregationType(estimable = true)
+        class CoverageAggregationBuffer extends AbstractAggregationBuffer {
+            ADQLCoverageMap map = new ADQLCoverageMap();
+            /** Regions not yet merged into map. */
+            ADQLRangeSetBatch pending = new ADQLRangeSetBatch();
+            /** Set once a non-null region or partial is seen. */
+            boolean hasInput = false;
+
+            @Override
+            public int estimate() {
+                return map.estimate() + pending.estimate();
+            }
+        }
+
+        protected ADQLGeometryReader reader;
+
+        protected ListObjectInspector mapOI;
+        protected StructObjectInspector segmentOI;
+        protected StructField loField;
+        protected StructField hiField;
+        protected StructField countField;
+        protected Converter loConverter;
+        protected Converter hiConverter;
+        protected Converter countConverter;
+
+        /** Partial map being merged, reused across calls. */
+        protected ADQLCoverageMap partial = new ADQLCoverageMap();
+
+        @Override
+        public ObjectInspector init(Mode m, ObjectInspector[] parameters) throws HiveException {
+            super.init(m, parameters);
+
+            if (parameters.length != 1) {
+                throw new UDFArgumentLengthException("This function takes only one argument: region");
+            }
+
+            if (m == Mode.PARTIAL1 || m == Mode.COMPLETE) {
+                if (!ADQLGeometryReader.accepts(parameters[0])) {
+                    throw new UDFArgumentTypeException(0, "The argument has to be of ADQL geometry type.");
+                }
+                reader = ADQLGeometryReader.create(parameters[0]);
+            } else {
+                mapOI = (ListObjectInspector) parameters[0];
+                segmentOI = (StructObjectInspector) mapOI.getListElementObjectInspector();
+                loField = segmentOI.getStructFieldRef("lo");
+                hiField = segmentOI.getStructFieldRef("hi");
+                countField = segmentOI.getStructFieldRef("count");
+                loConverter = ObjectInspectorConverters.getConverter(loField.getFieldObjectInspector(),
+                        PrimitiveObjectInspectorFactory.writableLongObjectInspector);
+                hiConverter = ObjectInspectorConverters.getConverter(hiField.getFieldObjectInspector(),
+                        PrimitiveObjectInspectorFactory.writableLongObjectInspector);
+                countConverter = ObjectInspectorConverters.getConverter(countField.getFieldObjectInspector(),
+                        PrimitiveObjectInspectorFactory.writableLongObjectInspector);
+            }
+
+            if (m == Mode.PARTIAL1 || m == Mode.PARTIAL2) {
+                return partialOI;
+            } else {
+                return UDFMap2Footprint.mapOI;
+            }
+        }
+
+        @Override
+        public void configure(MapredContext context) {
+            ADQLRangeSetBatch.configure(context.getJobConf());
+        }
+
+        @Override
+        public AbstractAggregationBuffer getNewAggregationBuffer() {
+            return new CoverageAggregationBuffer();
+        }
+
+        @Override
+        public void reset(AggregationBuffer buff) {
+            CoverageAggregationBuffer agg = (CoverageAggregationBuffer) buff;
+            agg.map.clear();
+            agg.pending.clear();
+            agg.hasInput = false;
+        }
+
+        @Override
+        public void iterate(AggregationBuffer buff, Object[] parameters) throws HiveException {
+            if (parameters.length != 1) {
+                throw new UDFArgumentLengthException(
+                        String.format("A single parameter was expected, got %d instead.", parameters.length));
+            }
+
+            if (parameters[0] == null) {
+                return;
+            }
+
+            CoverageAggregationBuffer agg = (CoverageAggregationBuffer) buff;
+            ADQLRegion region = (ADQLRegion) reader.read(parameters[0]);
+
+            agg.pending.add(region.getRangeSetView());
+            agg.hasInput = true;
+            if (agg.pending.isFull()) {
+                flush(agg);
+            }
+        }
+
+        @Override
+        public void merge(AggregationBuffer buff, Object partial) {
+            if (partial == null) {
+                return;
+            }
+
+            CoverageAggregationBuffer agg = (CoverageAggregationBuffer) buff;
+
+            this.partial.clear();
+            int n = mapOI.getListLength(partial);
+            for (int i = 0; i < n; i++) {
+                Object segment = mapOI.getListElement(partial, i);
+                this.partial.append(
+                        ((LongWritable) loConverter.convert(segmentOI.getStructFieldData(segment, loField))).get(),
+                        ((LongWritable) hiConverter.convert(segmentOI.getStructFieldData(segment, hiField))).get(),
+                        ((LongWritable) countConverter.convert(segmentOI.getStructFieldData(segment, countField)))
+                                .get());
+            }
+
+            // Pending regions are swept together with the partial map
+            agg.map.merge(agg.pending, this.partial);
+            agg.pending.clear();
+            agg.hasInput = true;
+        }
+
+        /** Merge all the queued regions into the map in a single pass. */
+        protected void flush(CoverageAggregationBuffer agg) {
+            if (agg.pending.isEmpty()) {
+                return;
+            }
+            agg.map.merge(agg.pending, null);
+            agg.pending.clear();
+        }
+
+        @Override
+        public Object terminatePartial(AggregationBuffer buff) throws HiveException {
+            CoverageAggregationBuffer agg = (CoverageAggregationBuffer) buff;
+            flush(agg);
+
+            if (!agg.hasInput) {
+                return null;
+            }
+
+            List<Object[]> segments = new ArrayList<Object[]>(agg.map.size());
+            for (int i = 0; i < agg.map.size(); i++) {
+                segments.add(new Object[] {
+                        new LongWritable(agg.map.lo(i)), new LongWritable(agg.map.hi(i)),
+                        new LongWritable(agg.map.count(i))
+                });
+            }
+            return segments;
+        }
+
+        @Override
+        public Object terminate(AggregationBuffer buff) throws HiveException {
+            CoverageAggregationBuffer agg = (CoverageAggregationBuffer) buff;
+            flush(agg);
+
+            List<Object[]> segments = new ArrayList<Object[]>(agg.map.size());
+            for (int i = 0; i < agg.map.size(); i++) {
+                segments.add(new Object[] {
+                        new LongWritable(agg.map.lo(i)), new LongWritable(agg.map.hi(i)),
+                        new FloatWritable(agg.map.count(i))
+                });
+            }
+            return segments;
+        }
+    }
+}
@@ -11,12 +11,13 @@ public class UDAFIntersection extends AbstractUDAFRegionResolver {
     public static class UDAFRegionIntersectionEvaluator extends AbstractUDAFRegionEvaluator {
 
         @Override
-        public void doMerge(RegionAggregationBuffer agg, ADQLRegion region) {
-            if (agg.rs == null) {
-                agg.rs = new ADQLRangeSet(region.getRangeSet());
-            } else {
-                agg.rs = agg.rs.intersection(region.getRangeSet());
-            }
+        protected int minCoverage(int nsets) {
+            return nsets;
+        }
+
+        @Override
+        protected void doMerge(ADQLRangeSetBitmap dense, ADQLRangeSetView rs) {
+            dense.and(rs);
         }
     }
-}
\ No newline at end of file
+}
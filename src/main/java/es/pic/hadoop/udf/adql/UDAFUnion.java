@@ -11,12 +11,13 @@ public class UDAFUnion extends AbstractUDAFRegionResolver {
     public static class UDAFRegionUnionEvaluator extends AbstractUDAFRegionEvaluator {
 
         @Override
-        public void doMerge(RegionAggregationBuffer agg, ADQLRegion region) {
-            if (agg.rs == null) {
-                agg.rs = new ADQLRangeSet(region.getRangeSet());
-            } else {
-                agg.rs = agg.rs.union(region.getRangeSet());
-            }            
+        protected int minCoverage(int nsets) {
+            return 1;
+        }
+
+        @Override
+        protected void doMerge(ADQLRangeSetBitmap dense, ADQLRangeSetView rs) {
+            dense.or(rs);
         }
     }
-}
\ No newline at end of file
+}
@@ -9,8 +9,6 @@ import org.apache.hadoop.hive.ql.udf.UDFType;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
 import org.apache.hadoop.hive.serde2.io.DoubleWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
-import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 
 // @formatter:off
@@ -27,18 +25,21 @@ import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectIn
 public class UDFArea extends GenericUDF {
     final static ObjectInspector doubleOI = PrimitiveObjectInspectorFactory.writableDoubleObjectInspector;
 
-    StructObjectInspector inputOI;
+    ADQLGeometryReader reader;
 
     Object blob;
     ADQLGeometry geom;
 
+    ADQLRangeSetCursor cursor = new ADQLRangeSetCursor();
+    DoubleWritable result = new DoubleWritable();
+
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
         if (arguments.length == 1) {
-            if (!ObjectInspectorUtils.compareTypes(arguments[0], ADQLGeometry.OI)) {
+            if (!ADQLGeometryReader.accepts(arguments[0])) {
                 throw new UDFArgumentTypeException(0, "Argument has to be of ADQL geometry type.");
             }
-            inputOI = (StructObjectInspector) arguments[0];
+            reader = ADQLGeometryReader.create(arguments[0]);
         } else {
             throw new UDFArgumentLengthException("This function takes a single argument: geometry");
         }
@@ -54,9 +55,16 @@ public class UDFArea extends GenericUDF {
             return null;
         }
 
-        geom = ADQLGeometry.fromBlob(blob, inputOI);
+        // REGIONs are measured in a single pass over their serialized ranges
+        if (reader.readKind(blob) == ADQLGeometry.Kind.REGION) {
+            reader.readRanges(blob, cursor);
+            result.set(ADQLRangeSetCursor.nval(cursor) * ADQLRegion.hpix29_area);
+        } else {
+            geom = reader.read(blob);
+            result.set(geom.area());
+        }
 
-        return new DoubleWritable(geom.area());
+        return result;
     }
 
     @Override
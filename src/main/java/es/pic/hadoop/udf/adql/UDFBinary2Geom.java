@@ -0,0 +1,67 @@
+package es.pic.hadoop.udf.adql;
+
+import java.nio.BufferUnderflowException;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.UDFType;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+
+// @formatter:off
+@Description(
+    name = "binary2geom",
+    value = "_FUNC_(geom:binary) -> geom:ADQLGeometry",
+    extended = "Convert an ADQL geometry in its compact binary form back to the ADQLGeometry struct."
+)
+@UDFType(
+    deterministic = true,
+    stateful = false
+)
+// @formatter:on
+public class UDFBinary2Geom extends GenericUDF {
+
+    ADQLGeometryReader reader;
+
+    Object blob;
+    ADQLGeometry geom;
+
+    @Override
+    public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+        if (arguments.length == 1) {
+            if (!ADQLGeometryReader.accepts(arguments[0])) {
+                throw new UDFArgumentTypeException(0, "The argument has to be of ADQL geometry type.");
+            }
+            reader = ADQLGeometryReader.create(arguments[0]);
+        } else {
+            throw new UDFArgumentLengthException("This function takes 1 argument: geometry");
+        }
+
+        return ADQLGeometry.OI;
+    }
+
+    @Override
+    public Object evaluate(DeferredObject[] arguments) throws HiveException {
+        blob = arguments[0].get();
+
+        if (blob == null) {
+            return null;
+        }
+
+        try {
+            geom = reader.read(blob);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new HiveException("Invalid binary ADQL geometry.", e);
+        }
+
+        return geom.serialize();
+    }
+
+    @Override
+    public String getDisplayString(String[] children) {
+        return getStandardDisplayString("binary2geom", children);
+    }
+}
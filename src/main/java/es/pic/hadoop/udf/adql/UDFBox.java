@@ -1,8 +1,5 @@
 package es.pic.hadoop.udf.adql;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.apache.hadoop.hive.ql.exec.Description;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
@@ -14,8 +11,6 @@ import org.apache.hadoop.hive.serde2.io.DoubleWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters.Converter;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
-import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 
 import com.google.common.geometry.S2LatLng;
@@ -35,7 +30,7 @@ import com.google.common.geometry.S2LatLngRect;
 public class UDFBox extends GenericUDF {
     final static ObjectInspector doubleOI = PrimitiveObjectInspectorFactory.writableDoubleObjectInspector;
 
-    StructObjectInspector inputOI;
+    ADQLGeometryReader reader;
 
     Converter raConverter;
     Converter decConverter;
@@ -53,15 +48,15 @@ public class UDFBox extends GenericUDF {
     S2LatLng size;
     S2LatLngRect box;
 
-    List<DoubleWritable> coords;
+    double[] coords;
 
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
         if (arguments.length == 3) {
-            if (!ObjectInspectorUtils.compareTypes(arguments[0], ADQLGeometry.OI)) {
+            if (!ADQLGeometryReader.accepts(arguments[0])) {
                 throw new UDFArgumentTypeException(0, "First argument has to be of ADQL geometry type.");
             }
-            inputOI = (StructObjectInspector) arguments[0];
+            reader = ADQLGeometryReader.create(arguments[0]);
 
             widthConverter = ObjectInspectorConverters.getConverter(arguments[1], doubleOI);
             heightConverter = ObjectInspectorConverters.getConverter(arguments[2], doubleOI);
@@ -89,7 +84,7 @@ public class UDFBox extends GenericUDF {
                 return null;
             }
 
-            geom = ADQLGeometry.fromBlob(blob, inputOI);
+            geom = reader.read(blob);
 
             if (!(geom instanceof ADQLPoint)) {
                 throw new UDFArgumentTypeException(0,
@@ -98,12 +93,15 @@ public class UDFBox extends GenericUDF {
 
             ADQLPoint point = (ADQLPoint) geom;
 
-            raArg = point.getRa();
-            decArg = point.getDec();
-
             widthArg = (DoubleWritable) widthConverter.convert(arguments[1].get());
             heightArg = (DoubleWritable) heightConverter.convert(arguments[2].get());
 
+            if (widthArg == null || heightArg == null) {
+                return null;
+            }
+
+            return box(point.getRa(), point.getDec(), widthArg.get(), heightArg.get());
+
         } else {
             raArg = (DoubleWritable) raConverter.convert(arguments[0].get());
             decArg = (DoubleWritable) decConverter.convert(arguments[1].get());
@@ -115,16 +113,20 @@ public class UDFBox extends GenericUDF {
             return null;
         }
 
-        center = S2LatLng.fromDegrees(decArg.get(), raArg.get());
-        size = S2LatLng.fromDegrees(heightArg.get(), widthArg.get());
+        return box(raArg.get(), decArg.get(), widthArg.get(), heightArg.get());
+    }
+
+    private Object box(double ra, double dec, double width, double height) {
+        center = S2LatLng.fromDegrees(dec, ra);
+        size = S2LatLng.fromDegrees(height, width);
         box = S2LatLngRect.fromCenterSize(center, size);
 
-        coords = new ArrayList<DoubleWritable>();
+        coords = new double[8];
         for (int i = 0; i < 4; i++) {
             center = box.getVertex(i);
 
-            coords.add(new DoubleWritable(center.lngDegrees()));
-            coords.add(new DoubleWritable(center.latDegrees()));
+            coords[2 * i] = center.lngDegrees();
+            coords[2 * i + 1] = center.latDegrees();
         }
 
         return new ADQLPolygon(coords).serialize();
@@ -8,8 +8,6 @@ import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.udf.UDFType;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
-import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 
 // @formatter:off
 @Description(
@@ -24,7 +22,7 @@ import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 // @formatter:on
 public class UDFCentroid extends GenericUDF {
 
-    StructObjectInspector inputOI;
+    ADQLGeometryReader reader;
 
     Object blob;
     ADQLGeometry geom;
@@ -32,10 +30,10 @@ public class UDFCentroid extends GenericUDF {
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
         if (arguments.length == 1) {
-            if (!ObjectInspectorUtils.compareTypes(arguments[0], ADQLGeometry.OI)) {
+            if (!ADQLGeometryReader.accepts(arguments[0])) {
                 throw new UDFArgumentTypeException(0, "Argument has to be of ADQL geometry type.");
             }
-            inputOI = (StructObjectInspector) arguments[0];
+            reader = ADQLGeometryReader.create(arguments[0]);
         } else {
             throw new UDFArgumentLengthException("This function takes a single argument: geometry");
         }
@@ -51,7 +49,7 @@ public class UDFCentroid extends GenericUDF {
             return null;
         }
 
-        geom = ADQLGeometry.fromBlob(blob, inputOI);
+        geom = reader.read(blob);
 
         return geom.centroid().serialize();
     }
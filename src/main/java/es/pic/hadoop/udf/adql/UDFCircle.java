@@ -11,8 +11,6 @@ import org.apache.hadoop.hive.serde2.io.DoubleWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters.Converter;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
-import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 
 // @formatter:off
@@ -29,7 +27,7 @@ import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectIn
 public class UDFCircle extends GenericUDF {
     final static ObjectInspector doubleOI = PrimitiveObjectInspectorFactory.writableDoubleObjectInspector;
 
-    StructObjectInspector inputOI;
+    ADQLGeometryReader reader;
 
     Converter raConverter;
     Converter decConverter;
@@ -46,10 +44,10 @@ public class UDFCircle extends GenericUDF {
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
         if (arguments.length == 2) {
 
-            if (!ObjectInspectorUtils.compareTypes(arguments[0], ADQLGeometry.OI)) {
+            if (!ADQLGeometryReader.accepts(arguments[0])) {
                 throw new UDFArgumentTypeException(0, "First argument has to be of ADQL geometry type.");
             }
-            inputOI = (StructObjectInspector) arguments[0];
+            reader = ADQLGeometryReader.create(arguments[0]);
 
             radiusConverter = ObjectInspectorConverters.getConverter(arguments[1], doubleOI);
 
@@ -75,7 +73,7 @@ public class UDFCircle extends GenericUDF {
                 return null;
             }
 
-            geom = ADQLGeometry.fromBlob(blob, inputOI);
+            geom = reader.read(blob);
 
             if (!(geom instanceof ADQLPoint)) {
                 throw new UDFArgumentTypeException(0,
@@ -84,9 +82,13 @@ public class UDFCircle extends GenericUDF {
 
             ADQLPoint point = (ADQLPoint) geom;
 
-            raArg = point.getRa();
-            decArg = point.getDec();
             radiusArg = (DoubleWritable) radiusConverter.convert(arguments[1].get());
+
+            if (radiusArg == null) {
+                return null;
+            }
+
+            return new ADQLCircle(point.getRa(), point.getDec(), radiusArg.get()).serialize();
         } else {
             raArg = (DoubleWritable) raConverter.convert(arguments[0].get());
             decArg = (DoubleWritable) decConverter.convert(arguments[1].get());
@@ -0,0 +1,94 @@
+package es.pic.hadoop.udf.adql;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.UDFType;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorUtils.PrimitiveGrouping;
+
+// @formatter:off
+@Description(
+    name = "compress",
+    value = "_FUNC_(geom:ADQLGeometry[, format:string]) -> geom:ADQLGeometry",
+    extended = "Rewrite the ranges of an ADQL region in a compressed format: 'delta' (default), 'interpolative' or 'raw'.\n"
+             + "Other geometries are returned unchanged. Every ADQL function accepts regions in any format."
+)
+@UDFType(
+    deterministic = true,
+    stateful = false
+)
+// @formatter:on
+public class UDFCompress extends GenericUDF {
+
+    ADQLGeometryReader reader;
+    byte format;
+
+    Object blob;
+    ADQLGeometry geom;
+
+    @Override
+    public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+        if (arguments.length == 1 || arguments.length == 2) {
+            if (!ADQLGeometryReader.accepts(arguments[0])) {
+                throw new UDFArgumentTypeException(0, "The first argument has to be of ADQL geometry type.");
+            }
+            reader = ADQLGeometryReader.create(arguments[0]);
+        } else {
+            throw new UDFArgumentLengthException("This function takes 1 or 2 arguments: geometry, [format]");
+        }
+
+        format = ADQLRangeSetCodec.DELTA;
+        if (arguments.length == 2) {
+            if (!(arguments[1] instanceof ConstantObjectInspector)
+                    || arguments[1].getCategory() != ObjectInspector.Category.PRIMITIVE
+                    || PrimitiveObjectInspectorUtils.getPrimitiveGrouping(((PrimitiveObjectInspector) arguments[1])
+                            .getPrimitiveCategory()) != PrimitiveGrouping.STRING_GROUP) {
+                throw new UDFArgumentTypeException(1, "The format has to be a constant string.");
+            }
+            Object value = ((ConstantObjectInspector) arguments[1]).getWritableConstantValue();
+            if (value == null) {
+                throw new UDFArgumentTypeException(1, "The format cannot be null.");
+            }
+            try {
+                format = ADQLRangeSetCodec.format(value.toString());
+            } catch (IllegalArgumentException e) {
+                throw new UDFArgumentTypeException(1, "The format has to be one of 'raw', 'delta' or 'interpolative'.");
+            }
+        }
+
+        return ADQLGeometry.OI;
+    }
+
+    @Override
+    public Object evaluate(DeferredObject[] arguments) throws HiveException {
+        blob = arguments[0].get();
+
+        if (blob == null) {
+            return null;
+        }
+
+        geom = reader.read(blob);
+
+        if (geom.getKind() == ADQLGeometry.Kind.REGION) {
+            ((ADQLRegion) geom).setFormat(format);
+        }
+
+        try {
+            return geom.serialize();
+        } catch (IllegalArgumentException e) {
+            throw new HiveException("Unable to compress ADQL region.", e);
+        }
+    }
+
+    @Override
+    public String getDisplayString(String[] children) {
+        return getStandardDisplayString("compress", children);
+    }
+}
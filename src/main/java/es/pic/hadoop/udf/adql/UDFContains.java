@@ -1,27 +1,26 @@
 package es.pic.hadoop.udf.adql;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.MapredContext;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.udf.UDFType;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
-import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 import org.apache.hadoop.io.BooleanWritable;
 
 import com.google.common.geometry.S1Angle;
 import com.google.common.geometry.S2Cap;
-import com.google.common.geometry.S2LatLng;
 import com.google.common.geometry.S2Loop;
 import com.google.common.geometry.S2Point;
 
+import healpix.essentials.HealpixBase;
+import healpix.essentials.Pointing;
+
 // @formatter:off
 @Description(
     name = "contains",
@@ -36,19 +35,19 @@ import com.google.common.geometry.S2Point;
 public class UDFContains extends GenericUDF {
     final static ObjectInspector booleanOI = PrimitiveObjectInspectorFactory.writableBooleanObjectInspector;
 
-    StructObjectInspector inputOI1;
-    StructObjectInspector inputOI2;
+    /** Decoded CIRCLEs and POLYGONs of every argument, configured in configure(). */
+    ADQLGeometryCache cache = new ADQLGeometryCache();
+
+    ADQLGeometryReader reader1;
+    ADQLGeometryReader reader2;
+
+    // Constant arguments are decoded once in initialize and reused for every row
+    boolean constant1;
+    boolean constant2;
 
-    Object prev1;
-    Object prev2;
-    Object blob1;
-    Object blob2;
     ADQLGeometry geom1;
     ADQLGeometry geom2;
 
-    double ra;
-    double dec;
-
     S2Point point1;
     S2Point point2;
     S2Cap circle1;
@@ -59,155 +58,134 @@ public class UDFContains extends GenericUDF {
     ADQLRegion region1;
     ADQLRegion region2;
 
-    List<S2Point> vertices;
+    Pointing pt = new Pointing();
+    BooleanWritable result = new BooleanWritable();
 
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
         if (arguments.length == 2) {
-            if (!ObjectInspectorUtils.compareTypes(arguments[0], ADQLGeometry.OI)) {
+            if (!ADQLGeometryReader.accepts(arguments[0])) {
                 throw new UDFArgumentTypeException(0, "First argument has to be of ADQL geometry type.");
             }
-            inputOI1 = (StructObjectInspector) arguments[0];
-            if (!ObjectInspectorUtils.compareTypes(arguments[1], ADQLGeometry.OI)) {
+            reader1 = ADQLGeometryReader.create(arguments[0], cache);
+            if (!ADQLGeometryReader.accepts(arguments[1])) {
                 throw new UDFArgumentTypeException(1, "Second argument has to be of ADQL geometry type.");
             }
-            inputOI2 = (StructObjectInspector) arguments[1];
+            reader2 = ADQLGeometryReader.create(arguments[1], cache);
         } else {
             throw new UDFArgumentLengthException("This function takes 2 arguments: geom1, geom2");
         }
 
+        constant1 = arguments[0] instanceof ConstantObjectInspector;
+        if (constant1) {
+            geom1 = ADQLGeometry.fromConstant((ConstantObjectInspector) arguments[0]);
+        }
+        constant2 = arguments[1] instanceof ConstantObjectInspector;
+        if (constant2) {
+            geom2 = ADQLGeometry.fromConstant((ConstantObjectInspector) arguments[1]);
+            if (geom2 instanceof ADQLPoint) {
+                throw new UDFArgumentTypeException(1, "Second geometry cannot be a POINT.");
+            }
+            if (geom2 instanceof ADQLRegion) {
+                // Points of every row are looked up in the same region
+                ((ADQLRegion) geom2).index();
+            }
+        }
+
         return booleanOI;
     }
 
     @Override
-    public Object evaluate(DeferredObject[] arguments) throws HiveException {
-        blob1 = arguments[0].get();
-        blob2 = arguments[1].get();
+    public void configure(MapredContext context) {
+        cache.configure(context.getJobConf());
+    }
 
-        if (blob1 == null || blob2 == null) {
-            return null;
+    @Override
+    public Object evaluate(DeferredObject[] arguments) throws HiveException {
+        if (!constant1) {
+            geom1 = reader1.read(arguments[0].get());
         }
-
-        geom1 = ADQLGeometry.fromBlob(blob1, inputOI1);
-        if (!blob2.equals(prev2)) {
-            // TODO: Maybe do a special case for point-in-region where we do not parse the entire LongBuffer, and do a binary-search within.
-            geom2 = ADQLGeometry.fromBlob(blob2, inputOI2);
+        if (!constant2) {
+            geom2 = reader2.read(arguments[1].get());
         }
 
-        prev1 = blob1;
-        prev2 = blob2;
+        if (geom1 == null || geom2 == null) {
+            return null;
+        }
 
         if (geom2 instanceof ADQLPoint) {
             throw new UDFArgumentTypeException(1, "Second geometry cannot be a POINT.");
         }
 
-        if (geom1 instanceof ADQLRegion || geom2 instanceof ADQLRegion) {
-            // REGION combined with POINT, CIRCLE, POLYGON or another REGION
+        if (geom1 instanceof ADQLPoint && geom2 instanceof ADQLRegion) {
+            // POINT inside REGION, binary search of its order 29 pixel within the serialized boundaries
+            result.set(((ADQLRegion) geom2).contains(((ADQLPoint) geom1).toPixel((byte) HealpixBase.order_max, pt)));
+
+        } else if (geom1 instanceof ADQLRegion || geom2 instanceof ADQLRegion) {
+            // REGION combined with CIRCLE, POLYGON or another REGION
             region1 = geom1.toRegion();
             region2 = geom2.toRegion();
 
-            return new BooleanWritable(region2.contains(region1));
-        }
+            result.set(region2.contains(region1));
 
-        if (geom1 instanceof ADQLPoint && geom2 instanceof ADQLCircle) {
+        } else if (geom1 instanceof ADQLPoint && geom2 instanceof ADQLCircle) {
             // POINT inside CIRCLE
-            point1 = S2LatLng.fromDegrees(geom1.getCoord(1).get(), geom1.getCoord(0).get()).toPoint();
-            point2 = S2LatLng.fromDegrees(geom2.getCoord(1).get(), geom2.getCoord(0).get()).toPoint();
-            circle2 = S2Cap.fromAxisAngle(point2, S1Angle.degrees(geom2.getCoord(2).get()));
+            point1 = ((ADQLPoint) geom1).toS2Point();
+            circle2 = ((ADQLCircle) geom2).toS2Cap();
+
+            result.set(circle2.contains(point1));
 
-            return new BooleanWritable(circle2.contains(point1));
         } else if (geom1 instanceof ADQLPoint && geom2 instanceof ADQLPolygon) {
             // POINT inside POLYGON
-            point1 = S2LatLng.fromDegrees(geom1.getCoord(1).get(), geom1.getCoord(0).get()).toPoint();
+            point1 = ((ADQLPoint) geom1).toS2Point();
+            polygon2 = ((ADQLPolygon) geom2).toS2Loop();
 
-            vertices = new ArrayList<S2Point>();
-            for (int i = 0; i < geom2.getNumCoords(); i += 2) {
-                ra = geom2.getCoord(i).get();
-                dec = geom2.getCoord(i + 1).get();
-                vertices.add(S2LatLng.fromDegrees(dec, ra).toPoint());
-            }
-
-            polygon2 = new S2Loop(vertices);
-
-            return new BooleanWritable(polygon2.contains(point1));
+            result.set(polygon2.contains(point1));
 
         } else if (geom1 instanceof ADQLCircle && geom2 instanceof ADQLCircle) {
             // CIRCLE inside CIRCLE
-            point1 = S2LatLng.fromDegrees(geom1.getCoord(1).get(), geom1.getCoord(0).get()).toPoint();
-            point2 = S2LatLng.fromDegrees(geom2.getCoord(1).get(), geom2.getCoord(0).get()).toPoint();
-
-            circle1 = S2Cap.fromAxisAngle(point1, S1Angle.degrees(geom1.getCoord(2).get()));
-            circle2 = S2Cap.fromAxisAngle(point2, S1Angle.degrees(geom2.getCoord(2).get()));
+            circle1 = ((ADQLCircle) geom1).toS2Cap();
+            circle2 = ((ADQLCircle) geom2).toS2Cap();
 
-            return new BooleanWritable(circle2.contains(circle1));
+            result.set(circle2.contains(circle1));
 
         } else if (geom1 instanceof ADQLCircle && geom2 instanceof ADQLPolygon) {
             // CIRCLE inside POLYGON
-            point1 = S2LatLng.fromDegrees(geom1.getCoord(1).get(), geom1.getCoord(0).get()).toPoint();
-            radius = S1Angle.degrees(geom1.getCoord(2).get());
-
-            vertices = new ArrayList<S2Point>();
-            for (int i = 0; i < geom2.getNumCoords(); i += 2) {
-                ra = geom2.getCoord(i).get();
-                dec = geom2.getCoord(i + 1).get();
-                vertices.add(S2LatLng.fromDegrees(dec, ra).toPoint());
-            }
-
-            polygon2 = new S2Loop(vertices);
+            point1 = ((ADQLCircle) geom1).toS2Cap().axis();
+            radius = S1Angle.degrees(((ADQLCircle) geom1).getRadius());
+            polygon2 = ((ADQLPolygon) geom2).toS2Loop();
 
-            return new BooleanWritable(polygon2.contains(point1) && polygon2.getDistance(point1).greaterThan(radius));
+            result.set(polygon2.contains(point1) && polygon2.getDistance(point1).greaterThan(radius));
 
         } else if (geom1 instanceof ADQLPolygon && geom2 instanceof ADQLCircle) {
             // POLYGON inside CIRCLE
-            point2 = S2LatLng.fromDegrees(geom2.getCoord(1).get(), geom2.getCoord(0).get()).toPoint();
-            radius = S1Angle.degrees(geom2.getCoord(2).get());
-            circle2 = S2Cap.fromAxisAngle(point2, radius);
+            polygon1 = ((ADQLPolygon) geom1).toS2Loop();
+            circle2 = ((ADQLCircle) geom2).toS2Cap();
 
             // Circle must contain every vertex
-            vertices = new ArrayList<S2Point>();
-            for (int i = 0; i < geom1.getNumCoords(); i += 2) {
-                ra = geom1.getCoord(i).get();
-                dec = geom1.getCoord(i + 1).get();
-
-                point1 = S2LatLng.fromDegrees(dec, ra).toPoint();
-                if (!circle2.contains(point1)) {
-                    return new BooleanWritable(false);
-                } else {
-                    vertices.add(point1);
+            for (int i = 0; i < polygon1.numVertices(); i++) {
+                if (!circle2.contains(polygon1.vertex(i))) {
+                    result.set(false);
+                    return result;
                 }
             }
-            polygon2 = new S2Loop(vertices);
 
             // And polygon cannot overlap with circle's complement.
             circle2 = circle2.complement();
             point2 = circle2.axis();
             radius = circle2.angle();
-            if (polygon2.contains(point2) || polygon2.getDistance(point2).lessOrEquals(radius)) {
-                return new BooleanWritable(false);
-            } else {
-                return new BooleanWritable(true);
-            }
+
+            result.set(!(polygon1.contains(point2) || polygon1.getDistance(point2).lessOrEquals(radius)));
 
         } else { // (geom1 instanceof ADQLPolygon && geom2 instanceof ADQLPolygon)
             // POLYGON inside POLYGON
-            vertices = new ArrayList<S2Point>();
-            for (int i = 0; i < geom1.getNumCoords(); i += 2) {
-                ra = geom1.getCoord(i).get();
-                dec = geom1.getCoord(i + 1).get();
-                vertices.add(S2LatLng.fromDegrees(dec, ra).toPoint());
-            }
-            polygon1 = new S2Loop(vertices);
-
-            vertices = new ArrayList<S2Point>();
-            for (int i = 0; i < geom2.getNumCoords(); i += 2) {
-                ra = geom2.getCoord(i).get();
-                dec = geom2.getCoord(i + 1).get();
-                vertices.add(S2LatLng.fromDegrees(dec, ra).toPoint());
-            }
-            polygon2 = new S2Loop(vertices);
+            polygon1 = ((ADQLPolygon) geom1).toS2Loop();
+            polygon2 = ((ADQLPolygon) geom2).toS2Loop();
 
-            return new BooleanWritable(polygon2.containsNested(polygon1));
+            result.set(polygon2.containsNested(polygon1));
         }
+
+        return result;
     }
 
     @Override
@@ -0,0 +1,127 @@
+package es.pic.hadoop.udf.adql;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.MapredContext;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedExpressions;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.UDFType;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters.Converter;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.BooleanWritable;
+
+// @formatter:off
+@Description(
+    name = "contains_point",
+    value = "_FUNC_(ra:double, dec:double, geom:ADQLGeometry) -> is_contained:boolean",
+    extended = "Return true if the point at ra, dec is contained within the geometry, false otherwise. Same as contains(point(ra, dec), geom), without building the point. Only runs natively in vectorized mode if geom is a constant in binary form, as in contains_point(ra, dec, geom2binary(circle(ra0, dec0, radius)))."
+)
+@UDFType(
+    deterministic = true,
+    stateful = false
+)
+@VectorizedExpressions({
+    VectorContainsPoint.class,
+    FilterContainsPoint.class
+})
+// @formatter:on
+public class UDFContainsPoint extends GenericUDF {
+    final static ObjectInspector doubleOI = PrimitiveObjectInspectorFactory.writableDoubleObjectInspector;
+    final static ObjectInspector booleanOI = PrimitiveObjectInspectorFactory.writableBooleanObjectInspector;
+
+    Converter raConverter;
+    Converter decConverter;
+    /** Decoded CIRCLEs and POLYGONs of every argument, configured in configure(). */
+    ADQLGeometryCache cache = new ADQLGeometryCache();
+
+    ADQLGeometryReader reader;
+
+    // A constant geometry is decoded once in initialize and reused for every row
+    boolean constant;
+
+    DoubleWritable raArg;
+    DoubleWritable decArg;
+    ADQLGeometry geom;
+    ADQLGeometry predicateGeom;
+    ADQLPointPredicate predicate;
+
+    BooleanWritable result = new BooleanWritable();
+
+    @Override
+    public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+        if (arguments.length == 3) {
+            raConverter = ObjectInspectorConverters.getConverter(arguments[0], doubleOI);
+            decConverter = ObjectInspectorConverters.getConverter(arguments[1], doubleOI);
+            if (!ADQLGeometryReader.accepts(arguments[2])) {
+                throw new UDFArgumentTypeException(2, "Third argument has to be of ADQL geometry type.");
+            }
+            reader = ADQLGeometryReader.create(arguments[2], cache);
+        } else {
+            throw new UDFArgumentLengthException("This function takes 3 arguments: ra, dec, geom");
+        }
+
+        constant = arguments[2] instanceof ConstantObjectInspector;
+        predicateGeom = null;
+        predicate = null;
+        if (constant) {
+            geom = ADQLGeometry.fromConstant((ConstantObjectInspector) arguments[2]);
+            if (geom instanceof ADQLPoint) {
+                throw new UDFArgumentTypeException(2, "Geometry cannot be a POINT.");
+            }
+            if (geom instanceof ADQLRegion) {
+                // Points of every row are looked up in the same region
+                ((ADQLRegion) geom).index();
+            }
+        }
+
+        return booleanOI;
+    }
+
+    @Override
+    public void configure(MapredContext context) {
+        cache.configure(context.getJobConf());
+    }
+
+    @Override
+    public Object evaluate(DeferredObject[] arguments) throws HiveException {
+        raArg = (DoubleWritable) raConverter.convert(arguments[0].get());
+        decArg = (DoubleWritable) decConverter.convert(arguments[1].get());
+        if (!constant) {
+            geom = reader.read(arguments[2].get());
+        }
+
+        if (raArg == null || decArg == null || geom == null) {
+            return null;
+        }
+
+        if (geom instanceof ADQLPoint) {
+            throw new UDFArgumentTypeException(2, "Geometry cannot be a POINT.");
+        }
+
+        // Cached CIRCLEs and POLYGONs come back as the same object, so their predicate is kept while they repeat
+        if (geom != predicateGeom) {
+            predicate = ADQLPointPredicate.create(geom);
+            predicateGeom = geom;
+        }
+
+        try {
+            result.set(predicate.contains(raArg.get(), decArg.get()));
+        } catch (IllegalArgumentException e) {
+            throw new HiveException(e);
+        }
+
+        return result;
+    }
+
+    @Override
+    public String getDisplayString(String[] children) {
+        return getStandardDisplayString("contains_point", children);
+    }
+}
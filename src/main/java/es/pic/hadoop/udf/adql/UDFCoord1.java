@@ -7,9 +7,8 @@ import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.udf.UDFType;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
-import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 
 // @formatter:off
@@ -26,19 +25,21 @@ import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectIn
 public class UDFCoord1 extends GenericUDF {
     final static ObjectInspector doubleOI = PrimitiveObjectInspectorFactory.writableDoubleObjectInspector;
 
-    StructObjectInspector inputOI;
+    ADQLGeometryReader reader;
 
     Object blob;
     ADQLGeometry geom;
 
+    DoubleWritable result = new DoubleWritable();
+
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
         if (arguments.length == 1) {
 
-            if (!ObjectInspectorUtils.compareTypes(arguments[0], ADQLGeometry.OI)) {
+            if (!ADQLGeometryReader.accepts(arguments[0])) {
                 throw new UDFArgumentTypeException(0, "Argument has to be of ADQL geometry type.");
             }
-            inputOI = (StructObjectInspector) arguments[0];
+            reader = ADQLGeometryReader.create(arguments[0]);
         } else {
             throw new UDFArgumentLengthException("This function takes 1 argument: point");
         }
@@ -54,14 +55,16 @@ public class UDFCoord1 extends GenericUDF {
             return null;
         }
 
-        geom = ADQLGeometry.fromBlob(blob, inputOI);
+        geom = reader.read(blob);
 
         if (!(geom instanceof ADQLPoint)) {
             throw new UDFArgumentTypeException(0,
                     String.format("Provided geometry is not a POINT, but a %s.", geom.getKind().name()));
         }
 
-        return geom.getCoord(0);
+        result.set(geom.getCoord(0));
+
+        return result;
     }
 
     @Override
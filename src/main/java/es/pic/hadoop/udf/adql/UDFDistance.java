@@ -11,8 +11,6 @@ import org.apache.hadoop.hive.serde2.io.DoubleWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters.Converter;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
-import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 
 import com.google.common.geometry.S2LatLng;
@@ -31,8 +29,8 @@ import com.google.common.geometry.S2LatLng;
 public class UDFDistance extends GenericUDF {
     final static ObjectInspector doubleOI = PrimitiveObjectInspectorFactory.writableDoubleObjectInspector;
 
-    StructObjectInspector inputOI1;
-    StructObjectInspector inputOI2;
+    ADQLGeometryReader reader1;
+    ADQLGeometryReader reader2;
 
     Converter ra1Converter;
     Converter dec1Converter;
@@ -49,17 +47,19 @@ public class UDFDistance extends GenericUDF {
     ADQLGeometry geom1;
     ADQLGeometry geom2;
 
+    DoubleWritable result = new DoubleWritable();
+
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
         if (arguments.length == 2) {
-            if (!ObjectInspectorUtils.compareTypes(arguments[0], ADQLGeometry.OI)) {
+            if (!ADQLGeometryReader.accepts(arguments[0])) {
                 throw new UDFArgumentTypeException(0, "First argument has to be of ADQL geometry type.");
             }
-            inputOI1 = (StructObjectInspector) arguments[0];
-            if (!ObjectInspectorUtils.compareTypes(arguments[1], ADQLGeometry.OI)) {
+            reader1 = ADQLGeometryReader.create(arguments[0]);
+            if (!ADQLGeometryReader.accepts(arguments[1])) {
                 throw new UDFArgumentTypeException(1, "Second argument has to be of ADQL geometry type.");
             }
-            inputOI2 = (StructObjectInspector) arguments[1];
+            reader2 = ADQLGeometryReader.create(arguments[1]);
         } else if (arguments.length == 4) {
             ra1Converter = ObjectInspectorConverters.getConverter(arguments[0], doubleOI);
             dec1Converter = ObjectInspectorConverters.getConverter(arguments[1], doubleOI);
@@ -83,8 +83,8 @@ public class UDFDistance extends GenericUDF {
                 return null;
             }
 
-            geom1 = ADQLGeometry.fromBlob(blob1, inputOI1);
-            geom2 = ADQLGeometry.fromBlob(blob2, inputOI2);
+            geom1 = reader1.read(blob1);
+            geom2 = reader2.read(blob2);
 
             if (!(geom1 instanceof ADQLPoint)) {
                 throw new UDFArgumentTypeException(0,
@@ -95,10 +95,7 @@ public class UDFDistance extends GenericUDF {
                         String.format("Second geometry is not a POINT, but a %s.", geom2.getKind().name()));
             }
 
-            ra1 = geom1.getCoord(0);
-            dec1 = geom1.getCoord(1);
-            ra2 = geom2.getCoord(0);
-            dec2 = geom2.getCoord(1);
+            return distance(geom1.getCoord(0), geom1.getCoord(1), geom2.getCoord(0), geom2.getCoord(1));
         } else {
             ra1 = (DoubleWritable) ra1Converter.convert(arguments[0].get());
             dec1 = (DoubleWritable) dec1Converter.convert(arguments[1].get());
@@ -110,8 +107,13 @@ public class UDFDistance extends GenericUDF {
             return null;
         }
 
-        return new DoubleWritable(S2LatLng.fromDegrees(dec1.get(), ra1.get())
-                .getDistance(S2LatLng.fromDegrees(dec2.get(), ra2.get())).degrees());
+        return distance(ra1.get(), dec1.get(), ra2.get(), dec2.get());
+    }
+
+    private DoubleWritable distance(double ra1, double dec1, double ra2, double dec2) {
+        result.set(S2LatLng.fromDegrees(dec1, ra1).getDistance(S2LatLng.fromDegrees(dec2, ra2)).degrees());
+
+        return result;
     }
 
     @Override
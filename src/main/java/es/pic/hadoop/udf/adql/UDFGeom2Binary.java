@@ -0,0 +1,70 @@
+package es.pic.hadoop.udf.adql;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.UDFType;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.BytesWritable;
+
+// @formatter:off
+@Description(
+    name = "geom2binary",
+    value = "_FUNC_(geom:ADQLGeometry) -> geom:binary",
+    extended = "Convert an ADQL geometry to its compact binary form, accepted by every ADQL function."
+)
+@UDFType(
+    deterministic = true,
+    stateful = false
+)
+// @formatter:on
+public class UDFGeom2Binary extends GenericUDF {
+    final static ObjectInspector binaryOI = PrimitiveObjectInspectorFactory.writableBinaryObjectInspector;
+
+    ADQLGeometryReader reader;
+
+    Object blob;
+    ADQLGeometry geom;
+    byte[] bytes;
+
+    BytesWritable result = new BytesWritable();
+
+    @Override
+    public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+        if (arguments.length == 1) {
+            if (!ADQLGeometryReader.accepts(arguments[0])) {
+                throw new UDFArgumentTypeException(0, "The argument has to be of ADQL geometry type.");
+            }
+            reader = ADQLGeometryReader.create(arguments[0]);
+        } else {
+            throw new UDFArgumentLengthException("This function takes 1 argument: geometry");
+        }
+
+        return binaryOI;
+    }
+
+    @Override
+    public Object evaluate(DeferredObject[] arguments) throws HiveException {
+        blob = arguments[0].get();
+
+        if (blob == null) {
+            return null;
+        }
+
+        geom = reader.read(blob);
+        bytes = geom.toBinary();
+
+        result.set(bytes, 0, bytes.length);
+
+        return result;
+    }
+
+    @Override
+    public String getDisplayString(String[] children) {
+        return getStandardDisplayString("geom2binary", children);
+    }
+}
@@ -0,0 +1,86 @@
+package es.pic.hadoop.udf.adql;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.UDFType;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters.Converter;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.LongWritable;
+
+// @formatter:off
+@Description(
+    name = "nuniq2region",
+    value = "_FUNC_(cells:array<bigint>) -> region:ADQLGeometry",
+    extended = "Build a REGION from a list of multi-order HEALPix cells in the NUNIQ scheme of the IVOA MOC standard "
+             + "(4 * 4^order + NESTED pixel), in any order. Null cells are ignored."
+)
+@UDFType(
+    deterministic = true,
+    stateful = false
+)
+// @formatter:on
+public class UDFNuniq2Region extends GenericUDF {
+    final static ObjectInspector longOI = PrimitiveObjectInspectorFactory.writableLongObjectInspector;
+
+    ListObjectInspector listOI;
+    Converter cellConverter;
+
+    Object list;
+    long[] cells = new long[16];
+
+    @Override
+    public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+        if (arguments.length != 1) {
+            throw new UDFArgumentLengthException("This function takes 1 argument: cells");
+        }
+        if (arguments[0].getCategory() != Category.LIST) {
+            throw new UDFArgumentTypeException(0, "The argument has to be an array of bigint.");
+        }
+
+        listOI = (ListObjectInspector) arguments[0];
+        cellConverter = ObjectInspectorConverters.getConverter(listOI.getListElementObjectInspector(), longOI);
+
+        return ADQLGeometry.OI;
+    }
+
+    @Override
+    public Object evaluate(DeferredObject[] arguments) throws HiveException {
+        list = arguments[0].get();
+
+        if (list == null) {
+            return null;
+        }
+
+        int size = listOI.getListLength(list);
+        if (cells.length < size) {
+            cells = new long[Math.max(size, 2 * cells.length)];
+        }
+
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            LongWritable cell = (LongWritable) cellConverter.convert(listOI.getListElement(list, i));
+            if (cell != null) {
+                cells[n++] = cell.get();
+            }
+        }
+
+        try {
+            return new ADQLRegion(ADQLRangeSet.fromNuniq(cells, n)).serialize();
+        } catch (IllegalArgumentException e) {
+            throw new HiveException("Invalid NUNIQ cell.", e);
+        }
+    }
+
+    @Override
+    public String getDisplayString(String[] children) {
+        return getStandardDisplayString("nuniq2region", children);
+    }
+}
@@ -14,7 +14,6 @@ import org.apache.hadoop.hive.serde2.io.DoubleWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters.Converter;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 
 // @formatter:off
@@ -32,14 +31,16 @@ public class UDFPolygon extends GenericUDF {
     final static ObjectInspector doubleOI = PrimitiveObjectInspectorFactory.writableDoubleObjectInspector;
 
     List<Converter> coordConverters;
-    List<DoubleWritable> coordArgs;
+    List<ADQLGeometryReader> pointReaders;
+    double[] coordArgs;
 
     boolean has_points = false;
     boolean has_coords = false;
 
     DoubleWritable coordArg;
     Object blob;
-    ADQLGeometry geom;
+    ADQLGeometry.Kind kind;
+    double[] point;
     Object polygon;
 
     @Override
@@ -48,15 +49,20 @@ public class UDFPolygon extends GenericUDF {
             ObjectInspector oi;
 
             coordConverters = new ArrayList<Converter>();
+            pointReaders = new ArrayList<ADQLGeometryReader>();
+            has_points = false;
+            has_coords = false;
             for (int i = 0; i < arguments.length; i++) {
                 oi = arguments[i];
 
-                if (ObjectInspectorUtils.compareTypes(arguments[i], ADQLGeometry.OI)) {
+                if (ADQLGeometryReader.accepts(arguments[i])) {
                     has_points = true;
-                    coordConverters.add(ObjectInspectorConverters.getConverter(oi, ADQLGeometry.OI));
+                    coordConverters.add(null);
+                    pointReaders.add(ADQLGeometryReader.create(oi));
                 } else {
                     has_coords = true;
                     coordConverters.add(ObjectInspectorConverters.getConverter(oi, doubleOI));
+                    pointReaders.add(null);
                 }
             }
 
@@ -79,12 +85,14 @@ public class UDFPolygon extends GenericUDF {
                     "If less than 6 arguments are provided, they all must be ADQLGeometry.");
         }
 
+        // Serializing copies the coordinates, so the same buffer can be filled on every row
+        coordArgs = new double[has_coords ? arguments.length : 2 * arguments.length];
+
         return ADQLGeometry.OI;
     }
 
     @Override
     public Object evaluate(DeferredObject[] arguments) throws HiveException {
-        coordArgs = new ArrayList<DoubleWritable>();
         if (has_coords) {
             for (int i = 0; i < arguments.length; i++) {
                 coordArg = (DoubleWritable) coordConverters.get(i).convert(arguments[i].get());
@@ -93,7 +101,7 @@ public class UDFPolygon extends GenericUDF {
                     return null;
                 }
 
-                coordArgs.add(coordArg);
+                coordArgs[i] = coordArg.get();
             }
         } else {
             for (int i = 0; i < arguments.length; i++) {
@@ -103,17 +111,20 @@ public class UDFPolygon extends GenericUDF {
                     return null;
                 }
 
-                geom = ADQLGeometry.fromBlob(coordConverters.get(i).convert(blob), ADQLGeometry.OI);
+                kind = pointReaders.get(i).readKind(blob);
 
-                if (!(geom instanceof ADQLPoint)) {
+                if (kind != ADQLGeometry.Kind.POINT) {
                     throw new UDFArgumentTypeException(i,
-                            String.format("Provided geometry is not a POINT, but a %s.", geom.getKind().name()));
+                            String.format("Provided geometry is not a POINT, but a %s.", kind.name()));
                 }
 
-                ADQLPoint point = (ADQLPoint) geom;
+                if (pointReaders.get(i).readCoords(blob) < 2) {
+                    throw new UDFArgumentTypeException(i, "Provided POINT has no coordinates.");
+                }
+                point = pointReaders.get(i).getCoords();
 
-                coordArgs.add(point.getRa());
-                coordArgs.add(point.getDec());
+                coordArgs[2 * i] = point[0];
+                coordArgs[2 * i + 1] = point[1];
             }
         }
 
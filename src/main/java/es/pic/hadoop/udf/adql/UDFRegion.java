@@ -11,8 +11,6 @@ import org.apache.hadoop.hive.serde2.io.ByteWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters.Converter;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
-import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 
 // @formatter:off
@@ -30,7 +28,7 @@ public class UDFRegion extends GenericUDF {
 
     final static ObjectInspector byteOI = PrimitiveObjectInspectorFactory.writableByteObjectInspector;
 
-    StructObjectInspector inputOI;
+    ADQLGeometryReader reader;
 
     Converter orderConverter;
 
@@ -43,10 +41,10 @@ public class UDFRegion extends GenericUDF {
             throw new UDFArgumentLengthException("This function takes 2 arguments at most: geometry, [order]");
         }
 
-        if (!ObjectInspectorUtils.compareTypes(arguments[0], ADQLGeometry.OI)) {
+        if (!ADQLGeometryReader.accepts(arguments[0])) {
             throw new UDFArgumentTypeException(0, "First argument has to be of ADQL geometry type.");
         }
-        inputOI = (StructObjectInspector) arguments[0];
+        reader = ADQLGeometryReader.create(arguments[0]);
 
         if (arguments.length == 2) {
             orderConverter = ObjectInspectorConverters.getConverter(arguments[1], byteOI);
@@ -69,10 +67,10 @@ public class UDFRegion extends GenericUDF {
             if (orderArg == null) {
                 return null;
             } else {
-                return ADQLGeometry.fromBlob(blob, inputOI).toRegion(orderArg.get()).serialize();
+                return reader.read(blob).toRegion(orderArg.get()).serialize();
             }
         } else {
-            return ADQLGeometry.fromBlob(blob, inputOI).toRegion().serialize();
+            return reader.read(blob).toRegion().serialize();
         }
     }
 
@@ -0,0 +1,83 @@
+package es.pic.hadoop.udf.adql;
+
+import java.util.ArrayList;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.UDFType;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.LongWritable;
+
+// @formatter:off
+@Description(
+    name = "region2nuniq",
+    value = "_FUNC_(geom:ADQLGeometry) -> cells:array<bigint>",
+    extended = "Convert a geometry into the minimal list of multi-order HEALPix cells covering its REGION, in the "
+             + "NUNIQ scheme of the IVOA MOC standard (4 * 4^order + NESTED pixel), sorted by order and pixel."
+)
+@UDFType(
+    deterministic = true,
+    stateful = false
+)
+// @formatter:on
+public class UDFRegion2Nuniq extends GenericUDF {
+    final static ObjectInspector longOI = PrimitiveObjectInspectorFactory.writableLongObjectInspector;
+
+    ADQLGeometryReader reader;
+
+    Object blob;
+    ADQLGeometry geom;
+
+    ArrayList<LongWritable> result = new ArrayList<LongWritable>();
+
+    @Override
+    public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+        if (arguments.length == 1) {
+            if (!ADQLGeometryReader.accepts(arguments[0])) {
+                throw new UDFArgumentTypeException(0, "The argument has to be of ADQL geometry type.");
+            }
+            reader = ADQLGeometryReader.create(arguments[0]);
+        } else {
+            throw new UDFArgumentLengthException("This function takes 1 argument: geometry");
+        }
+
+        return ObjectInspectorFactory.getStandardListObjectInspector(longOI);
+    }
+
+    @Override
+    public Object evaluate(DeferredObject[] arguments) throws HiveException {
+        blob = arguments[0].get();
+
+        if (blob == null) {
+            return null;
+        }
+
+        geom = reader.read(blob);
+        long[] cells = geom.toRegion().getRangeSet().toNuniq();
+
+        // Writables are kept from previous rows, so only the missing ones are allocated
+        while (result.size() > cells.length) {
+            result.remove(result.size() - 1);
+        }
+        for (int i = 0; i < cells.length; i++) {
+            if (i < result.size()) {
+                result.get(i).set(cells[i]);
+            } else {
+                result.add(new LongWritable(cells[i]));
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public String getDisplayString(String[] children) {
+        return getStandardDisplayString("region2nuniq", children);
+    }
+}
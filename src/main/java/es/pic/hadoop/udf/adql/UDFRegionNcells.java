@@ -0,0 +1,93 @@
+package es.pic.hadoop.udf.adql;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.UDFType;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.io.ByteWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters.Converter;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.LongWritable;
+
+import healpix.essentials.HealpixBase;
+
+// @formatter:off
+@Description(
+    name = "region_ncells",
+    value = "_FUNC_(geom:ADQLGeometry, order:tinyint) -> ncells:bigint",
+    extended = "Return the number of HEALPix cells at the given order that overlap the REGION of a geometry."
+)
+@UDFType(
+    deterministic = true,
+    stateful = false
+)
+// @formatter:on
+public class UDFRegionNcells extends GenericUDF {
+    final static ObjectInspector byteOI = PrimitiveObjectInspectorFactory.writableByteObjectInspector;
+    final static ObjectInspector longOI = PrimitiveObjectInspectorFactory.writableLongObjectInspector;
+
+    ADQLGeometryReader reader;
+
+    Converter orderConverter;
+
+    Object blob;
+    ByteWritable orderArg;
+
+    ADQLRangeSetCursor cursor = new ADQLRangeSetCursor();
+    LongWritable result = new LongWritable();
+
+    @Override
+    public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+        if (arguments.length != 2) {
+            throw new UDFArgumentLengthException("This function takes 2 arguments: geometry, order");
+        }
+
+        if (!ADQLGeometryReader.accepts(arguments[0])) {
+            throw new UDFArgumentTypeException(0, "First argument has to be of ADQL geometry type.");
+        }
+        reader = ADQLGeometryReader.create(arguments[0]);
+
+        orderConverter = ObjectInspectorConverters.getConverter(arguments[1], byteOI);
+
+        return longOI;
+    }
+
+    @Override
+    public Object evaluate(DeferredObject[] arguments) throws HiveException {
+        blob = arguments[0].get();
+        orderArg = (ByteWritable) orderConverter.convert(arguments[1].get());
+
+        if (blob == null || orderArg == null) {
+            return null;
+        }
+
+        byte order = orderArg.get();
+        if (order < 0 || order > HealpixBase.order_max) {
+            throw new HiveException(String.format("Order must be between 0 and %d.", HealpixBase.order_max));
+        }
+
+        // REGIONs are counted in a single pass over their serialized ranges
+        ADQLGeometry.Kind kind = reader.readKind(blob);
+        if (kind == ADQLGeometry.Kind.REGION) {
+            reader.readRanges(blob, cursor);
+        } else if (kind == ADQLGeometry.Kind.POINT) {
+            reader.read(blob).toRegion().cursor(cursor);
+        } else {
+            // Other shapes are built at the requested order, so finer orders do not count the cells of coarser ones
+            reader.read(blob).toRegion((byte) Math.max(order, ADQLGeometry.DEFAULT_ORDER)).cursor(cursor);
+        }
+        result.set(ADQLRangeSetCursor.ncells(cursor, order));
+
+        return result;
+    }
+
+    @Override
+    public String getDisplayString(String[] children) {
+        return getStandardDisplayString("region_ncells", children);
+    }
+}
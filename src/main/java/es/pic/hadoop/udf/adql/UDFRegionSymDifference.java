@@ -0,0 +1,28 @@
+package es.pic.hadoop.udf.adql;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.udf.UDFType;
+
+// @formatter:off
+@Description(
+    name = "region_symdifference",
+    value = "_FUNC_(geom1:ADQLGeometry, geom2:ADQLGeometry) -> region:ADQLGeometry",
+    extended = "Return the values in exactly one of the REGIONs of both geometries."
+)
+@UDFType(
+    deterministic = true,
+    stateful = false
+)
+// @formatter:on
+public class UDFRegionSymDifference extends AbstractUDFRegionOperation {
+
+    @Override
+    protected boolean combine(boolean in1, boolean in2) {
+        return in1 != in2;
+    }
+
+    @Override
+    public String getDisplayString(String[] children) {
+        return getStandardDisplayString("region_symdifference", children);
+    }
+}
@@ -0,0 +1,46 @@
+package es.pic.hadoop.udf.adql;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Unsigned LEB128 variable-length encoding of non-negative longs: 7 bits per byte, least significant group first, with
+ * the high bit set on every byte but the last. Small values, such as the gaps between consecutive range boundaries,
+ * take a single byte.
+ */
+final class VarInt {
+
+    private VarInt() {
+    }
+
+    /** @return number of bytes needed to encode value. */
+    static int size(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /** Write value at the current position of buf. */
+    static void put(ByteBuffer buf, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    /** Read a value from the current position of buf. */
+    static long get(ByteBuffer buf) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buf.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable-length integer.");
+    }
+}
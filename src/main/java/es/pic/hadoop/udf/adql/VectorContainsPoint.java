@@ -0,0 +1,93 @@
+package es.pic.hadoop.udf.adql;
+
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorExpressionDescriptor;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+
+/**
+ * Vectorized contains_point(ra, dec, geom) in a projection, writing 1 or 0 for every row into a LongColumnVector.
+ */
+public class VectorContainsPoint extends AbstractVectorContainsPoint {
+
+    private static final long serialVersionUID = 1L;
+
+    public VectorContainsPoint(int raColumn, int decColumn, byte[] geometry, int outputColumnNum) {
+        super(raColumn, decColumn, geometry, outputColumnNum);
+    }
+
+    public VectorContainsPoint() {
+        super();
+    }
+
+    @Override
+    public void evaluate(VectorizedRowBatch batch) throws HiveException {
+        if (childExpressions != null) {
+            super.evaluateChildren(batch);
+        }
+
+        int n = batch.size;
+        if (n == 0) {
+            return;
+        }
+
+        LongColumnVector outputVector = (LongColumnVector) batch.cols[outputColumnNum];
+
+        if (predicate == null) {
+            outputVector.noNulls = false;
+            outputVector.isRepeating = true;
+            outputVector.isNull[0] = true;
+            return;
+        }
+
+        DoubleColumnVector raVector = (DoubleColumnVector) batch.cols[raColumn];
+        DoubleColumnVector decVector = (DoubleColumnVector) batch.cols[decColumn];
+
+        double[] ra = raVector.vector;
+        double[] dec = decVector.vector;
+        long[] output = outputVector.vector;
+        boolean[] outputIsNull = outputVector.isNull;
+
+        // A repeating input is read at index 0 for every row
+        int raMask = raVector.isRepeating ? 0 : -1;
+        int decMask = decVector.isRepeating ? 0 : -1;
+
+        boolean selectedInUse = batch.selectedInUse;
+        outputVector.isRepeating = raVector.isRepeating && decVector.isRepeating;
+        if (outputVector.isRepeating) {
+            n = 1;
+            selectedInUse = false;
+        }
+        int[] sel = batch.selected;
+
+        try {
+            if (raVector.noNulls && decVector.noNulls) {
+                for (int j = 0; j < n; j++) {
+                    int i = selectedInUse ? sel[j] : j;
+                    outputIsNull[i] = false;
+                    output[i] = predicate.contains(ra[i & raMask], dec[i & decMask]) ? 1 : 0;
+                }
+            } else {
+                outputVector.noNulls = false;
+                for (int j = 0; j < n; j++) {
+                    int i = selectedInUse ? sel[j] : j;
+                    if ((!raVector.noNulls && raVector.isNull[i & raMask])
+                            || (!decVector.noNulls && decVector.isNull[i & decMask])) {
+                        outputIsNull[i] = true;
+                    } else {
+                        outputIsNull[i] = false;
+                        output[i] = predicate.contains(ra[i & raMask], dec[i & decMask]) ? 1 : 0;
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new HiveException(e);
+        }
+    }
+
+    @Override
+    public VectorExpressionDescriptor.Descriptor getDescriptor() {
+        return getDescriptor(VectorExpressionDescriptor.Mode.PROJECTION);
+    }
+}
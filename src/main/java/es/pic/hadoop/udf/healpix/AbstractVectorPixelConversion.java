@@ -0,0 +1,114 @@
+package es.pic.hadoop.udf.healpix;
+
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorExpressionDescriptor;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+
+/**
+ * Base of the vectorized conversions of a column of pixels at a constant order into another column of pixels, such
+ * as nest2ring(order, ipix). Subclasses only provide the conversion of a single pixel.
+ */
+public abstract class AbstractVectorPixelConversion extends VectorExpression {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final long order;
+    protected final int colNum;
+
+    protected AbstractVectorPixelConversion(long order, int colNum, int outputColumnNum) {
+        super(outputColumnNum);
+        this.order = order;
+        this.colNum = colNum;
+    }
+
+    protected AbstractVectorPixelConversion() {
+        super();
+        this.order = 0;
+        this.colNum = -1;
+    }
+
+    /** @return the kernel of order, if it is a valid HEALPix order. */
+    static HealpixKernel kernel(long order) throws HiveException {
+        if (order < 0 || order > HealpixKernel.ORDER_MAX) {
+            throw new HiveException("Invalid order: " + order);
+        }
+        return HealpixKernel.forOrder((int) order);
+    }
+
+    /** @return the pixel ipix converted by kernel. It may throw an IllegalArgumentException for invalid pixels. */
+    protected abstract long convert(HealpixKernel kernel, long ipix);
+
+    @Override
+    public void evaluate(VectorizedRowBatch batch) throws HiveException {
+        if (childExpressions != null) {
+            super.evaluateChildren(batch);
+        }
+
+        int n = batch.size;
+        if (n == 0) {
+            return;
+        }
+
+        HealpixKernel kernel = kernel(order);
+
+        LongColumnVector inputVector = (LongColumnVector) batch.cols[colNum];
+        LongColumnVector outputVector = (LongColumnVector) batch.cols[outputColumnNum];
+
+        long[] input = inputVector.vector;
+        boolean[] inputIsNull = inputVector.isNull;
+        long[] output = outputVector.vector;
+        boolean[] outputIsNull = outputVector.isNull;
+
+        boolean selectedInUse = batch.selectedInUse;
+        outputVector.isRepeating = inputVector.isRepeating;
+        if (inputVector.isRepeating) {
+            n = 1;
+            selectedInUse = false;
+        }
+        int[] sel = batch.selected;
+
+        try {
+            if (inputVector.noNulls) {
+                for (int j = 0; j < n; j++) {
+                    int i = selectedInUse ? sel[j] : j;
+                    outputIsNull[i] = false;
+                    output[i] = convert(kernel, input[i]);
+                }
+            } else {
+                outputVector.noNulls = false;
+                for (int j = 0; j < n; j++) {
+                    int i = selectedInUse ? sel[j] : j;
+                    outputIsNull[i] = inputIsNull[i];
+                    if (!inputIsNull[i]) {
+                        output[i] = convert(kernel, input[i]);
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new HiveException(e);
+        }
+    }
+
+    @Override
+    public String vectorExpressionParameters() {
+        return "order " + order + ", " + getColumnParamString(1, colNum);
+    }
+
+    @Override
+    public VectorExpressionDescriptor.Descriptor getDescriptor() {
+        // @formatter:off
+        return new VectorExpressionDescriptor.Builder()
+                .setMode(VectorExpressionDescriptor.Mode.PROJECTION)
+                .setNumArguments(2)
+                .setArgumentTypes(
+                        VectorExpressionDescriptor.ArgumentType.INT_FAMILY,
+                        VectorExpressionDescriptor.ArgumentType.INT_FAMILY)
+                .setInputExpressionTypes(
+                        VectorExpressionDescriptor.InputExpressionType.SCALAR,
+                        VectorExpressionDescriptor.InputExpressionType.COLUMN)
+                .build();
+        // @formatter:on
+    }
+}
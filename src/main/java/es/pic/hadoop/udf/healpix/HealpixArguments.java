@@ -0,0 +1,57 @@
+package es.pic.hadoop.udf.healpix;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.serde2.io.ByteWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters.Converter;
+import org.apache.hadoop.io.BooleanWritable;
+
+/**
+ * Arguments of the HEALPix functions that are usually literals, such as the order and the nest and lonlat flags. When
+ * they are constant they are read once in initialize, so evaluate neither converts them nor looks up the kernel of
+ * the order on every row.
+ */
+final class HealpixArguments {
+
+    private HealpixArguments() {
+    }
+
+    /**
+     * @return the kernel of a constant order, or null if the order has to be read on every row, which is also the case
+     *         of a NULL constant.
+     * @throws UDFArgumentException if the constant order is not valid.
+     */
+    static HealpixKernel constantKernel(ObjectInspector argument, Converter converter) throws UDFArgumentException {
+        if (!(argument instanceof ConstantObjectInspector)) {
+            return null;
+        }
+
+        ByteWritable order = (ByteWritable) converter
+                .convert(((ConstantObjectInspector) argument).getWritableConstantValue());
+        if (order == null) {
+            return null;
+        }
+
+        try {
+            return HealpixKernel.forOrder(order.get());
+        } catch (IllegalArgumentException e) {
+            throw new UDFArgumentException(e.getMessage());
+        }
+    }
+
+    /**
+     * @return the value of the optional flag at index i: false if it is not given, its value if it is a non-NULL
+     *         constant, or null if it has to be read on every row.
+     */
+    static BooleanWritable constantFlag(ObjectInspector[] arguments, int i, Converter converter) {
+        if (i >= arguments.length) {
+            return new BooleanWritable(false);
+        }
+        if (!(arguments[i] instanceof ConstantObjectInspector)) {
+            return null;
+        }
+
+        return (BooleanWritable) converter.convert(((ConstantObjectInspector) arguments[i]).getWritableConstantValue());
+    }
+}
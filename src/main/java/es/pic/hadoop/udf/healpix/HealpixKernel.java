@@ -0,0 +1,647 @@
+package es.pic.hadoop.udf.healpix;
+
+import healpix.essentials.FastMath;
+import healpix.essentials.HealpixBase;
+
+/**
+ * HEALPix kernel working on primitive values only, for the functions that are evaluated on every row of a table. It
+ * evaluates the same formulas as HealpixBase, in the same order and with the same FastMath routines, so results are
+ * bit-for-bit those of jhealpix, but no HealpixBase is looked up and no Pointing, Vec3 or intermediate location is
+ * built. Functions with several results write them into an array given by the caller.
+ *
+ * There is one instance per order, returned by forOrder(), holding the nside, masks and face offsets of that order.
+ * Callers with a constant order keep it and use its methods directly. The static methods taking an order look it up on
+ * every call.
+ *
+ * Invalid orders, pixels or angles throw an IllegalArgumentException.
+ */
+public final class HealpixKernel {
+
+    public static final int ORDER_MAX = HealpixBase.order_max;
+
+    private static final double TWOTHIRD = 2.0 / 3.0;
+    private static final double HALFPI = Math.PI / 2.0;
+    private static final double INV_HALFPI = 2.0 / Math.PI;
+
+    /** Ring index of the southernmost corner of each base face, in units of nside. */
+    private static final int[] JRLL = {
+            2, 2, 2, 2, 3, 3, 3, 3, 4, 4, 4, 4
+    };
+    /** Longitude index of the southernmost corner of each base face, in units of pi/4. */
+    private static final int[] JPLL = {
+            1, 3, 5, 7, 0, 2, 4, 6, 1, 3, 5, 7
+    };
+
+    /** Offsets of the SW, W, NW, N, NE, E, SE and S neighbours, in the order returned by neighbours. */
+    private static final int[] XOFFSET = {
+            -1, -1, 0, 1, 1, 1, 0, -1
+    };
+    private static final int[] YOFFSET = {
+            0, 1, 1, 1, 0, -1, -1, -1
+    };
+
+    /** Face reached when crossing a face boundary, indexed by direction (3 * dy + dx + 4) and source face. */
+    // @formatter:off
+    private static final int[][] FACEARRAY = {
+            {  8,  9, 10, 11, -1, -1, -1, -1, 10, 11,  8,  9 }, // S
+            {  5,  6,  7,  4,  8,  9, 10, 11,  9, 10, 11,  8 }, // SE
+            { -1, -1, -1, -1,  5,  6,  7,  4, -1, -1, -1, -1 }, // E
+            {  4,  5,  6,  7, 11,  8,  9, 10, 11,  8,  9, 10 }, // SW
+            {  0,  1,  2,  3,  4,  5,  6,  7,  8,  9, 10, 11 }, // center
+            {  1,  2,  3,  0,  0,  1,  2,  3,  5,  6,  7,  4 }, // NE
+            { -1, -1, -1, -1,  7,  4,  5,  6, -1, -1, -1, -1 }, // W
+            {  3,  0,  1,  2,  3,  0,  1,  2,  4,  5,  6,  7 }, // NW
+            {  2,  3,  0,  1, -1, -1, -1, -1,  0,  1,  2,  3 }, // N
+    };
+    /** Flips (1: x, 2: y) and swap (4) of the coordinates on the new face, indexed by direction and face row. */
+    private static final int[][] SWAPARRAY = {
+            { 0, 0, 3 }, // S
+            { 0, 0, 6 }, // SE
+            { 0, 0, 0 }, // E
+            { 0, 0, 5 }, // SW
+            { 0, 0, 0 }, // center
+            { 5, 0, 0 }, // NE
+            { 0, 0, 0 }, // W
+            { 6, 0, 0 }, // NW
+            { 3, 0, 0 }, // N
+    };
+    // @formatter:on
+
+    /** Bits of each byte moved to the even positions of a 16-bit word. */
+    private static final long[] SPREAD = new long[256];
+    /** Even bits of each byte packed into a nibble. */
+    private static final long[] COMPRESS = new long[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            long spread = 0;
+            long compress = 0;
+            for (int b = 0; b < 8; b++) {
+                spread |= (long) ((i >>> b) & 1) << (2 * b);
+            }
+            for (int b = 0; b < 4; b++) {
+                compress |= (long) ((i >>> (2 * b)) & 1) << b;
+            }
+            SPREAD[i] = spread;
+            COMPRESS[i] = compress;
+        }
+    }
+
+    private static final HealpixKernel[] KERNELS = new HealpixKernel[ORDER_MAX + 1];
+
+    static {
+        for (int order = 0; order <= ORDER_MAX; order++) {
+            KERNELS[order] = new HealpixKernel(order);
+        }
+    }
+
+    private final int order;
+    private final long nside;
+    private final long npface;
+    private final long npix;
+    private final long ncap;
+    private final long nl2;
+    private final long nl3;
+    private final long nl4;
+    private final double fact1;
+    private final double fact2;
+    /** Mask of the position of a NESTED pixel within its base face. */
+    private final long faceMask;
+    /** Ring index of the southernmost corner of each base face. */
+    private final long[] jrll = new long[12];
+
+    private HealpixKernel(int order) {
+        this.order = order;
+        nside = 1L << order;
+        npface = nside * nside;
+        npix = 12 * npface;
+        ncap = 2 * (npface - nside);
+        nl2 = 2 * nside;
+        nl3 = 3 * nside;
+        nl4 = 4 * nside;
+        fact2 = 4. / npix;
+        fact1 = (nside << 1) * fact2;
+        faceMask = npface - 1;
+        for (int face = 0; face < 12; face++) {
+            jrll[face] = (long) JRLL[face] << order;
+        }
+    }
+
+    /** @return the kernel of order, which must be in [0, ORDER_MAX]. */
+    public static HealpixKernel forOrder(int order) {
+        if (order < 0 || order > ORDER_MAX) {
+            throw new IllegalArgumentException("Invalid order: " + order);
+        }
+        return KERNELS[order];
+    }
+
+    /** @return the NSIDE parameter of order, which must be in [0, ORDER_MAX]. */
+    public static long nside(int order) {
+        return forOrder(order).nside;
+    }
+
+    private void checkPixel(long pix) {
+        if (pix < 0 || pix >= npix) {
+            throw new IllegalArgumentException("Invalid pixel at order " + order + ": " + pix);
+        }
+    }
+
+    /** Interleave the bits of x with zeros, so they end up at the even positions. */
+    static long spread(long x) {
+        return SPREAD[(int) (x & 0xff)] | (SPREAD[(int) ((x >>> 8) & 0xff)] << 16)
+                | (SPREAD[(int) ((x >>> 16) & 0xff)] << 32) | (SPREAD[(int) ((x >>> 24) & 0xff)] << 48);
+    }
+
+    /** Gather the even bits of w, the inverse of spread(). */
+    static long compress(long w) {
+        long x = 0;
+        for (int i = 0; i < 8; i++) {
+            x |= COMPRESS[(int) ((w >>> (8 * i)) & 0xff)] << (4 * i);
+        }
+        return x;
+    }
+
+    private static double fmodulo(double v1, double v2) {
+        if (v1 >= 0) {
+            return (v1 < v2) ? v1 : v1 % v2;
+        }
+        double tmp = v1 % v2 + v2;
+        return (tmp == v2) ? 0. : tmp;
+    }
+
+    private long xyf2nest(long ix, long iy, int face) {
+        return ((long) face << (2 * order)) + spread(ix) + (spread(iy) << 1);
+    }
+
+    private long xyf2ring(long ix, long iy, int face) {
+        long jr = jrll[face] - ix - iy - 1;
+
+        long nr;
+        long kshift;
+        long nbefore;
+        if (jr < nside) {
+            nr = jr;
+            nbefore = 2 * nr * (nr - 1);
+            kshift = 0;
+        } else if (jr > nl3) {
+            nr = nl4 - jr;
+            nbefore = npix - 2 * (nr + 1) * nr;
+            kshift = 0;
+        } else {
+            nr = nside;
+            nbefore = ncap + (jr - nside) * nl4;
+            kshift = (jr - nside) & 1;
+        }
+
+        long jp = ((long) JPLL[face] * nr + ix - iy + 1 + kshift) / 2;
+        if (jp > nl4) {
+            jp -= nl4;
+        } else if (jp < 1) {
+            jp += nl4;
+        }
+
+        return nbefore + jp - 1;
+    }
+
+    private static long isqrt(long arg) {
+        long res = (long) Math.sqrt(((double) arg) + 0.5);
+        if (arg < (1L << 50)) {
+            return res;
+        }
+        if (res * res > arg) {
+            --res;
+        } else if ((res + 1) * (res + 1) <= arg) {
+            ++res;
+        }
+        return res;
+    }
+
+    private long ring2nestUnchecked(long pix) {
+        long iring;
+        long iphi;
+        long kshift;
+        long nr;
+        int face;
+
+        if (pix < ncap) { // North polar cap
+            iring = (1 + isqrt(1 + 2 * pix)) >>> 1;
+            iphi = (pix + 1) - 2 * iring * (iring - 1);
+            kshift = 0;
+            nr = iring;
+            face = (int) ((iphi - 1) / nr);
+        } else if (pix < (npix - ncap)) { // Equatorial region
+            long ip = pix - ncap;
+            long tmp = ip >>> (order + 2);
+            iring = tmp + nside;
+            iphi = ip - tmp * nl4 + 1;
+            kshift = (iring + nside) & 1;
+            nr = nside;
+            long ire = tmp + 1;
+            long irm = nl2 + 1 - tmp;
+            long ifm = (iphi - (ire >>> 1) + nside - 1) >>> order;
+            long ifp = (iphi - (irm >>> 1) + nside - 1) >>> order;
+            face = (int) ((ifp == ifm) ? (ifp | 4) : ((ifp < ifm) ? ifp : (ifm + 8)));
+        } else { // South polar cap
+            long ip = npix - pix;
+            iring = (1 + isqrt(2 * ip - 1)) >>> 1;
+            iphi = 4 * iring + 1 - (ip - 2 * iring * (iring - 1));
+            kshift = 0;
+            nr = iring;
+            iring = nl4 - iring;
+            face = 8 + (int) ((iphi - 1) / nr);
+        }
+
+        long irt = iring - jrll[face] + 1;
+        long ipt = 2 * iphi - (long) JPLL[face] * nr - kshift - 1;
+        if (ipt >= nl2) {
+            ipt -= 8 * nside;
+        }
+
+        return xyf2nest((ipt - irt) >>> 1, (-ipt - irt) >>> 1, face);
+    }
+
+    private long loc2pix(double z, double phi, double sth, boolean haveSth, boolean nest) {
+        double za = Math.abs(z);
+        double tt = fmodulo(phi * INV_HALFPI, 4.0); // in [0,4)
+
+        if (nest) {
+            if (za <= TWOTHIRD) { // Equatorial region
+                double temp1 = nside * (0.5 + tt);
+                double temp2 = nside * (z * 0.75);
+                long jp = (long) (temp1 - temp2); // index of ascending edge line
+                long jm = (long) (temp1 + temp2); // index of descending edge line
+                long ifp = jp >>> order; // in {0,4}
+                long ifm = jm >>> order;
+                int face = (int) ((ifp == ifm) ? (ifp | 4) : ((ifp < ifm) ? ifp : (ifm + 8)));
+
+                long ix = jm & (nside - 1);
+                long iy = nside - (jp & (nside - 1)) - 1;
+                return xyf2nest(ix, iy, face);
+            } else { // Polar caps
+                int ntt = Math.min(3, (int) tt);
+                double tp = tt - ntt;
+                double tmp = ((za < 0.99) || !haveSth) ? nside * Math.sqrt(3 * (1 - za))
+                        : nside * sth / Math.sqrt((1. + za) / 3.);
+
+                long jp = (long) (tp * tmp); // increasing edge line index
+                long jm = (long) ((1.0 - tp) * tmp); // decreasing edge line index
+                jp = Math.min(jp, nside - 1); // for points too close to the boundary
+                jm = Math.min(jm, nside - 1);
+                return (z >= 0) ? xyf2nest(nside - jm - 1, nside - jp - 1, ntt)
+                        : xyf2nest(jp, jm, ntt + 8);
+            }
+        } else {
+            if (za <= TWOTHIRD) { // Equatorial region
+                double temp1 = nside * (0.5 + tt);
+                double temp2 = nside * z * 0.75;
+                long jp = (long) (temp1 - temp2); // index of ascending edge line
+                long jm = (long) (temp1 + temp2); // index of descending edge line
+
+                long ir = nside + 1 + jp - jm; // ring number counted from z=2/3
+                long kshift = 1 - (ir & 1); // kshift=1 if ir even, 0 otherwise
+
+                long t1 = jp + jm - nside + kshift + 1 + nl4 + nl4;
+                long ip = (t1 >>> 1) & (nl4 - 1); // in {0,4n-1}
+
+                return ncap + (ir - 1) * nl4 + ip;
+            } else { // Polar caps
+                double tp = tt - (long) tt;
+                double tmp = ((za < 0.99) || !haveSth) ? nside * Math.sqrt(3 * (1 - za))
+                        : nside * sth / Math.sqrt((1. + za) / 3.);
+
+                long jp = (long) (tp * tmp); // increasing edge line index
+                long jm = (long) ((1.0 - tp) * tmp); // decreasing edge line index
+
+                long ir = jp + jm + 1; // ring number counted from the closest pole
+                long ip = (long) (tt * ir); // in {0,4*ir-1}
+
+                return (z > 0) ? 2 * ir * (ir - 1) + ip : npix - 2 * ir * (ir + 1) + ip;
+            }
+        }
+    }
+
+    /**
+     * Compute z and phi of the center of pix into the first two entries of loc.
+     *
+     * @return the sine of the colatitude if it had to be computed accurately near the poles, NaN otherwise.
+     */
+    private double pix2loc(long pix, boolean nest, double[] loc) {
+        double z;
+        double phi;
+        double sth = Double.NaN;
+
+        if (nest) {
+            int face = (int) (pix >>> (2 * order));
+            long ix = compress(pix & faceMask);
+            long iy = compress((pix & faceMask) >>> 1);
+
+            long jr = jrll[face] - ix - iy - 1;
+
+            long nr;
+            if (jr < nside) {
+                nr = jr;
+                double tmp = (nr * nr) * fact2;
+                z = 1 - tmp;
+                if (z > 0.99) {
+                    sth = Math.sqrt(tmp * (2.0 - tmp));
+                }
+            } else if (jr > nl3) {
+                nr = nl4 - jr;
+                double tmp = (nr * nr) * fact2;
+                z = tmp - 1;
+                if (z < -0.99) {
+                    sth = Math.sqrt(tmp * (2. - tmp));
+                }
+            } else {
+                nr = nside;
+                z = (nl2 - jr) * fact1;
+            }
+
+            long tmp = (long) JPLL[face] * nr + ix - iy;
+            if (tmp < 0) {
+                tmp += 8 * nr;
+            } else if (tmp >= 8 * nr) {
+                tmp -= 8 * nr;
+            }
+            phi = (nr == nside) ? 0.75 * HALFPI * tmp * fact1 : (0.5 * HALFPI * tmp) / nr;
+        } else {
+            if (pix < ncap) { // North polar cap
+                long iring = (1 + isqrt(1 + 2 * pix)) >>> 1; // counted from N. pole
+                long iphi = (pix + 1) - 2 * iring * (iring - 1);
+
+                double tmp = (iring * iring) * fact2;
+                z = 1.0 - tmp;
+                if (z > 0.99) {
+                    sth = Math.sqrt(tmp * (2.0 - tmp));
+                }
+                phi = (iphi - 0.5) * HALFPI / iring;
+            } else if (pix < (npix - ncap)) { // Equatorial region
+                long ip = pix - ncap;
+                long tmp = ip >>> (order + 2);
+                long iring = tmp + nside;
+                long iphi = ip - nl4 * tmp + 1;
+                // 1 if iring+nside is odd, 1/2 otherwise
+                double fodd = ((iring + nside) & 1) != 0 ? 1 : 0.5;
+
+                z = (nl2 - iring) * fact1;
+                phi = (iphi - fodd) * Math.PI * 0.75 * fact1;
+            } else { // South polar cap
+                long ip = npix - pix;
+                long iring = (1 + isqrt(2 * ip - 1)) >>> 1; // counted from S. pole
+                long iphi = 4 * iring + 1 - (ip - 2 * iring * (iring - 1));
+
+                double tmp = (iring * iring) * fact2;
+                z = tmp - 1.0;
+                if (z < -0.99) {
+                    sth = Math.sqrt(tmp * (2.0 - tmp));
+                }
+                phi = (iphi - 0.5) * HALFPI / iring;
+            }
+        }
+
+        loc[0] = z;
+        loc[1] = phi;
+        return sth;
+    }
+
+    private long ang2pix(double theta, double phi, boolean nest) {
+        if (!(theta >= 0 && theta <= Math.PI)) {
+            throw new IllegalArgumentException("Invalid theta value: " + theta);
+        }
+
+        if ((theta < 0.01) || (theta > 3.14159 - 0.01)) {
+            return loc2pix(FastMath.cos(theta), phi, FastMath.sin(theta), true, nest);
+        } else {
+            return loc2pix(FastMath.cos(theta), phi, 0., false, nest);
+        }
+    }
+
+    public long ang2pixNest(double theta, double phi) {
+        return ang2pix(theta, phi, true);
+    }
+
+    public long ang2pixRing(double theta, double phi) {
+        return ang2pix(theta, phi, false);
+    }
+
+    public static long ang2pixNest(int order, double theta, double phi) {
+        return forOrder(order).ang2pix(theta, phi, true);
+    }
+
+    public static long ang2pixRing(int order, double theta, double phi) {
+        return forOrder(order).ang2pix(theta, phi, false);
+    }
+
+    private long vec2pix(double x, double y, double z, boolean nest) {
+        double xl = 1. / Math.sqrt(x * x + y * y + z * z);
+        double phi = FastMath.atan2(y, x);
+        double nz = z * xl;
+        if (Math.abs(nz) > 0.99) {
+            return loc2pix(nz, phi, Math.sqrt(x * x + y * y) * xl, true, nest);
+        } else {
+            return loc2pix(nz, phi, 0, false, nest);
+        }
+    }
+
+    public long vec2pixNest(double x, double y, double z) {
+        return vec2pix(x, y, z, true);
+    }
+
+    public long vec2pixRing(double x, double y, double z) {
+        return vec2pix(x, y, z, false);
+    }
+
+    public static long vec2pixNest(int order, double x, double y, double z) {
+        return forOrder(order).vec2pix(x, y, z, true);
+    }
+
+    public static long vec2pixRing(int order, double x, double y, double z) {
+        return forOrder(order).vec2pix(x, y, z, false);
+    }
+
+    private void pix2ang(long pix, boolean nest, double[] ang) {
+        checkPixel(pix);
+
+        double sth = pix2loc(pix, nest, ang);
+        double z = ang[0];
+        double st = Double.isNaN(sth) ? Math.sqrt((1.0 - z) * (1.0 + z)) : sth;
+        ang[0] = FastMath.atan2(st, z);
+    }
+
+    /** Write the colatitude and longitude of the center of pix into the first two entries of ang. */
+    public void pix2angNest(long pix, double[] ang) {
+        pix2ang(pix, true, ang);
+    }
+
+    /** Write the colatitude and longitude of the center of pix into the first two entries of ang. */
+    public static void pix2angNest(int order, long pix, double[] ang) {
+        forOrder(order).pix2ang(pix, true, ang);
+    }
+
+    /** Write the colatitude and longitude of the center of pix into the first two entries of ang. */
+    public void pix2angRing(long pix, double[] ang) {
+        pix2ang(pix, false, ang);
+    }
+
+    /** Write the colatitude and longitude of the center of pix into the first two entries of ang. */
+    public static void pix2angRing(int order, long pix, double[] ang) {
+        forOrder(order).pix2ang(pix, false, ang);
+    }
+
+    private void pix2vec(long pix, boolean nest, double[] vec) {
+        checkPixel(pix);
+
+        double sth = pix2loc(pix, nest, vec);
+        double z = vec[0];
+        double phi = vec[1];
+        double st = Double.isNaN(sth) ? Math.sqrt((1.0 - z) * (1.0 + z)) : sth;
+        vec[0] = st * FastMath.cos(phi);
+        vec[1] = st * FastMath.sin(phi);
+        vec[2] = z;
+    }
+
+    /** Write the unit vector to the center of pix into the first three entries of vec. */
+    public void pix2vecNest(long pix, double[] vec) {
+        pix2vec(pix, true, vec);
+    }
+
+    /** Write the unit vector to the center of pix into the first three entries of vec. */
+    public static void pix2vecNest(int order, long pix, double[] vec) {
+        forOrder(order).pix2vec(pix, true, vec);
+    }
+
+    /** Write the unit vector to the center of pix into the first three entries of vec. */
+    public void pix2vecRing(long pix, double[] vec) {
+        pix2vec(pix, false, vec);
+    }
+
+    /** Write the unit vector to the center of pix into the first three entries of vec. */
+    public static void pix2vecRing(int order, long pix, double[] vec) {
+        forOrder(order).pix2vec(pix, false, vec);
+    }
+
+    public long nest2ring(long pix) {
+        checkPixel(pix);
+
+        long p = pix & faceMask;
+        return xyf2ring(compress(p), compress(p >>> 1), (int) (pix >>> (2 * order)));
+    }
+
+    public long ring2nest(long pix) {
+        checkPixel(pix);
+
+        return ring2nestUnchecked(pix);
+    }
+
+    public static long nest2ring(int order, long pix) {
+        return forOrder(order).nest2ring(pix);
+    }
+
+    public static long ring2nest(int order, long pix) {
+        return forOrder(order).ring2nest(pix);
+    }
+
+    private void neighbours(long pix, boolean nest, long[] result) {
+        checkPixel(pix);
+
+        long ipnest = nest ? pix : ring2nestUnchecked(pix);
+        int face = (int) (ipnest >>> (2 * order));
+        long p = ipnest & faceMask;
+        long ix = compress(p);
+        long iy = compress(p >>> 1);
+
+        long nsm1 = nside - 1;
+        if ((ix > 0) && (ix < nsm1) && (iy > 0) && (iy < nsm1)) {
+            if (nest) {
+                long fpix = (long) face << (2 * order);
+                long px0 = spread(ix), py0 = spread(iy) << 1;
+                long pxp = spread(ix + 1), pyp = spread(iy + 1) << 1;
+                long pxm = spread(ix - 1), pym = spread(iy - 1) << 1;
+
+                result[0] = fpix + pxm + py0;
+                result[1] = fpix + pxm + pyp;
+                result[2] = fpix + px0 + pyp;
+                result[3] = fpix + pxp + pyp;
+                result[4] = fpix + pxp + py0;
+                result[5] = fpix + pxp + pym;
+                result[6] = fpix + px0 + pym;
+                result[7] = fpix + pxm + pym;
+            } else {
+                for (int m = 0; m < 8; m++) {
+                    result[m] = xyf2ring(ix + XOFFSET[m], iy + YOFFSET[m], face);
+                }
+            }
+        } else {
+            for (int i = 0; i < 8; i++) {
+                long x = ix + XOFFSET[i];
+                long y = iy + YOFFSET[i];
+                int nbnum = 4;
+                if (x < 0) {
+                    x += nside;
+                    nbnum -= 1;
+                } else if (x >= nside) {
+                    x -= nside;
+                    nbnum += 1;
+                }
+                if (y < 0) {
+                    y += nside;
+                    nbnum -= 3;
+                } else if (y >= nside) {
+                    y -= nside;
+                    nbnum += 3;
+                }
+
+                int f = FACEARRAY[nbnum][face];
+                if (f >= 0) {
+                    int bits = SWAPARRAY[nbnum][face >>> 2];
+                    if ((bits & 1) > 0) {
+                        x = nside - x - 1;
+                    }
+                    if ((bits & 2) > 0) {
+                        y = nside - y - 1;
+                    }
+                    if ((bits & 4) > 0) {
+                        long tmp = x;
+                        x = y;
+                        y = tmp;
+                    }
+                    result[i] = nest ? xyf2nest(x, y, f) : xyf2ring(x, y, f);
+                } else {
+                    result[i] = -1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the SW, W, NW, N, NE, E, SE and S neighbours of pix into the first eight entries of result, or -1 for
+     * those that do not exist.
+     */
+    public void neighboursNest(long pix, long[] result) {
+        neighbours(pix, true, result);
+    }
+
+    /**
+     * Write the SW, W, NW, N, NE, E, SE and S neighbours of pix into the first eight entries of result, or -1 for
+     * those that do not exist.
+     */
+    public static void neighboursNest(int order, long pix, long[] result) {
+        forOrder(order).neighbours(pix, true, result);
+    }
+
+    /**
+     * Write the SW, W, NW, N, NE, E, SE and S neighbours of pix into the first eight entries of result, or -1 for
+     * those that do not exist.
+     */
+    public void neighboursRing(long pix, long[] result) {
+        neighbours(pix, false, result);
+    }
+
+    /**
+     * Write the SW, W, NW, N, NE, E, SE and S neighbours of pix into the first eight entries of result, or -1 for
+     * those that do not exist.
+     */
+    public static void neighboursRing(int order, long pix, long[] result) {
+        forOrder(order).neighbours(pix, false, result);
+    }
+}
@@ -3,6 +3,7 @@ package es.pic.hadoop.udf.healpix;
 import org.apache.hadoop.hive.ql.exec.Description;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedExpressions;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.udf.UDFType;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
@@ -15,9 +16,6 @@ import org.apache.hadoop.io.BooleanWritable;
 import org.apache.hadoop.hive.serde2.io.ByteWritable;
 import org.apache.hadoop.io.LongWritable;
 
-import healpix.essentials.HealpixProc;
-import healpix.essentials.Pointing;
-
 // @formatter:off
 @Description(
     name = "ang2pix",
@@ -28,6 +26,7 @@ import healpix.essentials.Pointing;
     deterministic = true,
     stateful = false
 )
+@VectorizedExpressions({VectorAng2Pix.class})
 // @formatter:on
 public class UDFAng2Pix extends GenericUDF {
     Converter orderConverter;
@@ -44,19 +43,23 @@ public class UDFAng2Pix extends GenericUDF {
     ByteWritable orderArg;
     DoubleWritable thetaArg;
     DoubleWritable phiArg;
-    BooleanWritable nestArg = new BooleanWritable();
-    BooleanWritable lonlatArg = new BooleanWritable();
+    BooleanWritable nestArg;
+    BooleanWritable lonlatArg;
     // Alias
     DoubleWritable raArg;
     DoubleWritable decArg;
 
-    byte order;
     double theta;
     double phi;
     boolean nest;
     boolean lonlat;
 
-    long ipix;
+    LongWritable ipix = new LongWritable();
+
+    // Constant arguments are read once in initialize; kernel is null if the order changes from row to row
+    HealpixKernel kernel;
+    boolean constantNest;
+    boolean constantLonlat;
 
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
@@ -76,29 +79,36 @@ public class UDFAng2Pix extends GenericUDF {
             lonlatConverter = ObjectInspectorConverters.getConverter(arguments[4], boolOI);
         }
 
+        kernel = HealpixArguments.constantKernel(arguments[0], orderConverter);
+        nestArg = HealpixArguments.constantFlag(arguments, 3, nestConverter);
+        lonlatArg = HealpixArguments.constantFlag(arguments, 4, lonlatConverter);
+        constantNest = nestArg != null;
+        constantLonlat = lonlatArg != null;
+
         return longOI;
     }
 
     @Override
     public Object evaluate(DeferredObject[] arguments) throws HiveException {
-        orderArg = (ByteWritable) orderConverter.convert(arguments[0].get());
+        if (kernel == null) {
+            orderArg = (ByteWritable) orderConverter.convert(arguments[0].get());
+        }
         thetaArg = (DoubleWritable) thetaConverter.convert(arguments[1].get());
         phiArg = (DoubleWritable) phiConverter.convert(arguments[2].get());
         // Alias
         raArg = thetaArg;
         decArg = phiArg;
 
-        if (arguments.length >= 4) {
+        if (!constantNest) {
             nestArg = (BooleanWritable) nestConverter.convert(arguments[3].get());
         }
-        if (arguments.length == 5) {
+        if (!constantLonlat) {
             lonlatArg = (BooleanWritable) lonlatConverter.convert(arguments[4].get());
         }
-        if (orderArg == null || thetaArg == null || phiArg == null) {
+        if ((kernel == null && orderArg == null) || thetaArg == null || phiArg == null) {
             return null;
         }
 
-        order = orderArg.get();
         nest = nestArg.get();
         lonlat = lonlatArg.get();
 
@@ -111,16 +121,17 @@ public class UDFAng2Pix extends GenericUDF {
         }
 
         try {
+            HealpixKernel kernel = this.kernel != null ? this.kernel : HealpixKernel.forOrder(orderArg.get());
             if (nest) {
-                ipix = HealpixProc.ang2pixNest(order, new Pointing(theta, phi));
+                ipix.set(kernel.ang2pixNest(theta, phi));
             } else {
-                ipix = HealpixProc.ang2pixRing(order, new Pointing(theta, phi));
+                ipix.set(kernel.ang2pixRing(theta, phi));
             }
-        } catch (Exception e) {
+        } catch (IllegalArgumentException e) {
             throw new HiveException(e);
         }
 
-        return new LongWritable(ipix);
+        return ipix;
     }
 
     @Override
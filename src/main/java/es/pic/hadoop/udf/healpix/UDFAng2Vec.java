@@ -1,6 +1,7 @@
 package es.pic.hadoop.udf.healpix;
 
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.hadoop.hive.ql.exec.Description;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
@@ -49,6 +50,7 @@ public class UDFAng2Vec extends GenericUDF {
     DoubleWritable x = new DoubleWritable();
     DoubleWritable y = new DoubleWritable();
     DoubleWritable z = new DoubleWritable();
+    List<DoubleWritable> result = Arrays.asList(x, y, z);
 
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
@@ -92,11 +94,13 @@ public class UDFAng2Vec extends GenericUDF {
             phi = phiArg.get();
         }
 
-        x.set(Math.sin(theta) * Math.cos(phi));
-        y.set(Math.sin(theta) * Math.sin(phi));
+        double sth = Math.sin(theta);
+
+        x.set(sth * Math.cos(phi));
+        y.set(sth * Math.sin(phi));
         z.set(Math.cos(theta));
 
-        return Arrays.asList(x, y, z);
+        return result;
     }
 
     @Override
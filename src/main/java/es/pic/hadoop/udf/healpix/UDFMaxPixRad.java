@@ -37,6 +37,8 @@ public class UDFMaxPixRad extends GenericUDF {
     int order;
     double radius;
 
+    DoubleWritable result = new DoubleWritable();
+
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
         if (arguments.length != 1) {
@@ -64,7 +66,9 @@ public class UDFMaxPixRad extends GenericUDF {
             throw new HiveException(e);
         }
 
-        return new DoubleWritable(radius);
+        result.set(radius);
+
+        return result;
     }
 
     @Override
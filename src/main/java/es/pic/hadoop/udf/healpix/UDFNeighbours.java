@@ -1,6 +1,7 @@
 package es.pic.hadoop.udf.healpix;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.hadoop.hive.ql.exec.Description;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
@@ -17,8 +18,6 @@ import org.apache.hadoop.io.BooleanWritable;
 import org.apache.hadoop.hive.serde2.io.ByteWritable;
 import org.apache.hadoop.io.LongWritable;
 
-import healpix.essentials.HealpixProc;
-
 // @formatter:off
 @Description(
     name = "neighbours",
@@ -41,14 +40,25 @@ public class UDFNeighbours extends GenericUDF {
 
     ByteWritable orderArg;
     LongWritable ipixArg;
-    BooleanWritable nestArg = new BooleanWritable();
+    BooleanWritable nestArg;
 
     byte order;
     long ipix;
     boolean nest;
 
-    long[] neighbours;
-    ArrayList<LongWritable> result = new ArrayList<LongWritable>();
+    long[] neighbours = new long[8];
+    LongWritable[] pixels = new LongWritable[8];
+    List<LongWritable> result = Arrays.asList(pixels);
+
+    // Constant arguments are read once in initialize; kernel is null if the order changes from row to row
+    HealpixKernel kernel;
+    boolean constantNest;
+
+    public UDFNeighbours() {
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = new LongWritable();
+        }
+    }
 
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
@@ -64,41 +74,45 @@ public class UDFNeighbours extends GenericUDF {
             nestConverter = ObjectInspectorConverters.getConverter(arguments[2], boolOI);
         }
 
+        kernel = HealpixArguments.constantKernel(arguments[0], orderConverter);
+        nestArg = HealpixArguments.constantFlag(arguments, 2, nestConverter);
+        constantNest = nestArg != null;
+
         return ObjectInspectorFactory.getStandardListObjectInspector(longOI);
     }
 
     @Override
     public Object evaluate(DeferredObject[] arguments) throws HiveException {
-        orderArg = (ByteWritable) orderConverter.convert(arguments[0].get());
+        if (kernel == null) {
+            orderArg = (ByteWritable) orderConverter.convert(arguments[0].get());
+        }
         ipixArg = (LongWritable) ipixConverter.convert(arguments[1].get());
 
-        if (arguments.length == 3) {
+        if (!constantNest) {
             nestArg = (BooleanWritable) nestConverter.convert(arguments[2].get());
         }
-        if (orderArg == null || ipixArg == null) {
+        if ((kernel == null && orderArg == null) || ipixArg == null) {
             return null;
         }
 
-        order = orderArg.get();
         ipix = ipixArg.get();
         nest = nestArg.get();
 
-        long[] neighbours;
         try {
+            HealpixKernel kernel = this.kernel != null ? this.kernel : HealpixKernel.forOrder(orderArg.get());
             if (nest == true) {
-                neighbours = HealpixProc.neighboursNest(order, ipix);
+                kernel.neighboursNest(ipix, neighbours);
             } else {
-                neighbours = HealpixProc.neighboursRing(order, ipix);
-            }
-
-            result.clear();
-            for (int i = 0; i < 8; i++) {
-                result.add(new LongWritable(neighbours[i]));
+                kernel.neighboursRing(ipix, neighbours);
             }
-        } catch (Exception e) {
+        } catch (IllegalArgumentException e) {
             throw new HiveException(e);
         }
 
+        for (int i = 0; i < 8; i++) {
+            pixels[i].set(neighbours[i]);
+        }
+
         return result;
     }
 
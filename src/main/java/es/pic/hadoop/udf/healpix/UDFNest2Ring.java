@@ -3,6 +3,7 @@ package es.pic.hadoop.udf.healpix;
 import org.apache.hadoop.hive.ql.exec.Description;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedExpressions;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.udf.UDFType;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
@@ -13,8 +14,6 @@ import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectIn
 import org.apache.hadoop.hive.serde2.io.ByteWritable;
 import org.apache.hadoop.io.LongWritable;
 
-import healpix.essentials.HealpixProc;
-
 // @formatter:off
 @Description(
     name = "nest2ring",
@@ -25,6 +24,7 @@ import healpix.essentials.HealpixProc;
     deterministic = true,
     stateful = false
 )
+@VectorizedExpressions({VectorNest2Ring.class})
 // @formatter:on
 public class UDFNest2Ring extends GenericUDF {
     Converter orderConverter;
@@ -36,10 +36,14 @@ public class UDFNest2Ring extends GenericUDF {
     ByteWritable orderArg;
     LongWritable ipixNestArg;
 
-    byte order;
     long ipixnest;
     long ipixring;
 
+    LongWritable result = new LongWritable();
+
+    // A constant order is read once in initialize; kernel is null if the order changes from row to row
+    HealpixKernel kernel;
+
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
         if (arguments.length != 2) {
@@ -49,28 +53,34 @@ public class UDFNest2Ring extends GenericUDF {
         orderConverter = ObjectInspectorConverters.getConverter(arguments[0], byteOI);
         ipixNestConverter = ObjectInspectorConverters.getConverter(arguments[1], longOI);
 
+        kernel = HealpixArguments.constantKernel(arguments[0], orderConverter);
+
         return longOI;
     }
 
     @Override
     public Object evaluate(DeferredObject[] arguments) throws HiveException {
-        orderArg = (ByteWritable) orderConverter.convert(arguments[0].get());
+        if (kernel == null) {
+            orderArg = (ByteWritable) orderConverter.convert(arguments[0].get());
+        }
         ipixNestArg = (LongWritable) ipixNestConverter.convert(arguments[1].get());
 
-        if (orderArg == null || ipixNestArg == null) {
+        if ((kernel == null && orderArg == null) || ipixNestArg == null) {
             return null;
         }
 
-        order = orderArg.get();
         ipixnest = ipixNestArg.get();
 
         try {
-            ipixring = HealpixProc.nest2ring(order, ipixnest);
-        } catch (Exception e) {
+            HealpixKernel kernel = this.kernel != null ? this.kernel : HealpixKernel.forOrder(orderArg.get());
+            ipixring = kernel.nest2ring(ipixnest);
+        } catch (IllegalArgumentException e) {
             throw new HiveException(e);
         }
 
-        return new LongWritable(ipixring);
+        result.set(ipixring);
+
+        return result;
     }
 
     @Override
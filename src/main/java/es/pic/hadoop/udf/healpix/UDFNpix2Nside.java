@@ -37,6 +37,8 @@ public class UDFNpix2Nside extends GenericUDF {
     long npix;
     long nside;
 
+    IntWritable result = new IntWritable();
+
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
         if (arguments.length != 1) {
@@ -64,7 +66,9 @@ public class UDFNpix2Nside extends GenericUDF {
             throw new HiveException(e);
         }
 
-        return new IntWritable(Math.toIntExact(nside));
+        result.set(Math.toIntExact(nside));
+
+        return result;
     }
 
     @Override
@@ -37,6 +37,8 @@ public class UDFNside2Npix extends GenericUDF {
     int nside;
     long npix;
 
+    LongWritable result = new LongWritable();
+
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
         if (arguments.length != 1) {
@@ -64,7 +66,9 @@ public class UDFNside2Npix extends GenericUDF {
             throw new HiveException(e);
         }
 
-        return new LongWritable(npix);
+        result.set(npix);
+
+        return result;
     }
 
     @Override
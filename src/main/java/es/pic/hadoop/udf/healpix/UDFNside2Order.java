@@ -37,6 +37,8 @@ public class UDFNside2Order extends GenericUDF {
     int nside;
     int order;
 
+    ByteWritable result = new ByteWritable();
+
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
         if (arguments.length != 1) {
@@ -64,7 +66,9 @@ public class UDFNside2Order extends GenericUDF {
             throw new HiveException(e);
         }
 
-        return new ByteWritable((byte) order);
+        result.set((byte) order);
+
+        return result;
     }
 
     @Override
@@ -1,10 +1,12 @@
 package es.pic.hadoop.udf.healpix;
 
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.hadoop.hive.ql.exec.Description;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedExpressions;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.udf.UDFType;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
@@ -18,9 +20,6 @@ import org.apache.hadoop.io.BooleanWritable;
 import org.apache.hadoop.hive.serde2.io.ByteWritable;
 import org.apache.hadoop.io.LongWritable;
 
-import healpix.essentials.HealpixProc;
-import healpix.essentials.Pointing;
-
 // @formatter:off
 @Description(
     name = "pix2ang",
@@ -31,6 +30,7 @@ import healpix.essentials.Pointing;
     deterministic = true,
     stateful = false
 )
+@VectorizedExpressions({VectorPix2Ang.class, VectorPix2AngNest.class})
 // @formatter:on
 public class UDFPix2Ang extends GenericUDF {
     Converter orderConverter;
@@ -45,19 +45,25 @@ public class UDFPix2Ang extends GenericUDF {
 
     ByteWritable orderArg;
     LongWritable ipixArg;
-    BooleanWritable nestArg = new BooleanWritable();
-    BooleanWritable lonlatArg = new BooleanWritable();
+    BooleanWritable nestArg;
+    BooleanWritable lonlatArg;
 
-    byte order;
     long ipix;
     boolean nest;
     boolean lonlat;
-    Pointing pt;
+    double[] ang = new double[2];
 
     DoubleWritable theta = new DoubleWritable();
     DoubleWritable phi = new DoubleWritable();
     DoubleWritable ra = new DoubleWritable();
     DoubleWritable dec = new DoubleWritable();
+    List<DoubleWritable> angles = Arrays.asList(theta, phi);
+    List<DoubleWritable> radec = Arrays.asList(ra, dec);
+
+    // Constant arguments are read once in initialize; kernel is null if the order changes from row to row
+    HealpixKernel kernel;
+    boolean constantNest;
+    boolean constantLonlat;
 
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
@@ -76,47 +82,55 @@ public class UDFPix2Ang extends GenericUDF {
             lonlatConverter = ObjectInspectorConverters.getConverter(arguments[3], boolOI);
         }
 
+        kernel = HealpixArguments.constantKernel(arguments[0], orderConverter);
+        nestArg = HealpixArguments.constantFlag(arguments, 2, nestConverter);
+        lonlatArg = HealpixArguments.constantFlag(arguments, 3, lonlatConverter);
+        constantNest = nestArg != null;
+        constantLonlat = lonlatArg != null;
+
         return ObjectInspectorFactory.getStandardListObjectInspector(doubleOI);
     }
 
     @Override
     public Object evaluate(DeferredObject[] arguments) throws HiveException {
-        orderArg = (ByteWritable) orderConverter.convert(arguments[0].get());
+        if (kernel == null) {
+            orderArg = (ByteWritable) orderConverter.convert(arguments[0].get());
+        }
         ipixArg = (LongWritable) ipixConverter.convert(arguments[1].get());
 
-        if (arguments.length >= 3) {
+        if (!constantNest) {
             nestArg = (BooleanWritable) nestConverter.convert(arguments[2].get());
         }
-        if (arguments.length == 4) {
+        if (!constantLonlat) {
             lonlatArg = (BooleanWritable) lonlatConverter.convert(arguments[3].get());
         }
-        if (orderArg == null || ipixArg == null) {
+        if ((kernel == null && orderArg == null) || ipixArg == null) {
             return null;
         }
 
-        order = orderArg.get();
         ipix = ipixArg.get();
         nest = nestArg.get();
         lonlat = lonlatArg.get();
 
         try {
+            HealpixKernel kernel = this.kernel != null ? this.kernel : HealpixKernel.forOrder(orderArg.get());
             if (nest == true) {
-                pt = HealpixProc.pix2angNest(order, ipix);
+                kernel.pix2angNest(ipix, ang);
             } else {
-                pt = HealpixProc.pix2angRing(order, ipix);
+                kernel.pix2angRing(ipix, ang);
             }
-        } catch (Exception e) {
+        } catch (IllegalArgumentException e) {
             throw new HiveException(e);
         }
 
         if (lonlat) {
-            dec.set(90 - pt.theta * 180 / Math.PI);
-            ra.set(pt.phi * 180 / Math.PI);
-            return Arrays.asList(ra, dec);
+            dec.set(90 - ang[0] * 180 / Math.PI);
+            ra.set(ang[1] * 180 / Math.PI);
+            return radec;
         } else {
-            theta.set(pt.theta);
-            phi.set(pt.phi);
-            return Arrays.asList(theta, phi);
+            theta.set(ang[0]);
+            phi.set(ang[1]);
+            return angles;
         }
     }
 
@@ -1,6 +1,7 @@
 package es.pic.hadoop.udf.healpix;
 
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.hadoop.hive.ql.exec.Description;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
@@ -18,9 +19,6 @@ import org.apache.hadoop.io.BooleanWritable;
 import org.apache.hadoop.hive.serde2.io.ByteWritable;
 import org.apache.hadoop.io.LongWritable;
 
-import healpix.essentials.HealpixProc;
-import healpix.essentials.Vec3;
-
 // @formatter:off
 @Description(
     name = "pix2vec",
@@ -44,15 +42,21 @@ public class UDFPix2Vec extends GenericUDF {
 
     ByteWritable orderArg;
     LongWritable ipixArg;
-    BooleanWritable nestArg = new BooleanWritable();
+    BooleanWritable nestArg;
 
-    byte order;
     long ipix;
     boolean nest;
 
     DoubleWritable x = new DoubleWritable();
     DoubleWritable y = new DoubleWritable();
     DoubleWritable z = new DoubleWritable();
+    List<DoubleWritable> result = Arrays.asList(x, y, z);
+
+    double[] vec = new double[3];
+
+    // Constant arguments are read once in initialize; kernel is null if the order changes from row to row
+    HealpixKernel kernel;
+    boolean constantNest;
 
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
@@ -68,41 +72,46 @@ public class UDFPix2Vec extends GenericUDF {
             nestConverter = ObjectInspectorConverters.getConverter(arguments[2], boolOI);
         }
 
+        kernel = HealpixArguments.constantKernel(arguments[0], orderConverter);
+        nestArg = HealpixArguments.constantFlag(arguments, 2, nestConverter);
+        constantNest = nestArg != null;
+
         return ObjectInspectorFactory.getStandardListObjectInspector(doubleOI);
     }
 
     @Override
     public Object evaluate(DeferredObject[] arguments) throws HiveException {
-        orderArg = (ByteWritable) orderConverter.convert(arguments[0].get());
+        if (kernel == null) {
+            orderArg = (ByteWritable) orderConverter.convert(arguments[0].get());
+        }
         ipixArg = (LongWritable) ipixConverter.convert(arguments[1].get());
 
-        if (arguments.length == 3) {
+        if (!constantNest) {
             nestArg = (BooleanWritable) nestConverter.convert(arguments[2].get());
         }
-        if (orderArg == null || ipixArg == null) {
+        if ((kernel == null && orderArg == null) || ipixArg == null) {
             return null;
         }
 
-        order = orderArg.get();
         ipix = ipixArg.get();
         nest = nestArg.get();
 
-        Vec3 vec = new Vec3();
         try {
+            HealpixKernel kernel = this.kernel != null ? this.kernel : HealpixKernel.forOrder(orderArg.get());
             if (nest == true) {
-                vec = HealpixProc.pix2vecNest(order, ipix);
+                kernel.pix2vecNest(ipix, vec);
             } else {
-                vec = HealpixProc.pix2vecRing(order, ipix);
+                kernel.pix2vecRing(ipix, vec);
             }
-        } catch (Exception e) {
+        } catch (IllegalArgumentException e) {
             throw new HiveException(e);
         }
 
-        x.set(vec.x);
-        y.set(vec.y);
-        z.set(vec.z);
+        x.set(vec[0]);
+        y.set(vec[1]);
+        z.set(vec[2]);
 
-        return Arrays.asList(x, y, z);
+        return result;
     }
 
     @Override
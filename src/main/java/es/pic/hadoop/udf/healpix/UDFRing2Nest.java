@@ -3,6 +3,7 @@ package es.pic.hadoop.udf.healpix;
 import org.apache.hadoop.hive.ql.exec.Description;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedExpressions;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.udf.UDFType;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
@@ -13,8 +14,6 @@ import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectIn
 import org.apache.hadoop.hive.serde2.io.ByteWritable;
 import org.apache.hadoop.io.LongWritable;
 
-import healpix.essentials.HealpixProc;
-
 // @formatter:off
 @Description(
     name = "ring2nest",
@@ -25,6 +24,7 @@ import healpix.essentials.HealpixProc;
     deterministic = true,
     stateful = false
 )
+@VectorizedExpressions({VectorRing2Nest.class})
 // @formatter:on
 public class UDFRing2Nest extends GenericUDF {
     Converter orderConverter;
@@ -36,10 +36,14 @@ public class UDFRing2Nest extends GenericUDF {
     ByteWritable orderArg;
     LongWritable ipixRingArg;
 
-    byte order;
     long ipixRing;
     long ipixNest;
 
+    LongWritable result = new LongWritable();
+
+    // A constant order is read once in initialize; kernel is null if the order changes from row to row
+    HealpixKernel kernel;
+
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
         if (arguments.length != 2) {
@@ -49,28 +53,34 @@ public class UDFRing2Nest extends GenericUDF {
         orderConverter = ObjectInspectorConverters.getConverter(arguments[0], byteOI);
         ipixRingConverter = ObjectInspectorConverters.getConverter(arguments[1], longOI);
 
+        kernel = HealpixArguments.constantKernel(arguments[0], orderConverter);
+
         return longOI;
     }
 
     @Override
     public Object evaluate(DeferredObject[] arguments) throws HiveException {
-        orderArg = (ByteWritable) orderConverter.convert(arguments[0].get());
+        if (kernel == null) {
+            orderArg = (ByteWritable) orderConverter.convert(arguments[0].get());
+        }
         ipixRingArg = (LongWritable) ipixRingConverter.convert(arguments[1].get());
 
-        if (orderArg == null || ipixRingArg == null) {
+        if ((kernel == null && orderArg == null) || ipixRingArg == null) {
             return null;
         }
 
-        order = orderArg.get();
         ipixRing = ipixRingArg.get();
 
         try {
-            ipixNest = HealpixProc.ring2nest(order, ipixRing);
-        } catch (Exception e) {
+            HealpixKernel kernel = this.kernel != null ? this.kernel : HealpixKernel.forOrder(orderArg.get());
+            ipixNest = kernel.ring2nest(ipixRing);
+        } catch (IllegalArgumentException e) {
             throw new HiveException(e);
         }
 
-        return new LongWritable(ipixNest);
+        result.set(ipixNest);
+
+        return result;
     }
 
     @Override
@@ -1,6 +1,7 @@
 package es.pic.hadoop.udf.healpix;
 
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.hadoop.hive.ql.exec.Description;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
@@ -50,6 +51,8 @@ public class UDFVec2Ang extends GenericUDF {
     DoubleWritable phi = new DoubleWritable();
     DoubleWritable ra = new DoubleWritable();
     DoubleWritable dec = new DoubleWritable();
+    List<DoubleWritable> angles = Arrays.asList(theta, phi);
+    List<DoubleWritable> radec = Arrays.asList(ra, dec);
 
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
@@ -88,7 +91,7 @@ public class UDFVec2Ang extends GenericUDF {
 
         lonlat = lonlatArg.get();
 
-        double dnorm = Math.sqrt(Math.pow(x, 2) + Math.pow(y, 2) + Math.pow(z, 2));
+        double dnorm = Math.sqrt(x * x + y * y + z * z);
 
         theta.set(Math.acos(z / dnorm));
         phi.set(Math.atan2(y, x));
@@ -99,9 +102,9 @@ public class UDFVec2Ang extends GenericUDF {
         if (lonlat) {
             dec.set(90 - theta.get() * 180 / Math.PI);
             ra.set(phi.get() * 180 / Math.PI);
-            return Arrays.asList(ra, dec);
+            return radec;
         } else {
-            return Arrays.asList(theta, phi);
+            return angles;
         }
     }
 
@@ -15,9 +15,6 @@ import org.apache.hadoop.io.BooleanWritable;
 import org.apache.hadoop.hive.serde2.io.ByteWritable;
 import org.apache.hadoop.io.LongWritable;
 
-import healpix.essentials.HealpixProc;
-import healpix.essentials.Vec3;
-
 // @formatter:off
 @Description(
     name = "vec2pix",
@@ -45,15 +42,18 @@ public class UDFVec2Pix extends GenericUDF {
     DoubleWritable xArg;
     DoubleWritable yArg;
     DoubleWritable zArg;
-    BooleanWritable nestArg = new BooleanWritable();
+    BooleanWritable nestArg;
 
-    byte order;
     double x;
     double y;
     double z;
     boolean nest;
 
-    long ipix;
+    LongWritable ipix = new LongWritable();
+
+    // Constant arguments are read once in initialize; kernel is null if the order changes from row to row
+    HealpixKernel kernel;
+    boolean constantNest;
 
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
@@ -71,24 +71,29 @@ public class UDFVec2Pix extends GenericUDF {
             nestConverter = ObjectInspectorConverters.getConverter(arguments[4], boolOI);
         }
 
+        kernel = HealpixArguments.constantKernel(arguments[0], orderConverter);
+        nestArg = HealpixArguments.constantFlag(arguments, 4, nestConverter);
+        constantNest = nestArg != null;
+
         return longOI;
     }
 
     @Override
     public Object evaluate(DeferredObject[] arguments) throws HiveException {
-        orderArg = (ByteWritable) orderConverter.convert(arguments[0].get());
+        if (kernel == null) {
+            orderArg = (ByteWritable) orderConverter.convert(arguments[0].get());
+        }
         xArg = (DoubleWritable) xConverter.convert(arguments[1].get());
         yArg = (DoubleWritable) yConverter.convert(arguments[2].get());
         zArg = (DoubleWritable) zConverter.convert(arguments[3].get());
 
-        if (arguments.length == 5) {
+        if (!constantNest) {
             nestArg = (BooleanWritable) nestConverter.convert(arguments[4].get());
         }
-        if (xArg == null || yArg == null || zArg == null) {
+        if ((kernel == null && orderArg == null) || xArg == null || yArg == null || zArg == null) {
             return null;
         }
 
-        order = orderArg.get();
         x = xArg.get();
         y = yArg.get();
         z = zArg.get();
@@ -96,16 +101,17 @@ public class UDFVec2Pix extends GenericUDF {
         nest = nestArg.get();
 
         try {
+            HealpixKernel kernel = this.kernel != null ? this.kernel : HealpixKernel.forOrder(orderArg.get());
             if (nest) {
-                ipix = HealpixProc.vec2pixNest(order, new Vec3(x, y, z));
+                ipix.set(kernel.vec2pixNest(x, y, z));
             } else {
-                ipix = HealpixProc.vec2pixRing(order, new Vec3(x, y, z));
+                ipix.set(kernel.vec2pixRing(x, y, z));
             }
-        } catch (Exception e) {
+        } catch (IllegalArgumentException e) {
             throw new HiveException(e);
         }
 
-        return new LongWritable(ipix);
+        return ipix;
     }
 
     @Override
@@ -0,0 +1,119 @@
+package es.pic.hadoop.udf.healpix;
+
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorExpressionDescriptor;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+
+/**
+ * Vectorized ang2pix(order, theta, phi) for a constant order and two columns of angles in radians, returning RING
+ * pixels. Hive only looks up vectorized expressions for calls with at most three arguments, so the nest and lonlat
+ * flags are left to row mode.
+ */
+public class VectorAng2Pix extends VectorExpression {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long order;
+    private final int thetaColumn;
+    private final int phiColumn;
+
+    public VectorAng2Pix(long order, int thetaColumn, int phiColumn, int outputColumnNum) {
+        super(outputColumnNum);
+        this.order = order;
+        this.thetaColumn = thetaColumn;
+        this.phiColumn = phiColumn;
+    }
+
+    public VectorAng2Pix() {
+        super();
+        this.order = 0;
+        this.thetaColumn = -1;
+        this.phiColumn = -1;
+    }
+
+    @Override
+    public void evaluate(VectorizedRowBatch batch) throws HiveException {
+        if (childExpressions != null) {
+            super.evaluateChildren(batch);
+        }
+
+        int n = batch.size;
+        if (n == 0) {
+            return;
+        }
+
+        HealpixKernel kernel = AbstractVectorPixelConversion.kernel(order);
+
+        DoubleColumnVector thetaVector = (DoubleColumnVector) batch.cols[thetaColumn];
+        DoubleColumnVector phiVector = (DoubleColumnVector) batch.cols[phiColumn];
+        LongColumnVector outputVector = (LongColumnVector) batch.cols[outputColumnNum];
+
+        double[] theta = thetaVector.vector;
+        double[] phi = phiVector.vector;
+        long[] output = outputVector.vector;
+        boolean[] outputIsNull = outputVector.isNull;
+
+        // A repeating input is read at index 0 for every row
+        int thetaMask = thetaVector.isRepeating ? 0 : -1;
+        int phiMask = phiVector.isRepeating ? 0 : -1;
+
+        boolean selectedInUse = batch.selectedInUse;
+        outputVector.isRepeating = thetaVector.isRepeating && phiVector.isRepeating;
+        if (outputVector.isRepeating) {
+            n = 1;
+            selectedInUse = false;
+        }
+        int[] sel = batch.selected;
+
+        try {
+            if (thetaVector.noNulls && phiVector.noNulls) {
+                for (int j = 0; j < n; j++) {
+                    int i = selectedInUse ? sel[j] : j;
+                    outputIsNull[i] = false;
+                    output[i] = kernel.ang2pixRing(theta[i & thetaMask], phi[i & phiMask]);
+                }
+            } else {
+                outputVector.noNulls = false;
+                for (int j = 0; j < n; j++) {
+                    int i = selectedInUse ? sel[j] : j;
+                    if ((!thetaVector.noNulls && thetaVector.isNull[i & thetaMask])
+                            || (!phiVector.noNulls && phiVector.isNull[i & phiMask])) {
+                        outputIsNull[i] = true;
+                    } else {
+                        outputIsNull[i] = false;
+                        output[i] = kernel.ang2pixRing(theta[i & thetaMask], phi[i & phiMask]);
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new HiveException(e);
+        }
+    }
+
+    @Override
+    public String vectorExpressionParameters() {
+        return "order " + order + ", " + getColumnParamString(1, thetaColumn) + ", "
+                + getColumnParamString(2, phiColumn);
+    }
+
+    @Override
+    public VectorExpressionDescriptor.Descriptor getDescriptor() {
+        // @formatter:off
+        return new VectorExpressionDescriptor.Builder()
+                .setMode(VectorExpressionDescriptor.Mode.PROJECTION)
+                .setNumArguments(3)
+                .setArgumentTypes(
+                        VectorExpressionDescriptor.ArgumentType.INT_FAMILY,
+                        VectorExpressionDescriptor.ArgumentType.FLOAT_FAMILY,
+                        VectorExpressionDescriptor.ArgumentType.FLOAT_FAMILY)
+                .setInputExpressionTypes(
+                        VectorExpressionDescriptor.InputExpressionType.SCALAR,
+                        VectorExpressionDescriptor.InputExpressionType.COLUMN,
+                        VectorExpressionDescriptor.InputExpressionType.COLUMN)
+                .build();
+        // @formatter:on
+    }
+}
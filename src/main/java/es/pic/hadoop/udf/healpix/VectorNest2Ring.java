@@ -0,0 +1,20 @@
+package es.pic.hadoop.udf.healpix;
+
+/** Vectorized nest2ring(order, ipix) for a constant order, converting a column of NESTED pixels into RING ones. */
+public class VectorNest2Ring extends AbstractVectorPixelConversion {
+
+    private static final long serialVersionUID = 1L;
+
+    public VectorNest2Ring(long order, int colNum, int outputColumnNum) {
+        super(order, colNum, outputColumnNum);
+    }
+
+    public VectorNest2Ring() {
+        super();
+    }
+
+    @Override
+    protected long convert(HealpixKernel kernel, long ipix) {
+        return kernel.nest2ring(ipix);
+    }
+}
@@ -0,0 +1,131 @@
+package es.pic.hadoop.udf.healpix;
+
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ListColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorExpressionDescriptor;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+
+/**
+ * Vectorized pix2ang(order, ipix) for a constant order and a column of RING pixels, returning the [theta, phi] list of
+ * every row. The two angles of each row are appended to the child vector of the output, in the order rows are
+ * evaluated, and its offset and length point to them.
+ */
+public class VectorPix2Ang extends VectorExpression {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final long order;
+    protected final int colNum;
+    protected boolean nest;
+
+    /** Angles of the current row, reused across rows and batches. */
+    private final double[] ang = new double[2];
+
+    public VectorPix2Ang(long order, int colNum, int outputColumnNum) {
+        super(outputColumnNum);
+        this.order = order;
+        this.colNum = colNum;
+    }
+
+    public VectorPix2Ang() {
+        super();
+        this.order = 0;
+        this.colNum = -1;
+    }
+
+    /** Append the angles of ipix to the child of outputVector, as the list of row i. */
+    private void setAngles(HealpixKernel kernel, long ipix, int i, ListColumnVector outputVector) {
+        if (nest) {
+            kernel.pix2angNest(ipix, ang);
+        } else {
+            kernel.pix2angRing(ipix, ang);
+        }
+        int offset = outputVector.childCount;
+        outputVector.offsets[i] = offset;
+        outputVector.lengths[i] = 2;
+        outputVector.childCount += 2;
+        outputVector.child.ensureSize(outputVector.childCount, true);
+
+        double[] angles = ((DoubleColumnVector) outputVector.child).vector;
+        angles[offset] = ang[0];
+        angles[offset + 1] = ang[1];
+    }
+
+    @Override
+    public void evaluate(VectorizedRowBatch batch) throws HiveException {
+        if (childExpressions != null) {
+            super.evaluateChildren(batch);
+        }
+
+        int n = batch.size;
+        if (n == 0) {
+            return;
+        }
+
+        HealpixKernel kernel = AbstractVectorPixelConversion.kernel(order);
+
+        LongColumnVector inputVector = (LongColumnVector) batch.cols[colNum];
+        ListColumnVector outputVector = (ListColumnVector) batch.cols[outputColumnNum];
+
+        // Lists are appended to the child in row order, whatever rows are selected
+        outputVector.childCount = 0;
+        outputVector.child.isRepeating = false;
+
+        long[] input = inputVector.vector;
+        boolean[] inputIsNull = inputVector.isNull;
+        boolean[] outputIsNull = outputVector.isNull;
+
+        boolean selectedInUse = batch.selectedInUse;
+        outputVector.isRepeating = inputVector.isRepeating;
+        if (inputVector.isRepeating) {
+            n = 1;
+            selectedInUse = false;
+        }
+        int[] sel = batch.selected;
+
+        try {
+            if (inputVector.noNulls) {
+                for (int j = 0; j < n; j++) {
+                    int i = selectedInUse ? sel[j] : j;
+                    outputIsNull[i] = false;
+                    setAngles(kernel, input[i], i, outputVector);
+                }
+            } else {
+                outputVector.noNulls = false;
+                for (int j = 0; j < n; j++) {
+                    int i = selectedInUse ? sel[j] : j;
+                    outputIsNull[i] = inputIsNull[i];
+                    if (!inputIsNull[i]) {
+                        setAngles(kernel, input[i], i, outputVector);
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new HiveException(e);
+        }
+    }
+
+    @Override
+    public String vectorExpressionParameters() {
+        return "order " + order + ", " + getColumnParamString(1, colNum) + ", nest " + nest;
+    }
+
+    @Override
+    public VectorExpressionDescriptor.Descriptor getDescriptor() {
+        // @formatter:off
+        return new VectorExpressionDescriptor.Builder()
+                .setMode(VectorExpressionDescriptor.Mode.PROJECTION)
+                .setNumArguments(2)
+                .setArgumentTypes(
+                        VectorExpressionDescriptor.ArgumentType.INT_FAMILY,
+                        VectorExpressionDescriptor.ArgumentType.INT_FAMILY)
+                .setInputExpressionTypes(
+                        VectorExpressionDescriptor.InputExpressionType.SCALAR,
+                        VectorExpressionDescriptor.InputExpressionType.COLUMN)
+                .build();
+        // @formatter:on
+    }
+}
@@ -0,0 +1,37 @@
+package es.pic.hadoop.udf.healpix;
+
+import org.apache.hadoop.hive.ql.exec.vector.VectorExpressionDescriptor;
+
+/** Vectorized pix2ang(order, ipix, nest) for a constant order and nest flag, and a column of pixels. */
+public class VectorPix2AngNest extends VectorPix2Ang {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Hive passes boolean constants as 1 or 0. */
+    public VectorPix2AngNest(long order, int colNum, long nest, int outputColumnNum) {
+        super(order, colNum, outputColumnNum);
+        this.nest = nest != 0;
+    }
+
+    public VectorPix2AngNest() {
+        super();
+    }
+
+    @Override
+    public VectorExpressionDescriptor.Descriptor getDescriptor() {
+        // @formatter:off
+        return new VectorExpressionDescriptor.Builder()
+                .setMode(VectorExpressionDescriptor.Mode.PROJECTION)
+                .setNumArguments(3)
+                .setArgumentTypes(
+                        VectorExpressionDescriptor.ArgumentType.INT_FAMILY,
+                        VectorExpressionDescriptor.ArgumentType.INT_FAMILY,
+                        VectorExpressionDescriptor.ArgumentType.INT_FAMILY)
+                .setInputExpressionTypes(
+                        VectorExpressionDescriptor.InputExpressionType.SCALAR,
+                        VectorExpressionDescriptor.InputExpressionType.COLUMN,
+                        VectorExpressionDescriptor.InputExpressionType.SCALAR)
+                .build();
+        // @formatter:on
+    }
+}
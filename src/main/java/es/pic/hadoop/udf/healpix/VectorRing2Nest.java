@@ -0,0 +1,20 @@
+package es.pic.hadoop.udf.healpix;
+
+/** Vectorized ring2nest(order, ipix) for a constant order, converting a column of RING pixels into NESTED ones. */
+public class VectorRing2Nest extends AbstractVectorPixelConversion {
+
+    private static final long serialVersionUID = 1L;
+
+    public VectorRing2Nest(long order, int colNum, int outputColumnNum) {
+        super(order, colNum, outputColumnNum);
+    }
+
+    public VectorRing2Nest() {
+        super();
+    }
+
+    @Override
+    protected long convert(HealpixKernel kernel, long ipix) {
+        return kernel.ring2nest(ipix);
+    }
+}
@@ -1,7 +1,10 @@
 package es.pic.hadoop.udf.adql;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Arrays;
 
@@ -15,6 +18,7 @@ import org.apache.hadoop.hive.ql.udf.generic.SimpleGenericUDAFParameterInfo;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.BytesWritable;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 
@@ -28,6 +32,11 @@ public abstract class AbstractTestUDAFRegion {
     protected Object[] inputs;
     protected Object output;
 
+    /** Regions at order 3 that make the result dense, followed by one at order 29 that turns it back into ranges. */
+    protected Object[] denseInputs;
+    /** Result of aggregating each prefix of denseInputs. */
+    protected Object[] denseOutputs;
+
     @Test
     void isAllColumns() {
         ObjectInspector[] params = new ObjectInspector[0];
@@ -115,6 +124,10 @@ public abstract class AbstractTestUDAFRegion {
         };
 
         assertThrows(UDFArgumentTypeException.class, () -> eval.init(GenericUDAFEvaluator.Mode.COMPLETE, params));
+        assertThrows(UDFArgumentTypeException.class,
+                () -> eval.init(GenericUDAFEvaluator.Mode.FINAL, new ObjectInspector[] {
+                        ADQLGeometry.OI
+                }));
     }
 
     @Test
@@ -161,6 +174,105 @@ public abstract class AbstractTestUDAFRegion {
         eval.reset(agg);
     }
 
+    @Test
+    void testReset() throws Exception {
+        GenericUDAFEvaluator eval = getEvaluator();
+        eval.init(GenericUDAFEvaluator.Mode.COMPLETE, new ObjectInspector[] {
+                ADQLGeometry.OI
+        });
+
+        RegionAggregationBuffer agg = (RegionAggregationBuffer) eval.getNewAggregationBuffer();
+
+        // The buffer is reused across groups, so nothing must be left over from the previous one
+        for (int group = 0; group < 2; group++) {
+            for (int i = 0; i < inputs.length; i++) {
+                eval.iterate(agg, new Object[] {
+                        inputs[i]
+                });
+            }
+
+            assertEquals(0,
+                    ObjectInspectorUtils.compare(eval.terminate(agg), ADQLGeometry.OI, output, ADQLGeometry.OI));
+
+            eval.reset(agg);
+        }
+
+        assertNull(eval.terminatePartial(agg));
+    }
+
+    @Test
+    void testBudget() throws Exception {
+        GenericUDAFEvaluator eval = getEvaluator();
+        eval.init(GenericUDAFEvaluator.Mode.COMPLETE, new ObjectInspector[] {
+                ADQLGeometry.OI
+        });
+
+        RegionAggregationBuffer agg = (RegionAggregationBuffer) eval.getNewAggregationBuffer();
+
+        // Merge every region as it arrives, then every two regions, then all of them at once
+        for (int budget : new int[] {
+                0, 2 * 2 * Long.BYTES, ADQLRangeSetBatch.DEFAULT_BUDGET
+        }) {
+            ADQLRangeSetBatch.setBudget(budget);
+            try {
+                for (int i = 0; i < inputs.length; i++) {
+                    eval.iterate(agg, new Object[] {
+                            inputs[i]
+                    });
+                }
+
+                assertEquals(0, ObjectInspectorUtils.compare(eval.terminate(agg), ADQLGeometry.OI, output,
+                        ADQLGeometry.OI));
+                assertTrue(agg.estimate() > 0);
+
+                eval.reset(agg);
+            } finally {
+                ADQLRangeSetBatch.setBudget(ADQLRangeSetBatch.DEFAULT_BUDGET);
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> ADQLRangeSetBatch.setBudget(-1));
+    }
+
+    @Test
+    void testDense() throws Exception {
+        GenericUDAFEvaluator eval = getEvaluator();
+        eval.init(GenericUDAFEvaluator.Mode.COMPLETE, new ObjectInspector[] {
+                ADQLGeometry.OI
+        });
+
+        RegionAggregationBuffer agg = (RegionAggregationBuffer) eval.getNewAggregationBuffer();
+
+        ADQLRangeSetBatch.setBudget(0);
+        try {
+            for (int n = 1; n <= denseInputs.length; n++) {
+                for (int i = 0; i < n; i++) {
+                    eval.iterate(agg, new Object[] {
+                            denseInputs[i]
+                    });
+                }
+
+                if (n < denseInputs.length) {
+                    assertNotNull(agg.dense);
+                } else {
+                    assertNull(agg.dense);
+
+                    // Once back into ranges, the result stays sparse for the rest of the group
+                    eval.iterate(agg, new Object[] {
+                            denseInputs[0]
+                    });
+                    assertNull(agg.dense);
+                }
+                assertEquals(0, ObjectInspectorUtils.compare(eval.terminate(agg), ADQLGeometry.OI,
+                        denseOutputs[n - 1], ADQLGeometry.OI));
+
+                eval.reset(agg);
+            }
+        } finally {
+            ADQLRangeSetBatch.setBudget(ADQLRangeSetBatch.DEFAULT_BUDGET);
+        }
+    }
+
     @Test
     void testMerge() throws Exception {
         GenericUDAFEvaluator evalPartial1 = getEvaluator();
@@ -170,14 +282,14 @@ public abstract class AbstractTestUDAFRegion {
         Object partial1;
         Object partial2;
 
-        evalPartial1.init(GenericUDAFEvaluator.Mode.PARTIAL1, new ObjectInspector[] {
+        ObjectInspector partialOI = evalPartial1.init(GenericUDAFEvaluator.Mode.PARTIAL1, new ObjectInspector[] {
                 ADQLGeometry.OI
         });
         evalPartial2.init(GenericUDAFEvaluator.Mode.PARTIAL2, new ObjectInspector[] {
-                ADQLGeometry.OI
+                partialOI
         });
         evalFinal.init(GenericUDAFEvaluator.Mode.FINAL, new ObjectInspector[] {
-                ADQLGeometry.OI
+                partialOI
         });
 
         RegionAggregationBuffer agg1 = (RegionAggregationBuffer) evalPartial1.getNewAggregationBuffer();
@@ -197,7 +309,12 @@ public abstract class AbstractTestUDAFRegion {
         evalPartial2.merge(agg2, partial1);
         partial2 = evalPartial2.terminatePartial(agg2);
 
-        assertEquals(0, ObjectInspectorUtils.compare(partial1, ADQLGeometry.OI, partial2, ADQLGeometry.OI));
+        assertEquals(0, ObjectInspectorUtils.compare(partial1, partialOI, partial2, partialOI));
+        // Partials only carry the delta-encoded ranges
+        BytesWritable bytes = (BytesWritable) partial1;
+        assertEquals(ADQLRangeSetCodec.DELTA, ADQLRangeSetCodec.format(bytes.getBytes(), bytes.getLength()));
+        assertEquals(new ADQLRangeSetView(bytes).toRangeSet(), new ADQLRangeSetView((BytesWritable) ADQLGeometry.OI
+                .getStructFieldData(output, ADQLGeometry.OI.getStructFieldRef("rs"))).toRangeSet());
 
         evalFinal.merge(aggF, partial1);
         evalFinal.merge(aggF, partial2);
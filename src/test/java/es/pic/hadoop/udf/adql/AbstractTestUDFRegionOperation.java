@@ -0,0 +1,146 @@
+package es.pic.hadoop.udf.adql;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.BytesWritable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public abstract class AbstractTestUDFRegionOperation {
+
+    protected AbstractUDFRegionOperation udf;
+
+    protected ADQLRangeSet rs1;
+    protected ADQLRangeSet rs2;
+    /** Expected result of the operation on rs1 and rs2. */
+    protected ADQLRangeSet output;
+
+    public AbstractTestUDFRegionOperation() {
+        rs1 = new ADQLRangeSet();
+        rs1.addPixelRange(29, 10, 30);
+        rs1.addPixelRange(29, 40, 60);
+        rs1.addPixelRange(3, 5, 6);
+
+        rs2 = new ADQLRangeSet();
+        rs2.addPixelRange(29, 20, 40);
+        rs2.addPixelRange(29, 50, 55);
+        rs2.addPixelRange(3, 6, 7);
+    }
+
+    static Object compress(ADQLRangeSet rs) {
+        ADQLRegion region = new ADQLRegion(rs);
+        region.setFormat(ADQLRangeSetCodec.DELTA);
+        return region.serialize();
+    }
+
+    Object evaluate(Object geom1, Object geom2) throws HiveException {
+        return udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(geom1), new DeferredJavaObject(geom2)
+        });
+    }
+
+    @Test
+    void emptyArguments() {
+        ObjectInspector[] params = new ObjectInspector[0];
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(params));
+    }
+
+    @Test
+    void wrongNumberOfArguments() {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI, ADQLGeometry.OI, ADQLGeometry.OI,
+        };
+
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(Arrays.copyOfRange(params, 0, 1)));
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(Arrays.copyOfRange(params, 0, 3)));
+    }
+
+    @Test
+    void wrongTypeOfArguments() {
+        ObjectInspector[] params = new ObjectInspector[] {
+                PrimitiveObjectInspectorFactory.writableDoubleObjectInspector, ADQLGeometry.OI,
+        };
+
+        assertThrows(UDFArgumentTypeException.class, () -> udf.initialize(params));
+        assertThrows(UDFArgumentTypeException.class, () -> udf.initialize(new ObjectInspector[] {
+                ADQLGeometry.OI, PrimitiveObjectInspectorFactory.writableDoubleObjectInspector,
+        }));
+    }
+
+    @Test
+    void nullGeometries() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI, ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), ADQLGeometry.OI);
+
+        Object region = new ADQLRegion(rs1).serialize();
+        assertNull(evaluate(null, region));
+        assertNull(evaluate(region, null));
+        assertNull(evaluate(null, null));
+    }
+
+    @Test
+    void validRegions() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI, ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), ADQLGeometry.OI);
+
+        Object expected = new ADQLRegion(output).serialize();
+        Object raw1 = new ADQLRegion(rs1).serialize();
+        Object raw2 = new ADQLRegion(rs2).serialize();
+
+        for (Object[] args : new Object[][] {
+                { raw1, raw2 },
+                { compress(rs1), raw2 },
+                { raw1, compress(rs2) },
+                { compress(rs1), compress(rs2) },
+        }) {
+            assertEquals(0, ObjectInspectorUtils.compare(evaluate(args[0], args[1]), ADQLGeometry.OI, expected,
+                    ADQLGeometry.OI));
+        }
+
+        // Operations with an empty region
+        Object empty = new ADQLRegion(new ADQLRangeSet()).serialize();
+        assertEquals(0, ObjectInspectorUtils.compare(evaluate(raw1, empty), ADQLGeometry.OI,
+                new ADQLRegion(udf.combine(true, false) ? rs1 : new ADQLRangeSet()).serialize(), ADQLGeometry.OI));
+        assertEquals(0, ObjectInspectorUtils.compare(evaluate(empty, raw2), ADQLGeometry.OI,
+                new ADQLRegion(udf.combine(false, true) ? rs2 : new ADQLRangeSet()).serialize(), ADQLGeometry.OI));
+    }
+
+    @Test
+    void binaryRegions() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                PrimitiveObjectInspectorFactory.writableBinaryObjectInspector,
+                PrimitiveObjectInspectorFactory.writableBinaryObjectInspector,
+        };
+
+        assertEquals(udf.initialize(params), ADQLGeometry.OI);
+
+        assertEquals(0, ObjectInspectorUtils.compare(
+                evaluate(new BytesWritable(new ADQLRegion(rs1).toBinary()),
+                        new BytesWritable(new ADQLRegion(rs2).toBinary())), ADQLGeometry.OI,
+                new ADQLRegion(output).serialize(), ADQLGeometry.OI));
+    }
+
+    @Test
+    void displayString() {
+        assertDoesNotThrow(() -> udf.getDisplayString(new String[] {}));
+    }
+}
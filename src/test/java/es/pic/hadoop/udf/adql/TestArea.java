@@ -13,6 +13,7 @@ import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.BytesWritable;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 
@@ -129,6 +130,35 @@ public class TestArea {
         }).toString());
     }
 
+    @Test
+    void compressedRegion() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        ADQLRegion geom = (ADQLRegion) ADQLGeometry.fromBlob(region, ADQLGeometry.OI);
+        geom.setFormat(ADQLRangeSetCodec.DELTA);
+
+        assertEquals("590.8627262286614", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(geom.serialize()),
+        }).toString());
+    }
+
+    @Test
+    void binaryRegion() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                PrimitiveObjectInspectorFactory.writableBinaryObjectInspector,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertEquals("590.8627262286614", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(new BytesWritable(ADQLGeometry.fromBlob(region, ADQLGeometry.OI).toBinary())),
+        }).toString());
+    }
+
     @Test
     void displayString() {
         assertDoesNotThrow(() -> udf.getDisplayString(new String[] {}));
@@ -0,0 +1,126 @@
+package es.pic.hadoop.udf.adql;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.BytesWritable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestBinary2Geom {
+
+    UDFBinary2Geom udf = new UDFBinary2Geom();
+
+    ObjectInspector binaryOI = PrimitiveObjectInspectorFactory.writableBinaryObjectInspector;
+
+    ADQLRangeSet rs;
+    ADQLGeometry point;
+    ADQLGeometry circle;
+    ADQLGeometry polygon;
+    ADQLGeometry region;
+
+    public TestBinary2Geom() {
+        point = new ADQLPoint(10, 20);
+        circle = new ADQLCircle(10, 20, 30);
+        polygon = new ADQLPolygon(10, 10, 20, 10, 20, 20, 10, 20);
+
+        rs = new ADQLRangeSet();
+        rs.addPixelRange(3, 23, 34);
+        rs.addPixelRange(3, 40, 41);
+        region = new ADQLRegion(rs);
+    }
+
+    @Test
+    void emptyArguments() {
+        ObjectInspector[] params = new ObjectInspector[0];
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(params));
+    }
+
+    @Test
+    void wrongNumberOfArguments() {
+        ObjectInspector[] params = new ObjectInspector[] {
+                binaryOI, binaryOI,
+        };
+
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(Arrays.copyOfRange(params, 0, 0)));
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(Arrays.copyOfRange(params, 0, 2)));
+    }
+
+    @Test
+    void wrongTypeOfArguments() {
+        ObjectInspector[] params = new ObjectInspector[] {
+                PrimitiveObjectInspectorFactory.writableDoubleObjectInspector,
+        };
+
+        assertThrows(UDFArgumentTypeException.class, () -> udf.initialize(params));
+    }
+
+    @Test
+    void nullGeometry() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                binaryOI,
+        };
+
+        assertEquals(udf.initialize(params), ADQLGeometry.OI);
+
+        assertNull(udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null),
+        }));
+    }
+
+    @Test
+    void invalidGeometry() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                binaryOI,
+        };
+
+        assertEquals(udf.initialize(params), ADQLGeometry.OI);
+
+        assertThrows(HiveException.class, () -> udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(new BytesWritable(new byte[] {})),
+        }));
+        assertThrows(HiveException.class, () -> udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(new BytesWritable(new byte[] {
+                        9, 0
+                })),
+        }));
+        assertThrows(HiveException.class, () -> udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(new BytesWritable(new byte[] {
+                        2, 8, 0, 0, 0
+                })),
+        }));
+    }
+
+    @Test
+    void validGeometries() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                binaryOI,
+        };
+
+        assertEquals(udf.initialize(params), ADQLGeometry.OI);
+
+        for (ADQLGeometry geom : new ADQLGeometry[] {
+                point, circle, polygon, region
+        }) {
+            assertEquals(geom.serialize(), udf.evaluate(new DeferredJavaObject[] {
+                    new DeferredJavaObject(new BytesWritable(geom.toBinary())),
+            }));
+        }
+    }
+
+    @Test
+    void displayString() {
+        assertDoesNotThrow(() -> udf.getDisplayString(new String[] {}));
+    }
+}
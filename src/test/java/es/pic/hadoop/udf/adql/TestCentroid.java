@@ -11,6 +11,7 @@ import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.serde2.io.ByteWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 import org.junit.jupiter.api.Test;
@@ -75,6 +76,33 @@ public class TestCentroid {
         }));
     }
 
+    @Test
+    void nullCoords() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), ADQLGeometry.OI);
+
+        Object blob = new ADQLPoint(30, 40).serialize();
+        ADQLGeometry.OI.setStructFieldData(blob, ADQLGeometry.OI.getStructFieldRef("coords"), null);
+
+        // The coordinates of the previous row are not reused
+        udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(point)
+        });
+        assertThrows(IllegalArgumentException.class, () -> udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(blob)
+        }));
+
+        ADQLGeometry.OI.setStructFieldData(blob, ADQLGeometry.OI.getStructFieldRef("tag"),
+                new ByteWritable(ADQLGeometry.Kind.CIRCLE.value));
+
+        assertThrows(IllegalArgumentException.class, () -> udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(blob)
+        }));
+    }
+
     @Test
     void validPoint() throws HiveException {
         ObjectInspector[] params = new ObjectInspector[] {
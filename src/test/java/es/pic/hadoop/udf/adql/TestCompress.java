@@ -0,0 +1,195 @@
+package es.pic.hadoop.udf.adql;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.Text;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestCompress {
+
+    UDFCompress udf = new UDFCompress();
+
+    ObjectInspector outputOI = ADQLGeometry.OI;
+
+    ADQLRangeSet rs;
+    Object point;
+    Object region;
+    Object emptyRegion;
+
+    public TestCompress() {
+        point = new ADQLPoint(10, 20).serialize();
+
+        rs = new ADQLRangeSet();
+        rs.addPixelRange(3, 23, 34);
+        rs.addPixelRange(3, 40, 41);
+        rs.addPixelRange(10, 1000, 1200);
+        region = new ADQLRegion(rs).serialize();
+        emptyRegion = new ADQLRegion(new ADQLRangeSet()).serialize();
+    }
+
+    ObjectInspector format(String name) {
+        return PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(TypeInfoFactory.stringTypeInfo,
+                new Text(name));
+    }
+
+    BytesWritable rsOf(Object blob) {
+        return (BytesWritable) ADQLGeometry.OI.getStructFieldData(blob, ADQLGeometry.OI.getStructFieldRef("rs"));
+    }
+
+    Object compress(Object geom) throws HiveException {
+        return udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(geom),
+        });
+    }
+
+    @Test
+    void emptyArguments() {
+        ObjectInspector[] params = new ObjectInspector[0];
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(params));
+    }
+
+    @Test
+    void wrongNumberOfArguments() {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI, format("delta"), format("delta"),
+        };
+
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(Arrays.copyOfRange(params, 0, 0)));
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(Arrays.copyOfRange(params, 0, 3)));
+    }
+
+    @Test
+    void wrongTypeOfArguments() {
+        assertThrows(UDFArgumentTypeException.class, () -> udf.initialize(new ObjectInspector[] {
+                PrimitiveObjectInspectorFactory.writableDoubleObjectInspector,
+        }));
+        assertThrows(UDFArgumentTypeException.class, () -> udf.initialize(new ObjectInspector[] {
+                ADQLGeometry.OI, PrimitiveObjectInspectorFactory.writableStringObjectInspector,
+        }));
+        assertThrows(UDFArgumentTypeException.class, () -> udf.initialize(new ObjectInspector[] {
+                ADQLGeometry.OI, format("zip"),
+        }));
+    }
+
+    @Test
+    void nullGeometry() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertNull(compress(null));
+    }
+
+    @Test
+    void otherGeometries() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertEquals(point, compress(point));
+    }
+
+    @Test
+    void deltaRegion() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI, format("delta"),
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        Object compressed = compress(region);
+        BytesWritable bytes = rsOf(compressed);
+
+        assertEquals(ADQLRangeSetCodec.DELTA, bytes.getBytes()[0]);
+        assertTrue(bytes.getLength() < rsOf(region).getLength());
+        assertEquals(rs, ADQLGeometry.fromBlob(compressed, ADQLGeometry.OI).getRangeSet());
+        assertEquals(rs, new ADQLRangeSet(bytes));
+
+        ADQLRangeSetCursor cursor = new ADQLRangeSetCursor(bytes);
+        assertEquals(rs.asView().size(), cursor.size());
+        for (int i = 0; i < rs.asView().size(); i++) {
+            assertTrue(cursor.hasNext());
+            assertEquals(rs.asView().get(i), cursor.next());
+        }
+        assertFalse(cursor.hasNext());
+
+        assertEquals(ADQLRangeSetCodec.DELTA, rsOf(compress(emptyRegion)).getBytes()[0]);
+        assertTrue(ADQLGeometry.fromBlob(compress(emptyRegion), ADQLGeometry.OI).getRangeSet().isEmpty());
+    }
+
+    @Test
+    void interpolativeRegion() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI, format("interpolative"),
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        Object compressed = compress(region);
+        BytesWritable bytes = rsOf(compressed);
+
+        assertEquals(ADQLRangeSetCodec.INTERPOLATIVE, bytes.getBytes()[0]);
+        assertEquals(rs, ADQLGeometry.fromBlob(compressed, ADQLGeometry.OI).getRangeSet());
+
+        ADQLRangeSetCursor cursor = new ADQLRangeSetCursor(bytes);
+        for (int i = 0; i < rs.asView().size(); i++) {
+            assertEquals(rs.asView().get(i), cursor.next());
+        }
+        assertFalse(cursor.hasNext());
+    }
+
+    @Test
+    void rawRegion() throws HiveException {
+        assertEquals(udf.initialize(new ObjectInspector[] {
+                ADQLGeometry.OI,
+        }), outputOI);
+        Object compressed = compress(region);
+
+        assertEquals(udf.initialize(new ObjectInspector[] {
+                ADQLGeometry.OI, format("raw"),
+        }), outputOI);
+
+        // Going back to the raw format restores the original blob
+        assertEquals(region, compress(compressed));
+        assertEquals(region, compress(region));
+    }
+
+    @Test
+    void compressedRegionsInOtherFunctions() throws HiveException {
+        assertEquals(udf.initialize(new ObjectInspector[] {
+                ADQLGeometry.OI,
+        }), outputOI);
+        Object compressed = compress(region);
+
+        ADQLGeometry geom = ADQLGeometry.fromBlob(compressed, ADQLGeometry.OI);
+        assertEquals(ADQLGeometry.fromBlob(region, ADQLGeometry.OI).area(), geom.area());
+        assertTrue(((ADQLRegion) geom).contains((ADQLRegion) ADQLGeometry.fromBlob(region, ADQLGeometry.OI)));
+        assertEquals(region, geom.serialize());
+    }
+
+    @Test
+    void displayString() {
+        assertDoesNotThrow(() -> udf.getDisplayString(new String[] {}));
+    }
+}
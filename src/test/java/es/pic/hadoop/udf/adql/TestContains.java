@@ -12,7 +12,9 @@ import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.BytesWritable;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 
@@ -63,6 +65,12 @@ public class TestContains {
         region3 = new ADQLRegion(rs).serialize();
     }
 
+    Object compress(Object region) {
+        ADQLRegion geom = (ADQLRegion) ADQLGeometry.fromBlob(region, ADQLGeometry.OI);
+        geom.setFormat(ADQLRangeSetCodec.DELTA);
+        return geom.serialize();
+    }
+
     @Test
     void emptyArguments() {
         ObjectInspector[] params = new ObjectInspector[0];
@@ -213,6 +221,148 @@ public class TestContains {
         }).toString());
     }
 
+    @Test
+    void binaryGeoms() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                PrimitiveObjectInspectorFactory.writableBinaryObjectInspector, ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertEquals("true", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(new BytesWritable(new ADQLPoint(-4, 0).toBinary())),
+                new DeferredJavaObject(circle2)
+        }).toString());
+        assertEquals("false", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(new BytesWritable(new ADQLCircle(-4, 0, 1).toBinary())),
+                new DeferredJavaObject(circle3)
+        }).toString());
+        assertEquals("true", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(new BytesWritable(new ADQLPolygon(-1, -1, 1, -1, 1, 1, -1, 1).toBinary())),
+                new DeferredJavaObject(polygon1)
+        }).toString());
+    }
+
+    @Test
+    void compressedGeoms() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI, ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        for (Object[] args : new Object[][] {
+                { compress(region2), region3 },
+                { region2, compress(region3) },
+                { compress(region2), compress(region3) },
+        }) {
+            assertEquals("true", udf.evaluate(new DeferredJavaObject[] {
+                    new DeferredJavaObject(args[0]), new DeferredJavaObject(args[1])
+            }).toString());
+            assertEquals("false", udf.evaluate(new DeferredJavaObject[] {
+                    new DeferredJavaObject(args[1]), new DeferredJavaObject(args[0])
+            }).toString());
+        }
+
+        assertEquals("false", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(compress(region1)), new DeferredJavaObject(compress(region2))
+        }).toString());
+
+        assertEquals("true", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(point1), new DeferredJavaObject(compress(region3))
+        }).toString());
+        assertEquals("false", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(point2), new DeferredJavaObject(compress(region1))
+        }).toString());
+    }
+
+    @Test
+    void constantGeom() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI, ObjectInspectorUtils.getConstantObjectInspector(ADQLGeometry.OI, circle2),
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertEquals("true", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(point1), new DeferredJavaObject(null)
+        }).toString());
+        assertEquals("false", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(circle3), new DeferredJavaObject(null)
+        }).toString());
+        assertEquals("true", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(polygon2), new DeferredJavaObject(null)
+        }).toString());
+        assertNull(udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(null)
+        }));
+
+        params[1] = ObjectInspectorUtils.getConstantObjectInspector(ADQLGeometry.OI, region3);
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        // Points are looked up in the index of the constant region
+        assertEquals("true", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(point1), new DeferredJavaObject(null)
+        }).toString());
+        assertEquals("false", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(new ADQLPoint(45, 2).serialize()), new DeferredJavaObject(null)
+        }).toString());
+        assertEquals("true", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(region2), new DeferredJavaObject(null)
+        }).toString());
+        assertEquals("false", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(region1), new DeferredJavaObject(null)
+        }).toString());
+
+        params[1] = ObjectInspectorUtils.getConstantObjectInspector(ADQLGeometry.OI, null);
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertNull(udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(point1), new DeferredJavaObject(null)
+        }));
+
+        params[1] = ObjectInspectorUtils.getConstantObjectInspector(ADQLGeometry.OI, point2);
+
+        assertThrows(UDFArgumentTypeException.class, () -> udf.initialize(params));
+    }
+
+    @Test
+    void cachedGeom() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI, ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+        udf.cache.resetCounters();
+
+        // Equal contents in a different object on every row
+        for (int i = 0; i < 3; i++) {
+            Object polygon = new ADQLPolygon(-7, -2, 2, -2, 2, 2, -7, 2).serialize();
+            assertEquals("true", udf.evaluate(new DeferredJavaObject[] {
+                    new DeferredJavaObject(point1), new DeferredJavaObject(polygon)
+            }).toString());
+        }
+
+        assertEquals(1, udf.cache.getMisses());
+        assertEquals(2, udf.cache.getHits());
+
+        // Other functions keep caches and counters of their own
+        UDFContains other = new UDFContains();
+        other.cache.setCapacity(0);
+        assertEquals(other.initialize(params), outputOI);
+
+        assertEquals("false", other.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(point1), new DeferredJavaObject(polygon3)
+        }).toString());
+
+        assertEquals(0, other.cache.getMisses());
+        assertEquals(1, udf.cache.getMisses());
+        assertEquals(2, udf.cache.getHits());
+        assertEquals(ADQLGeometryCache.DEFAULT_CAPACITY, udf.cache.getCapacity());
+    }
+
     @Test
     void displayString() {
         assertDoesNotThrow(() -> udf.getDisplayString(new String[] {}));
@@ -0,0 +1,230 @@
+package es.pic.hadoop.udf.adql;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.BytesWritable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestContainsPoint {
+
+    UDFContainsPoint udf = new UDFContainsPoint();
+
+    ObjectInspector doubleOI = PrimitiveObjectInspectorFactory.writableDoubleObjectInspector;
+    ObjectInspector outputOI = PrimitiveObjectInspectorFactory.writableBooleanObjectInspector;
+
+    ADQLRangeSet rs;
+    Object point;
+    Object circle;
+    Object polygon;
+    Object clockwise;
+    Object concave;
+    Object region;
+
+    public TestContainsPoint() {
+        point = new ADQLPoint(0, 0).serialize();
+        circle = new ADQLCircle(0, 0, 7).serialize();
+        polygon = new ADQLPolygon(-8, -3, 2, -3, 3, 3, -8, 3).serialize();
+        clockwise = new ADQLPolygon(-8, 3, 3, 3, 2, -3, -8, -3).serialize();
+        concave = new ADQLPolygon(-8, -3, 2, -3, 2, 3, -3, 0, -8, 3).serialize();
+
+        rs = new ADQLRangeSet();
+        rs.addPixelRange(3, 40, 750);
+        region = new ADQLRegion(rs).serialize();
+    }
+
+    Object evaluate(double ra, double dec, Object geom) throws HiveException {
+        return udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(new DoubleWritable(ra)), new DeferredJavaObject(new DoubleWritable(dec)),
+                new DeferredJavaObject(geom)
+        });
+    }
+
+    @Test
+    void emptyArguments() {
+        ObjectInspector[] params = new ObjectInspector[0];
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(params));
+    }
+
+    @Test
+    void wrongNumberOfArguments() {
+        ObjectInspector[] params = new ObjectInspector[] {
+                doubleOI, doubleOI, ADQLGeometry.OI, ADQLGeometry.OI,
+        };
+
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(Arrays.copyOfRange(params, 0, 1)));
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(Arrays.copyOfRange(params, 0, 2)));
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(Arrays.copyOfRange(params, 0, 4)));
+    }
+
+    @Test
+    void wrongTypeOfArguments() {
+        ObjectInspector[] params = new ObjectInspector[] {
+                doubleOI, doubleOI, doubleOI,
+        };
+
+        assertThrows(UDFArgumentTypeException.class, () -> udf.initialize(params));
+    }
+
+    @Test
+    void nullValues() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                doubleOI, doubleOI, ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertNull(udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new DoubleWritable(0)),
+                new DeferredJavaObject(circle)
+        }));
+        assertNull(udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(new DoubleWritable(0)), new DeferredJavaObject(null),
+                new DeferredJavaObject(circle)
+        }));
+        assertNull(evaluate(0, 0, null));
+    }
+
+    @Test
+    void invalidValues() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                doubleOI, doubleOI, ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertThrows(UDFArgumentTypeException.class, () -> evaluate(0, 0, point));
+        assertThrows(HiveException.class, () -> evaluate(0, 91, region));
+    }
+
+    @Test
+    void validValues() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                doubleOI, doubleOI, ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertEquals("true", evaluate(-4, 0, circle).toString());
+        assertEquals("false", evaluate(6, 5, circle).toString());
+        assertEquals("true", evaluate(-4, 0, polygon).toString());
+        assertEquals("false", evaluate(6, 0, polygon).toString());
+        assertEquals("false", evaluate(-4, 0, clockwise).toString());
+        assertEquals("true", evaluate(6, 0, clockwise).toString());
+        assertEquals("true", evaluate(-6, 0, concave).toString());
+        assertEquals("false", evaluate(-3, 2, concave).toString());
+        assertEquals("true", evaluate(-4, 0, region).toString());
+        assertEquals("false", evaluate(45, 2, region).toString());
+    }
+
+    @Test
+    void sameAsContains() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                doubleOI, doubleOI, ADQLGeometry.OI,
+        };
+        UDFContains contains = new UDFContains();
+
+        assertEquals(udf.initialize(params), outputOI);
+        assertEquals(contains.initialize(new ObjectInspector[] {
+                ADQLGeometry.OI, ADQLGeometry.OI
+        }), outputOI);
+
+        Random rnd = new Random(1);
+
+        for (Object geom : new Object[] {
+                circle, polygon, clockwise, concave
+        }) {
+            for (int i = 0; i < 5000; i++) {
+                double ra;
+                double dec;
+                if (i < 200) {
+                    // Vertices and points along the edges and boundaries
+                    ra = -8 + (i % 12);
+                    dec = -3 + (i / 12) % 7;
+                } else {
+                    ra = rnd.nextDouble() * 24 - 12;
+                    dec = rnd.nextDouble() * 16 - 8;
+                }
+
+                assertEquals(contains.evaluate(new DeferredJavaObject[] {
+                        new DeferredJavaObject(new ADQLPoint(ra, dec).serialize()), new DeferredJavaObject(geom)
+                }).toString(), evaluate(ra, dec, geom).toString(), ra + ", " + dec);
+            }
+        }
+    }
+
+    @Test
+    void constantGeom() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                doubleOI, doubleOI, ObjectInspectorUtils.getConstantObjectInspector(ADQLGeometry.OI, circle),
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertEquals("true", evaluate(-4, 0, null).toString());
+        assertEquals("false", evaluate(6, 5, null).toString());
+
+        params[2] = ObjectInspectorUtils.getConstantObjectInspector(ADQLGeometry.OI, region);
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        // Points are looked up in the index of the constant region
+        assertEquals("true", evaluate(-4, 0, null).toString());
+        assertEquals("false", evaluate(45, 2, null).toString());
+
+        params[2] = ObjectInspectorUtils.getConstantObjectInspector(
+                PrimitiveObjectInspectorFactory.writableBinaryObjectInspector,
+                new BytesWritable(new ADQLPolygon(-8, -3, 2, -3, 3, 3, -8, 3).toBinary()));
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertEquals("true", evaluate(-4, 0, null).toString());
+        assertEquals("false", evaluate(6, 0, null).toString());
+
+        params[2] = ObjectInspectorUtils.getConstantObjectInspector(ADQLGeometry.OI, null);
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertNull(evaluate(-4, 0, null));
+
+        params[2] = ObjectInspectorUtils.getConstantObjectInspector(ADQLGeometry.OI, point);
+
+        assertThrows(UDFArgumentTypeException.class, () -> udf.initialize(params));
+    }
+
+    @Test
+    void predicates() {
+        assertEquals(ADQLPointPredicate.Circle.class,
+                ADQLPointPredicate.create(ADQLGeometry.fromBlob(circle, ADQLGeometry.OI)).getClass());
+        assertEquals(ADQLPointPredicate.ConvexPolygon.class,
+                ADQLPointPredicate.create(ADQLGeometry.fromBlob(polygon, ADQLGeometry.OI)).getClass());
+        assertEquals(ADQLPointPredicate.Polygon.class,
+                ADQLPointPredicate.create(ADQLGeometry.fromBlob(clockwise, ADQLGeometry.OI)).getClass());
+        assertEquals(ADQLPointPredicate.Polygon.class,
+                ADQLPointPredicate.create(ADQLGeometry.fromBlob(concave, ADQLGeometry.OI)).getClass());
+        assertEquals(ADQLPointPredicate.Region.class,
+                ADQLPointPredicate.create(ADQLGeometry.fromBlob(region, ADQLGeometry.OI)).getClass());
+        assertThrows(IllegalArgumentException.class,
+                () -> ADQLPointPredicate.create(ADQLGeometry.fromBlob(point, ADQLGeometry.OI)));
+    }
+
+    @Test
+    void displayString() {
+        assertDoesNotThrow(() -> udf.getDisplayString(new String[] {}));
+    }
+}
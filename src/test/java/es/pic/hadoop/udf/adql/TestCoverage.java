@@ -0,0 +1,257 @@
+package es.pic.hadoop.udf.adql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.parse.SemanticException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator.AbstractAggregationBuffer;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFParameterInfo;
+import org.apache.hadoop.hive.ql.udf.generic.SimpleGenericUDAFParameterInfo;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import es.pic.hadoop.udf.adql.UDAFCoverage.UDAFCoverageEvaluator;
+import es.pic.hadoop.udf.map.UDFMap2Footprint;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestCoverage {
+
+    UDAFCoverage udaf = new UDAFCoverage();
+
+    Object[] inputs;
+    Object output;
+
+    public TestCoverage() {
+        inputs = new Object[] {
+                region(10, 30), region(40, 60), region(10, 20), region(20, 40), region(50, 70)
+        };
+
+        output = Arrays.asList(segment(10, 30, 2), segment(30, 50, 1), segment(50, 60, 2), segment(60, 70, 1));
+    }
+
+    static Object region(long lo, long hi) {
+        ADQLRangeSet rs = new ADQLRangeSet();
+        rs.addPixelRange(29, lo, hi);
+        return new ADQLRegion(rs).serialize();
+    }
+
+    static Object[] segment(long lo, long hi, float count) {
+        return new Object[] {
+                new LongWritable(lo), new LongWritable(hi), new FloatWritable(count)
+        };
+    }
+
+    @Test
+    void isAllColumns() {
+        ObjectInspector[] params = new ObjectInspector[0];
+        GenericUDAFParameterInfo info = new SimpleGenericUDAFParameterInfo(params, false, false, true);
+        assertThrows(SemanticException.class, () -> udaf.getEvaluator(info));
+    }
+
+    @Test
+    void isDistinct() {
+        ObjectInspector[] params = new ObjectInspector[0];
+        GenericUDAFParameterInfo info = new SimpleGenericUDAFParameterInfo(params, false, true, false);
+        assertThrows(SemanticException.class, () -> udaf.getEvaluator(info));
+    }
+
+    @Test
+    void emptyArguments() {
+        ObjectInspector[] params = new ObjectInspector[0];
+        GenericUDAFParameterInfo info = new SimpleGenericUDAFParameterInfo(params, false, false, false);
+        assertThrows(UDFArgumentLengthException.class, () -> udaf.getEvaluator(info));
+    }
+
+    GenericUDAFEvaluator getEvaluator() throws SemanticException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI
+        };
+        GenericUDAFParameterInfo info = new SimpleGenericUDAFParameterInfo(params, false, false, false);
+        return udaf.getEvaluator(info);
+    }
+
+    @Test
+    void outputOI() throws Exception {
+        GenericUDAFEvaluator evalComplete = getEvaluator();
+        GenericUDAFEvaluator evalPartial1 = getEvaluator();
+        GenericUDAFEvaluator evalPartial2 = getEvaluator();
+        GenericUDAFEvaluator evalFinal = getEvaluator();
+
+        ObjectInspector returnOI = evalComplete.init(GenericUDAFEvaluator.Mode.COMPLETE, new ObjectInspector[] {
+                ADQLGeometry.OI
+        });
+        assertEquals(UDFMap2Footprint.mapOI, returnOI);
+
+        ObjectInspector partial1OI = evalPartial1.init(GenericUDAFEvaluator.Mode.PARTIAL1, new ObjectInspector[] {
+                ADQLGeometry.OI
+        });
+        assertEquals(UDAFCoverageEvaluator.partialOI, partial1OI);
+
+        ObjectInspector partial2OI = evalPartial2.init(GenericUDAFEvaluator.Mode.PARTIAL2, new ObjectInspector[] {
+                partial1OI
+        });
+        assertEquals(partial1OI, partial2OI);
+
+        returnOI = evalFinal.init(GenericUDAFEvaluator.Mode.FINAL, new ObjectInspector[] {
+                partial2OI
+        });
+        assertEquals(UDFMap2Footprint.mapOI, returnOI);
+    }
+
+    @Test
+    void wrongNumberOfArguments() throws Exception {
+        GenericUDAFEvaluator eval = getEvaluator();
+        ObjectInspector[] params = new ObjectInspector[] {
+                PrimitiveObjectInspectorFactory.javaVoidObjectInspector,
+                PrimitiveObjectInspectorFactory.javaVoidObjectInspector,
+        };
+
+        assertThrows(UDFArgumentLengthException.class,
+                () -> eval.init(GenericUDAFEvaluator.Mode.COMPLETE, Arrays.copyOfRange(params, 0, 0)));
+        assertThrows(UDFArgumentLengthException.class,
+                () -> eval.init(GenericUDAFEvaluator.Mode.COMPLETE, Arrays.copyOfRange(params, 0, 2)));
+    }
+
+    @Test
+    void wrongTypeOfArguments() throws Exception {
+        GenericUDAFEvaluator eval = getEvaluator();
+        ObjectInspector[] params = new ObjectInspector[] {
+                PrimitiveObjectInspectorFactory.javaVoidObjectInspector,
+        };
+
+        assertThrows(UDFArgumentTypeException.class, () -> eval.init(GenericUDAFEvaluator.Mode.COMPLETE, params));
+    }
+
+    @Test
+    void testMultipleArguments() throws Exception {
+        GenericUDAFEvaluator eval = getEvaluator();
+        eval.init(GenericUDAFEvaluator.Mode.COMPLETE, new ObjectInspector[] {
+                ADQLGeometry.OI
+        });
+
+        AbstractAggregationBuffer agg = (AbstractAggregationBuffer) eval.getNewAggregationBuffer();
+
+        assertThrows(UDFArgumentLengthException.class, () -> eval.iterate(agg, new Object[] {
+                null, null
+        }));
+    }
+
+    @Test
+    void testIterate() throws Exception {
+        GenericUDAFEvaluator eval = getEvaluator();
+        eval.init(GenericUDAFEvaluator.Mode.COMPLETE, new ObjectInspector[] {
+                ADQLGeometry.OI
+        });
+
+        AbstractAggregationBuffer agg = (AbstractAggregationBuffer) eval.getNewAggregationBuffer();
+
+        // Test null value
+        eval.iterate(agg, new Object[] {
+                null
+        });
+
+        for (int i = 0; i < inputs.length; i++) {
+            eval.iterate(agg, new Object[] {
+                    inputs[i]
+            });
+        }
+
+        assertEquals(0, ObjectInspectorUtils.compare(eval.terminate(agg), UDFMap2Footprint.mapOI, output,
+                UDFMap2Footprint.mapOI));
+
+        // The buffer is reused across groups, so nothing must be left over from the previous one
+        eval.reset(agg);
+        assertNull(eval.terminatePartial(agg));
+        assertTrue(((List<?>) eval.terminate(agg)).isEmpty());
+    }
+
+    @Test
+    void testBudget() throws Exception {
+        GenericUDAFEvaluator eval = getEvaluator();
+        eval.init(GenericUDAFEvaluator.Mode.COMPLETE, new ObjectInspector[] {
+                ADQLGeometry.OI
+        });
+
+        AbstractAggregationBuffer agg = (AbstractAggregationBuffer) eval.getNewAggregationBuffer();
+
+        // Merge every region as it arrives, then every two regions, then all of them at once
+        for (int budget : new int[] {
+                0, 2 * 2 * Long.BYTES, ADQLRangeSetBatch.DEFAULT_BUDGET
+        }) {
+            ADQLRangeSetBatch.setBudget(budget);
+            try {
+                for (int i = 0; i < inputs.length; i++) {
+                    eval.iterate(agg, new Object[] {
+                            inputs[i]
+                    });
+                }
+
+                assertEquals(0, ObjectInspectorUtils.compare(eval.terminate(agg), UDFMap2Footprint.mapOI, output,
+                        UDFMap2Footprint.mapOI));
+                assertTrue(agg.estimate() > 0);
+
+                eval.reset(agg);
+            } finally {
+                ADQLRangeSetBatch.setBudget(ADQLRangeSetBatch.DEFAULT_BUDGET);
+            }
+        }
+    }
+
+    @Test
+    void testMerge() throws Exception {
+        GenericUDAFEvaluator evalPartial1 = getEvaluator();
+        GenericUDAFEvaluator evalPartial2 = getEvaluator();
+        GenericUDAFEvaluator evalFinal = getEvaluator();
+
+        ObjectInspector partialOI = evalPartial1.init(GenericUDAFEvaluator.Mode.PARTIAL1, new ObjectInspector[] {
+                ADQLGeometry.OI
+        });
+        evalPartial2.init(GenericUDAFEvaluator.Mode.PARTIAL2, new ObjectInspector[] {
+                partialOI
+        });
+        evalFinal.init(GenericUDAFEvaluator.Mode.FINAL, new ObjectInspector[] {
+                partialOI
+        });
+
+        AbstractAggregationBuffer agg1 = (AbstractAggregationBuffer) evalPartial1.getNewAggregationBuffer();
+        AbstractAggregationBuffer agg2 = (AbstractAggregationBuffer) evalPartial2.getNewAggregationBuffer();
+        AbstractAggregationBuffer aggF = (AbstractAggregationBuffer) evalFinal.getNewAggregationBuffer();
+
+        // Test null reference
+        evalPartial2.merge(agg2, null); // Must not throw any exception
+
+        // Split the inputs between two mappers
+        for (int i = 0; i < inputs.length; i++) {
+            evalPartial1.iterate(agg1, new Object[] {
+                    inputs[i]
+            });
+        }
+        Object partial1 = evalPartial1.terminatePartial(agg1);
+        evalPartial2.merge(agg2, partial1);
+        Object partial2 = evalPartial2.terminatePartial(agg2);
+
+        assertEquals(0, ObjectInspectorUtils.compare(partial1, partialOI, partial2, partialOI));
+
+        // Both partials cover every region once, so counts are doubled
+        evalFinal.merge(aggF, partial1);
+        evalFinal.merge(aggF, partial2);
+
+        Object doubled = Arrays.asList(segment(10, 30, 4), segment(30, 50, 2), segment(50, 60, 4),
+                segment(60, 70, 2));
+        assertEquals(0, ObjectInspectorUtils.compare(evalFinal.terminate(aggF), UDFMap2Footprint.mapOI, doubled,
+                UDFMap2Footprint.mapOI));
+    }
+}
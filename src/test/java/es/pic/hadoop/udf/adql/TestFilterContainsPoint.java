@@ -0,0 +1,196 @@
+package es.pic.hadoop.udf.adql;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorExpressionDescriptor;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizationContext;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeConstantDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestFilterContainsPoint {
+
+    byte[] circle = new ADQLCircle(0, 0, 7).toBinary();
+    byte[] polygon = new ADQLPolygon(-8, -3, 2, -3, 3, 3, -8, 3).toBinary();
+
+    VectorizedRowBatch batch(double[] ra, double[] dec) {
+        VectorizedRowBatch batch = new VectorizedRowBatch(2);
+        DoubleColumnVector raVector = new DoubleColumnVector();
+        DoubleColumnVector decVector = new DoubleColumnVector();
+        System.arraycopy(ra, 0, raVector.vector, 0, ra.length);
+        System.arraycopy(dec, 0, decVector.vector, 0, dec.length);
+        batch.cols[0] = raVector;
+        batch.cols[1] = decVector;
+        batch.size = ra.length;
+        return batch;
+    }
+
+    FilterContainsPoint expression(byte[] geometry) throws HiveException {
+        FilterContainsPoint expr = new FilterContainsPoint(0, 1, geometry);
+        expr.transientInit();
+        return expr;
+    }
+
+    int[] selected(VectorizedRowBatch batch) {
+        return Arrays.copyOf(batch.selected, batch.size);
+    }
+
+    @Test
+    void vectorized() throws HiveException {
+        VectorizationContext vc = new VectorizationContext("test", Arrays.asList("ra", "dec"));
+
+        ExprNodeGenericFuncDesc expr = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo,
+                new UDFContainsPoint(), "contains_point",
+                Arrays.<ExprNodeDesc>asList(new ExprNodeColumnDesc(TypeInfoFactory.doubleTypeInfo, "ra", "t", false),
+                        new ExprNodeColumnDesc(TypeInfoFactory.doubleTypeInfo, "dec", "t", false),
+                        new ExprNodeConstantDesc(TypeInfoFactory.binaryTypeInfo, polygon)));
+
+        assertEquals(FilterContainsPoint.class,
+                vc.getVectorExpression(expr, VectorExpressionDescriptor.Mode.FILTER).getClass());
+    }
+
+    @Test
+    void validValues() throws HiveException {
+        Random rnd = new Random(2);
+        double[] ra = new double[VectorizedRowBatch.DEFAULT_SIZE];
+        double[] dec = new double[VectorizedRowBatch.DEFAULT_SIZE];
+        for (int i = 0; i < ra.length; i++) {
+            ra[i] = rnd.nextDouble() * 24 - 12;
+            dec[i] = rnd.nextDouble() * 16 - 8;
+        }
+
+        for (byte[] geometry : new byte[][] {
+                circle, polygon
+        }) {
+            VectorizedRowBatch batch = batch(ra, dec);
+
+            expression(geometry).evaluate(batch);
+
+            ADQLPointPredicate predicate = ADQLPointPredicate.fromBinary(geometry);
+            int[] expected = new int[ra.length];
+            int n = 0;
+            for (int i = 0; i < ra.length; i++) {
+                if (predicate.contains(ra[i], dec[i])) {
+                    expected[n++] = i;
+                }
+            }
+
+            assertTrue(batch.selectedInUse);
+            assertArrayEquals(Arrays.copyOf(expected, n), selected(batch));
+        }
+    }
+
+    @Test
+    void nullValues() throws HiveException {
+        VectorizedRowBatch batch = batch(new double[] {
+                -4, Double.NaN, -4, 6
+        }, new double[] {
+                0, 0, Double.NaN, 0
+        });
+        batch.cols[0].noNulls = false;
+        batch.cols[0].isNull[1] = true;
+        batch.cols[1].noNulls = false;
+        batch.cols[1].isNull[2] = true;
+
+        expression(circle).evaluate(batch);
+
+        assertArrayEquals(new int[] {
+                0, 3
+        }, selected(batch));
+
+        batch = batch(new double[] {
+                -4
+        }, new double[] {
+                0
+        });
+
+        expression(null).evaluate(batch);
+
+        assertEquals(0, batch.size);
+    }
+
+    @Test
+    void repeatingValues() throws HiveException {
+        VectorizedRowBatch batch = batch(new double[] {
+                -4, -4, -4
+        }, new double[] {
+                0, 10, 5
+        });
+        batch.cols[0].isRepeating = true;
+
+        expression(circle).evaluate(batch);
+
+        assertArrayEquals(new int[] {
+                0, 2
+        }, selected(batch));
+
+        batch = batch(new double[] {
+                -4, -4, -4
+        }, new double[] {
+                0, 0, 0
+        });
+        batch.cols[0].isRepeating = true;
+        batch.cols[1].isRepeating = true;
+
+        expression(circle).evaluate(batch);
+
+        assertFalse(batch.selectedInUse);
+        assertEquals(3, batch.size);
+
+        expression(polygon).evaluate(batch);
+        expression(new ADQLCircle(90, 0, 1).toBinary()).evaluate(batch);
+
+        assertEquals(0, batch.size);
+    }
+
+    @Test
+    void selectedRows() throws HiveException {
+        VectorizedRowBatch batch = batch(new double[] {
+                -4, 6, 50, 1
+        }, new double[] {
+                0, 0, 0, 1
+        });
+        batch.selectedInUse = true;
+        batch.selected[0] = 1;
+        batch.selected[1] = 2;
+        batch.selected[2] = 3;
+        batch.size = 3;
+
+        expression(circle).evaluate(batch);
+
+        assertTrue(batch.selectedInUse);
+        assertArrayEquals(new int[] {
+                1, 3
+        }, selected(batch));
+    }
+
+    @Test
+    void invalidValues() {
+        assertThrows(HiveException.class, () -> expression(new ADQLPoint(0, 0).toBinary()));
+
+        ADQLRangeSet rs = new ADQLRangeSet();
+        rs.addPixelRange(3, 40, 750);
+        byte[] region = new ADQLRegion(rs).toBinary();
+
+        assertThrows(HiveException.class, () -> expression(region).evaluate(batch(new double[] {
+                0
+        }, new double[] {
+                91
+        })));
+    }
+}
@@ -0,0 +1,117 @@
+package es.pic.hadoop.udf.adql;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.BytesWritable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestGeom2Binary {
+
+    UDFGeom2Binary udf = new UDFGeom2Binary();
+
+    ObjectInspector outputOI = PrimitiveObjectInspectorFactory.writableBinaryObjectInspector;
+
+    ADQLRangeSet rs;
+    Object point;
+    Object circle;
+    Object polygon;
+    Object region;
+
+    public TestGeom2Binary() {
+        point = new ADQLPoint(10, 20).serialize();
+        circle = new ADQLCircle(10, 20, 30).serialize();
+        polygon = new ADQLPolygon(10, 10, 20, 10, 20, 20, 10, 20).serialize();
+
+        rs = new ADQLRangeSet();
+        rs.addPixelRange(3, 23, 34);
+        rs.addPixelRange(3, 40, 41);
+        region = new ADQLRegion(rs).serialize();
+    }
+
+    @Test
+    void emptyArguments() {
+        ObjectInspector[] params = new ObjectInspector[0];
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(params));
+    }
+
+    @Test
+    void wrongNumberOfArguments() {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI, ADQLGeometry.OI,
+        };
+
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(Arrays.copyOfRange(params, 0, 0)));
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(Arrays.copyOfRange(params, 0, 2)));
+    }
+
+    @Test
+    void wrongTypeOfArguments() {
+        ObjectInspector[] params = new ObjectInspector[] {
+                PrimitiveObjectInspectorFactory.writableDoubleObjectInspector,
+        };
+
+        assertThrows(UDFArgumentTypeException.class, () -> udf.initialize(params));
+    }
+
+    @Test
+    void nullGeometry() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertNull(udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null),
+        }));
+    }
+
+    @Test
+    void validGeometries() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        for (Object geom : new Object[] {
+                point, circle, polygon, region
+        }) {
+            BytesWritable output = (BytesWritable) udf.evaluate(new DeferredJavaObject[] {
+                    new DeferredJavaObject(geom),
+            });
+
+            assertArrayEquals(ADQLGeometry.fromBlob(geom, ADQLGeometry.OI).toBinary(), output.copyBytes());
+            assertEquals(geom, ADQLGeometry.fromBlob(output, outputOI).serialize());
+        }
+
+        // 1 tag byte, 1 byte for the number of coordinates and 2 doubles
+        assertEquals(18, ((BytesWritable) udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(point),
+        })).getLength());
+        // 1 tag byte, 1 byte for the number of boundaries and 4 delta-encoded boundaries
+        assertEquals(2 + VarInt.size(23L << 52) + VarInt.size(11L << 52) + VarInt.size(6L << 52)
+                + VarInt.size(1L << 52), ((BytesWritable) udf.evaluate(new DeferredJavaObject[] {
+                        new DeferredJavaObject(region),
+                })).getLength());
+    }
+
+    @Test
+    void displayString() {
+        assertDoesNotThrow(() -> udf.getDisplayString(new String[] {}));
+    }
+}
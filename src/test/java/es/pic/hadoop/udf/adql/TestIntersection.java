@@ -41,5 +41,38 @@ public class TestIntersection extends AbstractTestUDAFRegion {
         rs = new ADQLRangeSet();
         rs.addPixelRange(29, 30, 40);
         output = new ADQLRegion(rs).serialize();
+
+        rs = new ADQLRangeSet();
+        rs.addPixelRange(3, 0, 3);
+        rs.addPixelRange(3, 4, 7);
+        rs.addPixelRange(3, 8, 11);
+        region1 = new ADQLRegion(rs).serialize();
+
+        rs = new ADQLRangeSet();
+        rs.addPixelRange(3, 1, 9);
+        region2 = new ADQLRegion(rs).serialize();
+
+        rs = new ADQLRangeSet();
+        rs.add((2L << 52) + 7, 5L << 52);
+        region3 = new ADQLRegion(rs).serialize();
+
+        denseInputs = new Object[] {
+                region1, region2, region3
+        };
+
+        rs = new ADQLRangeSet();
+        rs.addPixelRange(3, 1, 3);
+        rs.addPixelRange(3, 4, 7);
+        rs.addPixelRange(3, 8, 9);
+        Object output2 = new ADQLRegion(rs).serialize();
+
+        rs = new ADQLRangeSet();
+        rs.add((2L << 52) + 7, 3L << 52);
+        rs.addPixelRange(3, 4, 5);
+        Object output3 = new ADQLRegion(rs).serialize();
+
+        denseOutputs = new Object[] {
+                region1, output2, output3
+        };
     }
 }
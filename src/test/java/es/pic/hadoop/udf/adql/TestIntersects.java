@@ -12,6 +12,7 @@ import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -63,6 +64,12 @@ public class TestIntersects {
         region3 = new ADQLRegion(rs).serialize();
     }
 
+    Object compress(Object region) {
+        ADQLRegion geom = (ADQLRegion) ADQLGeometry.fromBlob(region, ADQLGeometry.OI);
+        geom.setFormat(ADQLRangeSetCodec.DELTA);
+        return geom.serialize();
+    }
+
     @Test
     void emptyArguments() {
         ObjectInspector[] params = new ObjectInspector[0];
@@ -227,6 +234,68 @@ public class TestIntersects {
         }).toString());
     }
 
+    @Test
+    void compressedGeoms() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI, ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        for (Object[] args : new Object[][] {
+                { compress(region2), region3 },
+                { region2, compress(region3) },
+                { compress(region2), compress(region3) },
+        }) {
+            assertEquals("true", udf.evaluate(new DeferredJavaObject[] {
+                    new DeferredJavaObject(args[0]), new DeferredJavaObject(args[1])
+            }).toString());
+            assertEquals("true", udf.evaluate(new DeferredJavaObject[] {
+                    new DeferredJavaObject(args[1]), new DeferredJavaObject(args[0])
+            }).toString());
+        }
+
+        assertEquals("false", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(compress(region1)), new DeferredJavaObject(region3)
+        }).toString());
+        assertEquals("false", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(compress(region1)), new DeferredJavaObject(compress(region3))
+        }).toString());
+    }
+
+    @Test
+    void constantGeom() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ObjectInspectorUtils.getConstantObjectInspector(ADQLGeometry.OI, circle1), ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertEquals("true", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(point1)
+        }).toString());
+        assertEquals("false", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(point3)
+        }).toString());
+        assertEquals("true", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(circle2)
+        }).toString());
+        assertEquals("false", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(circle3)
+        }).toString());
+        assertNull(udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(null)
+        }));
+
+        params[0] = ObjectInspectorUtils.getConstantObjectInspector(ADQLGeometry.OI, null);
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertNull(udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(point1)
+        }));
+    }
+
     @Test
     void displayString() {
         assertDoesNotThrow(() -> udf.getDisplayString(new String[] {}));
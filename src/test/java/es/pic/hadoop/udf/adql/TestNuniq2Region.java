@@ -0,0 +1,131 @@
+package es.pic.hadoop.udf.adql;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.LongWritable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestNuniq2Region {
+
+    UDFNuniq2Region udf = new UDFNuniq2Region();
+
+    ObjectInspector inputOI = ObjectInspectorFactory
+            .getStandardListObjectInspector(PrimitiveObjectInspectorFactory.writableLongObjectInspector);
+
+    ADQLRangeSet rs;
+    Object region;
+
+    public TestNuniq2Region() {
+        rs = new ADQLRangeSet();
+        rs.addPixelRange(3, 23, 34);
+        rs.addPixelRange(3, 40, 41);
+        region = new ADQLRegion(rs).serialize();
+    }
+
+    @Test
+    void emptyArguments() {
+        ObjectInspector[] params = new ObjectInspector[0];
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(params));
+    }
+
+    @Test
+    void wrongNumberOfArguments() {
+        ObjectInspector[] params = new ObjectInspector[] {
+                inputOI, inputOI,
+        };
+
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(Arrays.copyOfRange(params, 0, 0)));
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(Arrays.copyOfRange(params, 0, 2)));
+    }
+
+    @Test
+    void wrongTypeOfArguments() {
+        ObjectInspector[] params = new ObjectInspector[] {
+                PrimitiveObjectInspectorFactory.writableLongObjectInspector,
+        };
+
+        assertThrows(UDFArgumentTypeException.class, () -> udf.initialize(params));
+    }
+
+    @Test
+    void nullCells() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                inputOI,
+        };
+
+        assertEquals(udf.initialize(params), ADQLGeometry.OI);
+
+        assertNull(udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null),
+        }));
+    }
+
+    @Test
+    void validCells() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                inputOI,
+        };
+
+        assertEquals(udf.initialize(params), ADQLGeometry.OI);
+
+        // Unsorted, overlapping and null cells
+        assertEquals(region, udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(Arrays.asList(new LongWritable(4 * 64 + 40), new LongWritable(4 * 64 + 23),
+                        new LongWritable(4 * 16 + 7), null, new LongWritable(4 * 64 + 33),
+                        new LongWritable(4 * 64 + 32), new LongWritable(4 * 16 + 6), new LongWritable(4 * 64 + 25))),
+        }));
+
+        // Round trip through region2nuniq
+        assertEquals(region, udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(new UDFRegion2Nuniq() {
+                    {
+                        initialize(new ObjectInspector[] {
+                                ADQLGeometry.OI
+                        });
+                    }
+                }.evaluate(new DeferredJavaObject[] {
+                        new DeferredJavaObject(region)
+                })),
+        }));
+
+        assertEquals(new ADQLRegion(new ADQLRangeSet()).serialize(), udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(Arrays.asList()),
+        }));
+    }
+
+    @Test
+    void invalidCells() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                inputOI,
+        };
+
+        assertEquals(udf.initialize(params), ADQLGeometry.OI);
+
+        for (long cell : new long[] {
+                0L, 3L, -1L, 4L << 60
+        }) {
+            assertThrows(HiveException.class, () -> udf.evaluate(new DeferredJavaObject[] {
+                    new DeferredJavaObject(Arrays.asList(new LongWritable(cell))),
+            }));
+        }
+    }
+
+    @Test
+    void displayString() {
+        assertDoesNotThrow(() -> udf.getDisplayString(new String[] {}));
+    }
+}
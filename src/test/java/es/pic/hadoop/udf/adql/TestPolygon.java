@@ -38,10 +38,10 @@ public class TestPolygon {
                 new DoubleWritable(90.0)
         });
 
-        points.add(new ADQLPoint(coords.subList(0, 2)).serialize());
-        points.add(new ADQLPoint(coords.subList(2, 4)).serialize());
-        points.add(new ADQLPoint(coords.subList(4, 6)).serialize());
-        points.add(new ADQLPoint(coords.subList(6, 8)).serialize());
+        points.add(new ADQLPoint(coords.get(0), coords.get(1)).serialize());
+        points.add(new ADQLPoint(coords.get(2), coords.get(3)).serialize());
+        points.add(new ADQLPoint(coords.get(4), coords.get(5)).serialize());
+        points.add(new ADQLPoint(coords.get(6), coords.get(7)).serialize());
     }
 
     @Test
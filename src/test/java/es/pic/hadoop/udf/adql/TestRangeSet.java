@@ -0,0 +1,87 @@
+package es.pic.hadoop.udf.adql;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestRangeSet {
+
+    ADQLRangeSet randomRangeSet(Random random, int nranges) {
+        ADQLRangeSet rs = new ADQLRangeSet(nranges);
+        long a = random.nextInt(16);
+        for (int i = 0; i < nranges; i++) {
+            long b = a + 1 + random.nextInt(16);
+            rs.append(a, b);
+            a = b + 1 + random.nextInt(16);
+        }
+        return rs;
+    }
+
+    @Test
+    void parallelSetOperations() {
+        Random random = new Random(42);
+        ADQLRangeSet a = randomRangeSet(random, 10000);
+        ADQLRangeSet b = randomRangeSet(random, 10000);
+
+        ADQLRangeSet union = a.union(b);
+        ADQLRangeSet intersection = a.intersection(b);
+        ADQLRangeSet difference = a.difference(b);
+
+        // Chunks are only merged in parallel with an executor of more than one thread
+        try (ADQLRangeSetExecutor executor = new ADQLRangeSetExecutor(4, 0)) {
+            assertEquals(union, a.union(b, executor));
+            assertEquals(intersection, a.intersection(b, executor));
+            assertEquals(difference, a.difference(b, executor));
+            assertEquals(true, a.contains(intersection, executor));
+            assertEquals(false, a.contains(b, executor));
+            assertEquals(true, a.overlaps(b, executor));
+            assertEquals(false, difference.overlaps(b, executor));
+        }
+    }
+
+    @Test
+    void legacyRawBytes() {
+        // Unsorted and overlapping boundaries, as some existing rows hold
+        long[] boundaries = new long[] {
+                30, 40, 10, 35
+        };
+        ByteBuffer buf = ByteBuffer.allocate(boundaries.length * Long.BYTES);
+        buf.asLongBuffer().put(boundaries);
+        byte[] raw = buf.array();
+
+        ADQLRangeSet rs = new ADQLRangeSet(raw, raw.length);
+        assertEquals(2, rs.nranges());
+        assertEquals(30, rs.ivbegin(0));
+        assertEquals(10, rs.ivbegin(1));
+        assertArrayEquals(raw, rs.getRangesAsBytes());
+
+        byte[] delta = ADQLRangeSetCodec.encode(rs.asView(), ADQLRangeSetCodec.DELTA);
+        assertThrows(IllegalArgumentException.class, () -> new ADQLRangeSet(delta, delta.length));
+    }
+
+    @Test
+    void executorConfiguration() {
+        Configuration conf = new Configuration(false);
+
+        assertEquals(ADQLRangeSetExecutor.SEQUENTIAL, ADQLRangeSetExecutor.configure(conf));
+
+        conf.setInt(ADQLRangeSetExecutor.PARALLELISM_PROPERTY, 3);
+        conf.setInt(ADQLRangeSetExecutor.THRESHOLD_PROPERTY, 1000);
+
+        try (ADQLRangeSetExecutor executor = ADQLRangeSetExecutor.configure(conf)) {
+            assertEquals(3, executor.getParallelism());
+            assertEquals(1000, executor.getThreshold());
+        }
+
+        conf.setInt(ADQLRangeSetExecutor.PARALLELISM_PROPERTY, 0);
+        assertThrows(IllegalArgumentException.class, () -> ADQLRangeSetExecutor.configure(conf));
+    }
+}
@@ -0,0 +1,187 @@
+package es.pic.hadoop.udf.adql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import healpix.essentials.HealpixBase;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestRangeSetIndex {
+
+    static final long NPIX = 12L << (2 * HealpixBase.order_max);
+
+    /** Number of pixels at order_max in a cell of order. */
+    long cellSize(int order) {
+        return 1L << (2 * (HealpixBase.order_max - order));
+    }
+
+    /**
+     * A few hundred ranges of random lengths, from single pixels to several cells of order, some of them aligned to
+     * cells. Half of the sets end at the last pixel of face 11.
+     */
+    ADQLRangeSet randomRangeSet(Random rnd, int order) {
+        ADQLRangeSet rs = new ADQLRangeSet();
+        long size = cellSize(order);
+        long a = ((rnd.nextLong() >>> 1) % (NPIX / 2) / size + rnd.nextInt(3)) * size;
+        while (a < NPIX && rs.nranges() < 300) {
+            long length;
+            switch (rnd.nextInt(4)) {
+            case 0:
+                length = 1 + rnd.nextInt(100);
+                break;
+            case 1:
+                length = 1 + (long) (rnd.nextDouble() * size);
+                break;
+            case 2:
+                length = (1 + rnd.nextInt(3)) * size;
+                break;
+            default:
+                length = 1 + (long) (rnd.nextDouble() * 50 * size);
+            }
+            long b = Math.min(NPIX, a + length);
+            if (rnd.nextBoolean()) {
+                // Align the end to a cell boundary
+                b = Math.min(NPIX, Math.max(a + 1, (b / size) * size));
+            }
+            rs.append(a, b);
+
+            a = b + 1 + (long) (rnd.nextDouble() * 20 * size);
+            if (rnd.nextBoolean()) {
+                // Align the next start to a cell boundary
+                a = ((a + size - 1) / size) * size;
+            }
+        }
+        if (a < NPIX && rnd.nextBoolean()) {
+            rs.append(a, NPIX);
+        }
+        return rs;
+    }
+
+    /** Pixels at and around every boundary of the ranges and of the cells they touch, plus both ends of the sky. */
+    List<Long> boundaryPixels(ADQLRangeSetView view, int order) {
+        List<Long> pixels = new ArrayList<>();
+        long size = cellSize(order);
+        for (int iv = 0; iv < view.nranges(); iv++) {
+            for (long boundary : new long[] {
+                    view.ivbegin(iv), view.ivend(iv)
+            }) {
+                long cell = (boundary / size) * size;
+                for (long p : new long[] {
+                        boundary - 1, boundary, boundary + 1, cell - 1, cell, cell + size - 1, cell + size
+                }) {
+                    if (p >= 0 && p < NPIX) {
+                        pixels.add(p);
+                    }
+                }
+            }
+        }
+        pixels.add(0L);
+        pixels.add(NPIX - 1);
+        return pixels;
+    }
+
+    @Test
+    void cells() {
+        int order = 2;
+        long size = cellSize(order);
+
+        ADQLRangeSet rs = new ADQLRangeSet();
+        rs.append(5 * size, 6 * size); // Cell 5, exactly
+        rs.append(7 * size + 10, 7 * size + 20); // Inside cell 7
+        rs.append(10 * size + 1, 13 * size + 1); // Cells 10 to 13, with both ends partial
+        rs.append(20 * size - 1, 20 * size); // Last pixel of cell 19
+        rs.append(NPIX - 1, NPIX); // Last pixel of face 11
+
+        ADQLRangeSetIndex index = new ADQLRangeSetIndex(rs.asView(), (byte) order);
+
+        for (int cell : new int[] {
+                5, 11, 12
+        }) {
+            assertTrue(index.isFull(cell), "cell " + cell);
+            assertFalse(index.isPartial(cell), "cell " + cell);
+        }
+        for (int cell : new int[] {
+                7, 10, 13, 19, 12 * 16 - 1
+        }) {
+            assertFalse(index.isFull(cell), "cell " + cell);
+            assertTrue(index.isPartial(cell), "cell " + cell);
+        }
+        for (int cell : new int[] {
+                0, 4, 6, 8, 9, 14, 20, 12 * 16 - 2
+        }) {
+            assertFalse(index.isFull(cell), "cell " + cell);
+            assertFalse(index.isPartial(cell), "cell " + cell);
+        }
+
+        for (long p : boundaryPixels(rs.asView(), order)) {
+            assertEquals(rs.contains(p), index.contains(p), "pixel " + p);
+        }
+        assertTrue(index.contains(NPIX - 1));
+        assertFalse(index.contains(NPIX - 2));
+    }
+
+    @Test
+    void fullSky() {
+        ADQLRangeSet rs = new ADQLRangeSet();
+        rs.append(0, NPIX);
+
+        ADQLRangeSetIndex index = new ADQLRangeSetIndex(rs.asView());
+
+        for (int cell = 0; cell < 12 << (2 * ADQLRangeSetIndex.DEFAULT_ORDER); cell++) {
+            assertTrue(index.isFull(cell));
+            assertFalse(index.isPartial(cell));
+        }
+        assertTrue(index.contains(0));
+        assertTrue(index.contains(NPIX - 1));
+    }
+
+    @Test
+    void emptySet() {
+        ADQLRangeSetIndex index = new ADQLRangeSetIndex(new ADQLRangeSet().asView());
+
+        assertFalse(index.contains(0));
+        assertFalse(index.contains(NPIX - 1));
+        assertFalse(index.isFull(0));
+        assertFalse(index.isPartial(0));
+    }
+
+    @Test
+    void sameAsView() {
+        Random rnd = new Random(3);
+
+        for (int order : new int[] {
+                0, 3, ADQLRangeSetIndex.DEFAULT_ORDER, ADQLRangeSetIndex.MAX_ORDER
+        }) {
+            for (int n = 0; n < 5; n++) {
+                ADQLRangeSetView view = randomRangeSet(rnd, order).asView();
+                ADQLRangeSetIndex index = new ADQLRangeSetIndex(view, (byte) order);
+
+                for (long p : boundaryPixels(view, order)) {
+                    assertEquals(view.contains(p), index.contains(p), "pixel " + p + " at order " + order);
+                }
+                for (int i = 0; i < 10000; i++) {
+                    long p = (rnd.nextLong() >>> 1) % NPIX;
+                    assertEquals(view.contains(p), index.contains(p), "pixel " + p + " at order " + order);
+                }
+            }
+        }
+    }
+
+    @Test
+    void invalidOrder() {
+        ADQLRangeSetView view = new ADQLRangeSet().asView();
+
+        assertThrows(IllegalArgumentException.class, () -> new ADQLRangeSetIndex(view, (byte) -1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ADQLRangeSetIndex(view, (byte) (ADQLRangeSetIndex.MAX_ORDER + 1)));
+    }
+}
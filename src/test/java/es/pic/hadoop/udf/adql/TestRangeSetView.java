@@ -0,0 +1,55 @@
+package es.pic.hadoop.udf.adql;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestRangeSetView {
+
+    ADQLRangeSet rangeSet() {
+        ADQLRangeSet rs = new ADQLRangeSet();
+        rs.append(10, 20);
+        rs.append(30, 40);
+        return rs;
+    }
+
+    @Test
+    void nullBytes() {
+        ADQLRangeSetView view = new ADQLRangeSetView(null, 0);
+
+        assertTrue(view.isEmpty());
+        assertEquals(0, view.toRangeSet().nranges());
+        assertArrayEquals(new byte[0], view.getRangesAsBytes());
+
+        byte[] bytes = rangeSet().getRangesAsBytes();
+        view.wrap(bytes, bytes.length);
+
+        assertEquals(2, view.nranges());
+
+        view.wrap(null, 0);
+
+        assertTrue(view.isEmpty());
+        assertArrayEquals(new byte[0], view.getRangesAsBytes());
+    }
+
+    @Test
+    void reusedBytes() {
+        byte[] bytes = rangeSet().getRangesAsBytes();
+        ADQLRangeSetView view = new ADQLRangeSetView(bytes, bytes.length);
+
+        assertEquals(2, view.nranges());
+        assertEquals(20, view.nval());
+
+        // The same array wrapped again with fewer bytes, as a reused BytesWritable is
+        view.wrap(bytes, bytes.length / 2);
+
+        assertEquals(1, view.nranges());
+        assertEquals(10, view.ivbegin(0));
+        assertEquals(20, view.ivend(0));
+        assertArrayEquals(rangeSet().getRangesAsBytes(), new ADQLRangeSetView(bytes, bytes.length).getRangesAsBytes());
+    }
+}
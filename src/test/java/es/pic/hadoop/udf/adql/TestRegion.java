@@ -200,6 +200,42 @@ public class TestRegion {
         assertEquals(8388625L, cksum.getValue());
     }
 
+    @Test
+    void degradedRegions() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI, PrimitiveObjectInspectorFactory.writableByteObjectInspector,
+        };
+
+        assertEquals(udf.initialize(params), ADQLGeometry.OI);
+
+        // At order 9 the first two ranges touch the same cells, and must be coalesced
+        ADQLRangeSet rs = new ADQLRangeSet();
+        rs.add(5, 10);
+        rs.add((1L << 40) - 1, (1L << 40) + 1);
+        rs.add((3L << 40) + 7, (3L << 40) + 9);
+        ADQLRegion input = new ADQLRegion(rs);
+        ADQLRangeSet expected = new ADQLRangeSet(new long[] {
+                0, 2L << 40, 3L << 40, 4L << 40
+        });
+
+        Object raw = input.serialize();
+        input.setFormat(ADQLRangeSetCodec.DELTA);
+        Object compressed = input.serialize();
+
+        for (Object blob : new Object[] {
+                raw, compressed
+        }) {
+            geom = ADQLGeometry.fromBlob(udf.evaluate(new DeferredJavaObject[] {
+                    new DeferredJavaObject(blob), new DeferredJavaObject(new ByteWritable((byte) 9))
+            }), ADQLGeometry.OI);
+            assertEquals(expected, geom.getRangeSet());
+        }
+
+        assertEquals(expected, rs.degradedToOrder(9));
+        // None of the ranges covers a whole cell
+        assertEquals(new ADQLRangeSet(), rs.degradedToOrder(9, false));
+    }
+
     @Test
     void invalidGeoms() throws HiveException {
         ObjectInspector[] params = new ObjectInspector[] {
@@ -0,0 +1,124 @@
+package es.pic.hadoop.udf.adql;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.LongWritable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestRegion2Nuniq {
+
+    UDFRegion2Nuniq udf = new UDFRegion2Nuniq();
+
+    ObjectInspector outputOI = ObjectInspectorFactory
+            .getStandardListObjectInspector(PrimitiveObjectInspectorFactory.writableLongObjectInspector);
+
+    ADQLRangeSet rs;
+    Object point;
+    Object region;
+    Object sky;
+
+    public TestRegion2Nuniq() {
+        point = new ADQLPoint(10, 20).serialize();
+
+        rs = new ADQLRangeSet();
+        rs.addPixelRange(3, 23, 34);
+        rs.addPixelRange(3, 40, 41);
+        region = new ADQLRegion(rs).serialize();
+
+        rs = new ADQLRangeSet();
+        rs.addPixelRange(0, 0, 12);
+        sky = new ADQLRegion(rs).serialize();
+    }
+
+    static List<LongWritable> cells(long... cells) {
+        LongWritable[] list = new LongWritable[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            list[i] = new LongWritable(cells[i]);
+        }
+        return Arrays.asList(list);
+    }
+
+    @Test
+    void emptyArguments() {
+        ObjectInspector[] params = new ObjectInspector[0];
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(params));
+    }
+
+    @Test
+    void wrongNumberOfArguments() {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI, ADQLGeometry.OI,
+        };
+
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(Arrays.copyOfRange(params, 0, 0)));
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(Arrays.copyOfRange(params, 0, 2)));
+    }
+
+    @Test
+    void wrongTypeOfArguments() {
+        ObjectInspector[] params = new ObjectInspector[] {
+                PrimitiveObjectInspectorFactory.writableDoubleObjectInspector,
+        };
+
+        assertThrows(UDFArgumentTypeException.class, () -> udf.initialize(params));
+    }
+
+    @Test
+    void nullGeometry() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertNull(udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null),
+        }));
+    }
+
+    @Test
+    void validGeometries() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        // Pixels 24 to 31 at order 3 are pixels 6 and 7 at order 2
+        assertEquals(cells(4 * 16 + 6, 4 * 16 + 7, 4 * 64 + 23, 4 * 64 + 32, 4 * 64 + 33, 4 * 64 + 40),
+                udf.evaluate(new DeferredJavaObject[] {
+                        new DeferredJavaObject(region),
+                }));
+
+        assertEquals(cells(4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15), udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(sky),
+        }));
+
+        // A POINT is a single cell at order 29
+        List<?> cells = (List<?>) udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(point),
+        });
+        assertEquals(1, cells.size());
+        assertEquals(29, (63 - Long.numberOfLeadingZeros(((LongWritable) cells.get(0)).get())) / 2 - 1);
+    }
+
+    @Test
+    void displayString() {
+        assertDoesNotThrow(() -> udf.getDisplayString(new String[] {}));
+    }
+}
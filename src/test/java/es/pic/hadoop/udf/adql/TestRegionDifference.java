@@ -0,0 +1,12 @@
+package es.pic.hadoop.udf.adql;
+
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestRegionDifference extends AbstractTestUDFRegionOperation {
+    public TestRegionDifference() {
+        udf = new UDFRegionDifference();
+
+        output = rs1.difference(rs2);
+    }
+}
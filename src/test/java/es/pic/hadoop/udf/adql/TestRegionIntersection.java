@@ -0,0 +1,12 @@
+package es.pic.hadoop.udf.adql;
+
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestRegionIntersection extends AbstractTestUDFRegionOperation {
+    public TestRegionIntersection() {
+        udf = new UDFRegionIntersection();
+
+        output = rs1.intersection(rs2);
+    }
+}
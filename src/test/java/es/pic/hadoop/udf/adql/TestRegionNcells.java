@@ -0,0 +1,154 @@
+package es.pic.hadoop.udf.adql;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.serde2.io.ByteWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.BytesWritable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestRegionNcells {
+
+    UDFRegionNcells udf = new UDFRegionNcells();
+
+    ObjectInspector outputOI = PrimitiveObjectInspectorFactory.writableLongObjectInspector;
+
+    ADQLRangeSet rs;
+    Object region;
+
+    public TestRegionNcells() {
+        rs = new ADQLRangeSet();
+        rs.addPixelRange(3, 23, 34);
+        rs.addPixelRange(3, 40, 41);
+        // Both ranges share pixel 0 at order 2, which must only be counted once
+        rs.add(5, 10);
+        rs.add(20, 30);
+        region = new ADQLRegion(rs).serialize();
+    }
+
+    Object evaluate(Object geom, int order) throws HiveException {
+        return udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(geom), new DeferredJavaObject(new ByteWritable((byte) order))
+        });
+    }
+
+    @Test
+    void emptyArguments() {
+        ObjectInspector[] params = new ObjectInspector[0];
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(params));
+    }
+
+    @Test
+    void wrongNumberOfArguments() {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI, PrimitiveObjectInspectorFactory.writableByteObjectInspector,
+                PrimitiveObjectInspectorFactory.writableByteObjectInspector,
+        };
+
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(Arrays.copyOfRange(params, 0, 1)));
+        assertThrows(UDFArgumentLengthException.class, () -> udf.initialize(Arrays.copyOfRange(params, 0, 3)));
+    }
+
+    @Test
+    void wrongTypeOfArguments() {
+        ObjectInspector[] params = new ObjectInspector[] {
+                PrimitiveObjectInspectorFactory.writableDoubleObjectInspector,
+                PrimitiveObjectInspectorFactory.writableByteObjectInspector,
+        };
+
+        assertThrows(UDFArgumentTypeException.class, () -> udf.initialize(params));
+    }
+
+    @Test
+    void nullArguments() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI, PrimitiveObjectInspectorFactory.writableByteObjectInspector,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertNull(evaluate(null, 3));
+        assertNull(udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(region), new DeferredJavaObject(null)
+        }));
+    }
+
+    @Test
+    void validRegions() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI, PrimitiveObjectInspectorFactory.writableByteObjectInspector,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        ADQLRegion compressed = new ADQLRegion(rs);
+        compressed.setFormat(ADQLRangeSetCodec.DELTA);
+
+        for (Object geom : new Object[] {
+                region, compressed.serialize()
+        }) {
+            assertEquals("54043195528445967", evaluate(geom, 29).toString());
+            assertEquals("13", evaluate(geom, 3).toString());
+            assertEquals("6", evaluate(geom, 2).toString());
+            assertEquals("1", evaluate(geom, 0).toString());
+        }
+
+        assertEquals("0", evaluate(new ADQLRegion(new ADQLRangeSet()).serialize(), 10).toString());
+        assertThrows(HiveException.class, () -> evaluate(region, 30));
+        assertThrows(HiveException.class, () -> evaluate(region, -1));
+    }
+
+    @Test
+    void otherShapes() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                ADQLGeometry.OI, PrimitiveObjectInspectorFactory.writableByteObjectInspector,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        ADQLCircle circle = new ADQLCircle(10, 20, 0.5);
+        ADQLRangeSetCursor cursor = new ADQLRangeSetCursor();
+
+        // Above the default order, only the cells of the circle at that order are counted
+        circle.toRegion((byte) 12).cursor(cursor);
+        long expected = ADQLRangeSetCursor.ncells(cursor, 12);
+        circle.toRegion().cursor(cursor);
+        assertTrue(expected < ADQLRangeSetCursor.ncells(cursor, 12));
+        assertEquals(Long.toString(expected), evaluate(circle.serialize(), 12).toString());
+
+        circle.toRegion().cursor(cursor);
+        assertEquals(Long.toString(ADQLRangeSetCursor.ncells(cursor, 5)), evaluate(circle.serialize(), 5).toString());
+
+        assertEquals("1", evaluate(new ADQLPoint(10, 20).serialize(), 12).toString());
+    }
+
+    @Test
+    void binaryRegion() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                PrimitiveObjectInspectorFactory.writableBinaryObjectInspector,
+                PrimitiveObjectInspectorFactory.writableByteObjectInspector,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertEquals("13", evaluate(new BytesWritable(new ADQLRegion(rs).toBinary()), 3).toString());
+    }
+
+    @Test
+    void displayString() {
+        assertDoesNotThrow(() -> udf.getDisplayString(new String[] {}));
+    }
+}
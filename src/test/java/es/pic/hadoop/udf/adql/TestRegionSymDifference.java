@@ -0,0 +1,12 @@
+package es.pic.hadoop.udf.adql;
+
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestRegionSymDifference extends AbstractTestUDFRegionOperation {
+    public TestRegionSymDifference() {
+        udf = new UDFRegionSymDifference();
+
+        output = rs1.union(rs2).difference(rs1.intersection(rs2));
+    }
+}
@@ -0,0 +1,12 @@
+package es.pic.hadoop.udf.adql;
+
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestRegionUnion extends AbstractTestUDFRegionOperation {
+    public TestRegionUnion() {
+        udf = new UDFRegionUnion();
+
+        output = rs1.union(rs2);
+    }
+}
@@ -42,5 +42,39 @@ public class TestUnion extends AbstractTestUDAFRegion {
         rs = new ADQLRangeSet();
         rs.addPixelRange(29, 10, 70);
         output = new ADQLRegion(rs).serialize();
+
+        rs = new ADQLRangeSet();
+        rs.addPixelRange(3, 0, 1);
+        rs.addPixelRange(3, 2, 3);
+        rs.addPixelRange(3, 4, 5);
+        region1 = new ADQLRegion(rs).serialize();
+
+        rs = new ADQLRangeSet();
+        rs.addPixelRange(3, 6, 8);
+        region2 = new ADQLRegion(rs).serialize();
+
+        rs = new ADQLRangeSet();
+        rs.add(10L << 52, (10L << 52) + 5);
+        region3 = new ADQLRegion(rs).serialize();
+
+        denseInputs = new Object[] {
+                region1, region2, region3
+        };
+
+        rs = new ADQLRangeSet();
+        rs.addPixelRange(3, 0, 1);
+        rs.addPixelRange(3, 2, 3);
+        rs.addPixelRange(3, 4, 5);
+        Object output1 = new ADQLRegion(rs).serialize();
+
+        rs.addPixelRange(3, 6, 8);
+        Object output2 = new ADQLRegion(rs).serialize();
+
+        rs.add(10L << 52, (10L << 52) + 5);
+        Object output3 = new ADQLRegion(rs).serialize();
+
+        denseOutputs = new Object[] {
+                output1, output2, output3
+        };
     }
 }
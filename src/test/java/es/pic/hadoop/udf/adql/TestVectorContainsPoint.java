@@ -0,0 +1,180 @@
+package es.pic.hadoop.udf.adql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizationContext;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeConstantDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestVectorContainsPoint {
+
+    byte[] circle = new ADQLCircle(0, 0, 7).toBinary();
+    byte[] polygon = new ADQLPolygon(-8, -3, 2, -3, 3, 3, -8, 3).toBinary();
+
+    VectorizedRowBatch batch(double[] ra, double[] dec) {
+        VectorizedRowBatch batch = new VectorizedRowBatch(3);
+        DoubleColumnVector raVector = new DoubleColumnVector();
+        DoubleColumnVector decVector = new DoubleColumnVector();
+        System.arraycopy(ra, 0, raVector.vector, 0, ra.length);
+        System.arraycopy(dec, 0, decVector.vector, 0, dec.length);
+        batch.cols[0] = raVector;
+        batch.cols[1] = decVector;
+        batch.cols[2] = new LongColumnVector();
+        batch.size = ra.length;
+        return batch;
+    }
+
+    VectorContainsPoint expression(byte[] geometry) throws HiveException {
+        VectorContainsPoint expr = new VectorContainsPoint(0, 1, geometry, 2);
+        expr.transientInit();
+        return expr;
+    }
+
+    @Test
+    void vectorized() throws HiveException {
+        VectorizationContext vc = new VectorizationContext("test", Arrays.asList("ra", "dec"));
+
+        ExprNodeGenericFuncDesc expr = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo,
+                new UDFContainsPoint(), "contains_point",
+                Arrays.<ExprNodeDesc>asList(new ExprNodeColumnDesc(TypeInfoFactory.doubleTypeInfo, "ra", "t", false),
+                        new ExprNodeColumnDesc(TypeInfoFactory.doubleTypeInfo, "dec", "t", false),
+                        new ExprNodeConstantDesc(TypeInfoFactory.binaryTypeInfo, circle)));
+
+        assertEquals(VectorContainsPoint.class, vc.getVectorExpression(expr).getClass());
+    }
+
+    @Test
+    void validValues() throws HiveException {
+        Random rnd = new Random(1);
+        double[] ra = new double[VectorizedRowBatch.DEFAULT_SIZE];
+        double[] dec = new double[VectorizedRowBatch.DEFAULT_SIZE];
+        for (int i = 0; i < ra.length; i++) {
+            ra[i] = rnd.nextDouble() * 24 - 12;
+            dec[i] = rnd.nextDouble() * 16 - 8;
+        }
+
+        for (byte[] geometry : new byte[][] {
+                circle, polygon
+        }) {
+            VectorizedRowBatch batch = batch(ra, dec);
+
+            expression(geometry).evaluate(batch);
+
+            ADQLPointPredicate predicate = ADQLPointPredicate.fromBinary(geometry);
+            LongColumnVector output = (LongColumnVector) batch.cols[2];
+            assertFalse(output.isRepeating);
+            for (int i = 0; i < batch.size; i++) {
+                assertEquals(predicate.contains(ra[i], dec[i]) ? 1 : 0, output.vector[i]);
+                assertFalse(output.isNull[i]);
+            }
+        }
+    }
+
+    @Test
+    void nullValues() throws HiveException {
+        VectorizedRowBatch batch = batch(new double[] {
+                -4, Double.NaN, -4
+        }, new double[] {
+                0, 0, Double.NaN
+        });
+        batch.cols[0].noNulls = false;
+        batch.cols[0].isNull[1] = true;
+        batch.cols[1].noNulls = false;
+        batch.cols[1].isNull[2] = true;
+
+        expression(circle).evaluate(batch);
+
+        LongColumnVector output = (LongColumnVector) batch.cols[2];
+        assertFalse(output.noNulls);
+        assertFalse(output.isNull[0]);
+        assertEquals(1, output.vector[0]);
+        assertTrue(output.isNull[1]);
+        assertTrue(output.isNull[2]);
+
+        batch = batch(new double[] {
+                -4
+        }, new double[] {
+                0
+        });
+
+        expression(null).evaluate(batch);
+
+        output = (LongColumnVector) batch.cols[2];
+        assertFalse(output.noNulls);
+        assertTrue(output.isRepeating);
+        assertTrue(output.isNull[0]);
+    }
+
+    @Test
+    void repeatingValues() throws HiveException {
+        VectorizedRowBatch batch = batch(new double[] {
+                -4, -4, -4
+        }, new double[] {
+                0, 5, 10
+        });
+        batch.cols[0].isRepeating = true;
+
+        expression(circle).evaluate(batch);
+
+        LongColumnVector output = (LongColumnVector) batch.cols[2];
+        assertFalse(output.isRepeating);
+        assertEquals(1, output.vector[1]);
+        assertEquals(0, output.vector[2]);
+
+        batch.cols[1].isRepeating = true;
+        expression(circle).evaluate(batch);
+
+        assertTrue(output.isRepeating);
+        assertEquals(1, output.vector[0]);
+    }
+
+    @Test
+    void selectedRows() throws HiveException {
+        VectorizedRowBatch batch = batch(new double[] {
+                -4, 50, 6
+        }, new double[] {
+                0, 0, 5
+        });
+        batch.selectedInUse = true;
+        batch.selected[0] = 0;
+        batch.selected[1] = 2;
+        batch.size = 2;
+
+        expression(circle).evaluate(batch);
+
+        LongColumnVector output = (LongColumnVector) batch.cols[2];
+        assertEquals(1, output.vector[0]);
+        assertEquals(0, output.vector[2]);
+    }
+
+    @Test
+    void invalidValues() {
+        assertThrows(HiveException.class, () -> expression(new ADQLPoint(0, 0).toBinary()));
+
+        ADQLRangeSet rs = new ADQLRangeSet();
+        rs.addPixelRange(3, 40, 750);
+        byte[] region = new ADQLRegion(rs).toBinary();
+
+        assertThrows(HiveException.class, () -> expression(region).evaluate(batch(new double[] {
+                0
+        }, new double[] {
+                91
+        })));
+    }
+}
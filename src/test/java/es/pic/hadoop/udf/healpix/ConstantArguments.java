@@ -0,0 +1,51 @@
+package es.pic.hadoop.udf.healpix;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.io.ByteWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.BooleanWritable;
+
+/** Constant arguments of the HEALPix functions, and the checks shared by every function taking a constant order. */
+final class ConstantArguments {
+
+    private ConstantArguments() {
+    }
+
+    /** @return a constant order, or a NULL constant if order is null. */
+    static ObjectInspector constantOrder(Object order) {
+        return PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(TypeInfoFactory.byteTypeInfo,
+                order == null ? null : new ByteWritable(((Number) order).byteValue()));
+    }
+
+    static ObjectInspector constantFlag(boolean value) {
+        return PrimitiveObjectInspectorFactory
+                .getPrimitiveWritableConstantObjectInspector(TypeInfoFactory.booleanTypeInfo, new BooleanWritable(value));
+    }
+
+    /**
+     * Check that replacing the order in params with a NULL constant makes udf return NULL for arguments, and with an
+     * invalid one makes initialize fail.
+     */
+    static void assertConstantOrder(GenericUDF udf, ObjectInspector[] params, ObjectInspector outputOI,
+            DeferredObject[] arguments) throws HiveException {
+        ObjectInspector[] constants = params.clone();
+
+        constants[0] = constantOrder(null);
+
+        assertEquals(udf.initialize(constants), outputOI);
+        assertNull(udf.evaluate(arguments));
+
+        constants[0] = constantOrder(50);
+
+        assertThrows(UDFArgumentException.class, () -> udf.initialize(constants));
+    }
+}
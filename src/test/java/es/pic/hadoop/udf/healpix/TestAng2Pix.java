@@ -1,5 +1,8 @@
 package es.pic.hadoop.udf.healpix;
 
+import static es.pic.hadoop.udf.healpix.ConstantArguments.assertConstantOrder;
+import static es.pic.hadoop.udf.healpix.ConstantArguments.constantFlag;
+import static es.pic.hadoop.udf.healpix.ConstantArguments.constantOrder;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -132,6 +135,46 @@ public class TestAng2Pix {
         }).toString());
     }
 
+    @Test
+    void constantArguments() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                constantOrder(10), PrimitiveObjectInspectorFactory.writableFloatObjectInspector,
+                PrimitiveObjectInspectorFactory.writableFloatObjectInspector, constantFlag(true), constantFlag(true),
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        // Constant arguments are only read in initialize
+        assertEquals("108023", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new FloatWritable((float) 50)),
+                new DeferredJavaObject(new FloatWritable((float) 20)), new DeferredJavaObject(null),
+                new DeferredJavaObject(null),
+        }).toString());
+
+        params[3] = PrimitiveObjectInspectorFactory.writableBooleanObjectInspector;
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertEquals("4139577", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new FloatWritable((float) 50)),
+                new DeferredJavaObject(new FloatWritable((float) 20)),
+                new DeferredJavaObject(new BooleanWritable(false)), new DeferredJavaObject(null),
+        }).toString());
+
+        assertEquals(udf.initialize(Arrays.copyOfRange(params, 0, 3)), outputOI);
+
+        assertEquals("770119", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new FloatWritable((float) 0.5)),
+                new DeferredJavaObject(new FloatWritable((float) 0.2)),
+        }).toString());
+
+        assertConstantOrder(udf, params, outputOI, new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new FloatWritable((float) 50)),
+                new DeferredJavaObject(new FloatWritable((float) 20)),
+                new DeferredJavaObject(new BooleanWritable(false)), new DeferredJavaObject(null),
+        });
+    }
+
     @Test
     void displayString() {
         assertDoesNotThrow(() -> udf.getDisplayString(new String[] {}));
@@ -0,0 +1,252 @@
+package es.pic.hadoop.udf.healpix;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import healpix.essentials.HealpixProc;
+import healpix.essentials.Pointing;
+import healpix.essentials.Vec3;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestHealpixKernel {
+
+    static final int[] ORDERS = new int[] {
+            0, 1, 2, 3, 5, 8, 10, 13, 17, 20, 24, 28, 29
+    };
+    static final int SAMPLES = 2000;
+
+    long randomPixel(Random rnd, int order) {
+        return (rnd.nextLong() >>> 1) % (12L << (2 * order));
+    }
+
+    double randomTheta(Random rnd) {
+        switch (rnd.nextInt(4)) {
+        case 0: // North polar cap
+            return rnd.nextDouble() * 0.02;
+        case 1: // South polar cap
+            return Math.PI - rnd.nextDouble() * 0.02;
+        default:
+            return rnd.nextDouble() * Math.PI;
+        }
+    }
+
+    @Test
+    void ang2pix() throws Exception {
+        Random rnd = new Random(1);
+
+        for (int order : ORDERS) {
+            for (int i = 0; i < SAMPLES; i++) {
+                double theta = randomTheta(rnd);
+                double phi = (rnd.nextDouble() * 6 - 2) * Math.PI;
+                Pointing pt = new Pointing(theta, phi);
+
+                assertEquals(HealpixProc.ang2pixNest(order, pt), HealpixKernel.ang2pixNest(order, theta, phi));
+                assertEquals(HealpixProc.ang2pixRing(order, pt), HealpixKernel.ang2pixRing(order, theta, phi));
+            }
+        }
+    }
+
+    @Test
+    void vec2pix() throws Exception {
+        Random rnd = new Random(2);
+
+        for (int order : ORDERS) {
+            for (int i = 0; i < SAMPLES; i++) {
+                double x = rnd.nextGaussian();
+                double y = rnd.nextGaussian();
+                double z = rnd.nextGaussian() * (rnd.nextBoolean() ? 1 : 1000);
+                Vec3 vec = new Vec3(x, y, z);
+
+                assertEquals(HealpixProc.vec2pixNest(order, vec), HealpixKernel.vec2pixNest(order, x, y, z));
+                assertEquals(HealpixProc.vec2pixRing(order, vec), HealpixKernel.vec2pixRing(order, x, y, z));
+            }
+        }
+    }
+
+    @Test
+    void pix2ang() throws Exception {
+        Random rnd = new Random(3);
+        double[] ang = new double[2];
+
+        for (int order : ORDERS) {
+            for (int i = 0; i < SAMPLES; i++) {
+                long ipix = randomPixel(rnd, order);
+
+                Pointing pt = HealpixProc.pix2angNest(order, ipix);
+                HealpixKernel.pix2angNest(order, ipix, ang);
+                assertArrayEquals(new double[] {
+                        pt.theta, pt.phi
+                }, ang);
+
+                pt = HealpixProc.pix2angRing(order, ipix);
+                HealpixKernel.pix2angRing(order, ipix, ang);
+                assertArrayEquals(new double[] {
+                        pt.theta, pt.phi
+                }, ang);
+            }
+        }
+    }
+
+    @Test
+    void pix2vec() throws Exception {
+        Random rnd = new Random(4);
+        double[] vec = new double[3];
+
+        for (int order : ORDERS) {
+            for (int i = 0; i < SAMPLES; i++) {
+                long ipix = randomPixel(rnd, order);
+
+                Vec3 v = HealpixProc.pix2vecNest(order, ipix);
+                HealpixKernel.pix2vecNest(order, ipix, vec);
+                assertArrayEquals(new double[] {
+                        v.x, v.y, v.z
+                }, vec);
+
+                v = HealpixProc.pix2vecRing(order, ipix);
+                HealpixKernel.pix2vecRing(order, ipix, vec);
+                assertArrayEquals(new double[] {
+                        v.x, v.y, v.z
+                }, vec);
+            }
+        }
+    }
+
+    @Test
+    void nest2ring() throws Exception {
+        Random rnd = new Random(5);
+
+        for (int order : ORDERS) {
+            for (int i = 0; i < SAMPLES; i++) {
+                long ipix = randomPixel(rnd, order);
+
+                assertEquals(HealpixProc.nest2ring(order, ipix), HealpixKernel.nest2ring(order, ipix));
+                assertEquals(HealpixProc.ring2nest(order, ipix), HealpixKernel.ring2nest(order, ipix));
+            }
+        }
+    }
+
+    @Test
+    void neighbours() throws Exception {
+        Random rnd = new Random(6);
+        long[] result = new long[8];
+
+        for (int order : ORDERS) {
+            for (int i = 0; i < SAMPLES; i++) {
+                long ipix = randomPixel(rnd, order);
+
+                HealpixKernel.neighboursNest(order, ipix, result);
+                assertArrayEquals(HealpixProc.neighboursNest(order, ipix), result);
+
+                HealpixKernel.neighboursRing(order, ipix, result);
+                assertArrayEquals(HealpixProc.neighboursRing(order, ipix), result);
+            }
+        }
+    }
+
+    @Test
+    void allPixelsAtLowOrders() throws Exception {
+        long[] result = new long[8];
+
+        for (int order = 0; order <= 4; order++) {
+            for (long ipix = 0; ipix < 12L << (2 * order); ipix++) {
+                assertEquals(HealpixProc.nest2ring(order, ipix), HealpixKernel.nest2ring(order, ipix));
+                assertEquals(HealpixProc.ring2nest(order, ipix), HealpixKernel.ring2nest(order, ipix));
+
+                HealpixKernel.neighboursNest(order, ipix, result);
+                assertArrayEquals(HealpixProc.neighboursNest(order, ipix), result);
+                HealpixKernel.neighboursRing(order, ipix, result);
+                assertArrayEquals(HealpixProc.neighboursRing(order, ipix), result);
+            }
+        }
+    }
+
+    @Test
+    void roundTrips() {
+        Random rnd = new Random(7);
+        double[] ang = new double[2];
+        double[] vec = new double[3];
+
+        for (int order : ORDERS) {
+            for (int i = 0; i < SAMPLES; i++) {
+                long ipix = randomPixel(rnd, order);
+
+                assertEquals(ipix, HealpixKernel.ring2nest(order, HealpixKernel.nest2ring(order, ipix)));
+                assertEquals(ipix, HealpixKernel.nest2ring(order, HealpixKernel.ring2nest(order, ipix)));
+
+                HealpixKernel.pix2angNest(order, ipix, ang);
+                assertEquals(ipix, HealpixKernel.ang2pixNest(order, ang[0], ang[1]));
+                HealpixKernel.pix2angRing(order, ipix, ang);
+                assertEquals(ipix, HealpixKernel.ang2pixRing(order, ang[0], ang[1]));
+
+                HealpixKernel.pix2vecNest(order, ipix, vec);
+                assertEquals(ipix, HealpixKernel.vec2pixNest(order, vec[0], vec[1], vec[2]));
+                HealpixKernel.pix2vecRing(order, ipix, vec);
+                assertEquals(ipix, HealpixKernel.vec2pixRing(order, vec[0], vec[1], vec[2]));
+            }
+        }
+    }
+
+    @Test
+    void forOrder() {
+        Random rnd = new Random(11);
+        double[] expected = new double[3];
+        double[] actual = new double[3];
+        long[] expectedNeighbours = new long[8];
+        long[] actualNeighbours = new long[8];
+
+        for (int order : ORDERS) {
+            HealpixKernel kernel = HealpixKernel.forOrder(order);
+
+            for (int i = 0; i < SAMPLES; i++) {
+                double theta = randomTheta(rnd);
+                double phi = rnd.nextDouble() * 2 * Math.PI;
+                long ipix = randomPixel(rnd, order);
+
+                assertEquals(HealpixKernel.ang2pixNest(order, theta, phi), kernel.ang2pixNest(theta, phi));
+                assertEquals(HealpixKernel.ang2pixRing(order, theta, phi), kernel.ang2pixRing(theta, phi));
+                assertEquals(HealpixKernel.vec2pixNest(order, 1, phi, theta), kernel.vec2pixNest(1, phi, theta));
+                assertEquals(HealpixKernel.vec2pixRing(order, 1, phi, theta), kernel.vec2pixRing(1, phi, theta));
+                assertEquals(HealpixKernel.nest2ring(order, ipix), kernel.nest2ring(ipix));
+                assertEquals(HealpixKernel.ring2nest(order, ipix), kernel.ring2nest(ipix));
+
+                HealpixKernel.pix2angNest(order, ipix, expected);
+                kernel.pix2angNest(ipix, actual);
+                assertArrayEquals(expected, actual);
+                HealpixKernel.pix2vecRing(order, ipix, expected);
+                kernel.pix2vecRing(ipix, actual);
+                assertArrayEquals(expected, actual);
+
+                HealpixKernel.neighboursRing(order, ipix, expectedNeighbours);
+                kernel.neighboursRing(ipix, actualNeighbours);
+                assertArrayEquals(expectedNeighbours, actualNeighbours);
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> HealpixKernel.forOrder(30));
+        assertThrows(IllegalArgumentException.class, () -> HealpixKernel.forOrder(-1));
+        assertThrows(IllegalArgumentException.class, () -> HealpixKernel.forOrder(10).pix2angRing(12L << 20, expected));
+    }
+
+    @Test
+    void invalidValues() {
+        double[] ang = new double[2];
+        long[] result = new long[8];
+
+        assertThrows(IllegalArgumentException.class, () -> HealpixKernel.ang2pixNest(30, 0.5, 0.2));
+        assertThrows(IllegalArgumentException.class, () -> HealpixKernel.ang2pixRing(-1, 0.5, 0.2));
+        assertThrows(IllegalArgumentException.class, () -> HealpixKernel.ang2pixNest(10, 4, 0.2));
+        assertThrows(IllegalArgumentException.class, () -> HealpixKernel.ang2pixRing(10, Double.NaN, 0.2));
+        assertThrows(IllegalArgumentException.class, () -> HealpixKernel.vec2pixNest(30, 1, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> HealpixKernel.pix2angNest(10, -1, ang));
+        assertThrows(IllegalArgumentException.class, () -> HealpixKernel.pix2angRing(0, 12, ang));
+        assertThrows(IllegalArgumentException.class, () -> HealpixKernel.nest2ring(10, 12L << 20));
+        assertThrows(IllegalArgumentException.class, () -> HealpixKernel.ring2nest(10, -50));
+        assertThrows(IllegalArgumentException.class, () -> HealpixKernel.neighboursNest(10, -50, result));
+    }
+}
@@ -1,5 +1,8 @@
 package es.pic.hadoop.udf.healpix;
 
+import static es.pic.hadoop.udf.healpix.ConstantArguments.assertConstantOrder;
+import static es.pic.hadoop.udf.healpix.ConstantArguments.constantFlag;
+import static es.pic.hadoop.udf.healpix.ConstantArguments.constantOrder;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -79,11 +82,10 @@ public class TestNeighbours {
                 new DeferredJavaObject(new ByteWritable((byte) 50)), new DeferredJavaObject(new LongWritable(50)),
                 new DeferredJavaObject(new BooleanWritable(true))
         }));
-        // This returns negative values instead of en Exception !?!
-        // assertThrows(HiveException.class, () -> udf.evaluate(new DeferredJavaObject[] {
-        //         new DeferredJavaObject(new ByteWritable((byte) 10)), new DeferredJavaObject(new LongWritable(-50)),
-        //         new DeferredJavaObject(new BooleanWritable(true))
-        // }));
+        assertThrows(HiveException.class, () -> udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(new ByteWritable((byte) 10)), new DeferredJavaObject(new LongWritable(-50)),
+                new DeferredJavaObject(new BooleanWritable(true))
+        }));
     }
 
     @Test
@@ -106,6 +108,30 @@ public class TestNeighbours {
         }).toString());
     }
 
+    @Test
+    void constantArguments() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                constantOrder(3), PrimitiveObjectInspectorFactory.writableLongObjectInspector, constantFlag(true),
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        // Constant arguments are only read in initialize
+        assertEquals("[319, -1, 213, 215, 43, 41, 40, 317]", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new LongWritable(42)), new DeferredJavaObject(null),
+        }).toString());
+
+        assertEquals(udf.initialize(Arrays.copyOfRange(params, 0, 2)), outputOI);
+
+        assertEquals("[62, 41, 25, 13, 26, 43, 63, 87]", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new LongWritable(42)),
+        }).toString());
+
+        assertConstantOrder(udf, params, outputOI, new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new LongWritable(42)), new DeferredJavaObject(null),
+        });
+    }
+
     @Test
     void displayString() {
         assertDoesNotThrow(() -> udf.getDisplayString(new String[] {}));
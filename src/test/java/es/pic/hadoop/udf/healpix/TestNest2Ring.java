@@ -1,5 +1,7 @@
 package es.pic.hadoop.udf.healpix;
 
+import static es.pic.hadoop.udf.healpix.ConstantArguments.assertConstantOrder;
+import static es.pic.hadoop.udf.healpix.ConstantArguments.constantOrder;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -94,6 +96,24 @@ public class TestNest2Ring {
         }).toString());
     }
 
+    @Test
+    void constantArguments() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                constantOrder(10), PrimitiveObjectInspectorFactory.writableLongObjectInspector,
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        // The constant order is only read in initialize
+        assertEquals("4139577", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new LongWritable(108023)),
+        }).toString());
+
+        assertConstantOrder(udf, params, outputOI, new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new LongWritable(108023)),
+        });
+    }
+
     @Test
     void displayString() {
         assertDoesNotThrow(() -> udf.getDisplayString(new String[] {}));
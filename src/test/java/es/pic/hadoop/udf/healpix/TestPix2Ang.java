@@ -1,5 +1,8 @@
 package es.pic.hadoop.udf.healpix;
 
+import static es.pic.hadoop.udf.healpix.ConstantArguments.assertConstantOrder;
+import static es.pic.hadoop.udf.healpix.ConstantArguments.constantFlag;
+import static es.pic.hadoop.udf.healpix.ConstantArguments.constantOrder;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -114,6 +117,42 @@ public class TestPix2Ang {
         }).toString());
     }
 
+    @Test
+    void constantArguments() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                constantOrder(10), PrimitiveObjectInspectorFactory.writableLongObjectInspector, constantFlag(true),
+                constantFlag(true),
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        // Constant arguments are only read in initialize
+        assertEquals("[50.00976562499999, 19.98638727226823]", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new LongWritable(108023)),
+                new DeferredJavaObject(null), new DeferredJavaObject(null),
+        }).toString());
+
+        params[2] = PrimitiveObjectInspectorFactory.writableBooleanObjectInspector;
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        assertEquals("[50.00976562499999, 19.98638727226823]", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new LongWritable(4139577)),
+                new DeferredJavaObject(new BooleanWritable(false)), new DeferredJavaObject(null),
+        }).toString());
+
+        assertEquals(udf.initialize(Arrays.copyOfRange(params, 0, 2)), outputOI);
+
+        assertEquals("[0.5003639274847129, 0.20109228338195537]", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new LongWritable(770119)),
+        }).toString());
+
+        assertConstantOrder(udf, params, outputOI, new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new LongWritable(108023)),
+                new DeferredJavaObject(new BooleanWritable(true)), new DeferredJavaObject(null),
+        });
+    }
+
     @Test
     void displayString() {
         assertDoesNotThrow(() -> udf.getDisplayString(new String[] {}));
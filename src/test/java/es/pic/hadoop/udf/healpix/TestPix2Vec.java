@@ -1,5 +1,8 @@
 package es.pic.hadoop.udf.healpix;
 
+import static es.pic.hadoop.udf.healpix.ConstantArguments.assertConstantOrder;
+import static es.pic.hadoop.udf.healpix.ConstantArguments.constantFlag;
+import static es.pic.hadoop.udf.healpix.ConstantArguments.constantOrder;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -104,6 +107,32 @@ public class TestPix2Vec {
         }).toString());
     }
 
+    @Test
+    void constantArguments() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                constantOrder(10), PrimitiveObjectInspectorFactory.writableLongObjectInspector, constantFlag(true),
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        // Constant arguments are only read in initialize
+        assertEquals("[0.6039522774664349, 0.7200114879523387, 0.341796875]", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new LongWritable(108023)),
+                new DeferredJavaObject(null)
+        }).toString());
+
+        assertEquals(udf.initialize(Arrays.copyOfRange(params, 0, 2)), outputOI);
+
+        assertEquals("[0.6039522774664349, 0.7200114879523387, 0.341796875]", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new LongWritable(4139577))
+        }).toString());
+
+        assertConstantOrder(udf, params, outputOI, new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new LongWritable(108023)),
+                new DeferredJavaObject(null)
+        });
+    }
+
     @Test
     void displayString() {
         assertDoesNotThrow(() -> udf.getDisplayString(new String[] {}));
@@ -1,5 +1,8 @@
 package es.pic.hadoop.udf.healpix;
 
+import static es.pic.hadoop.udf.healpix.ConstantArguments.assertConstantOrder;
+import static es.pic.hadoop.udf.healpix.ConstantArguments.constantFlag;
+import static es.pic.hadoop.udf.healpix.ConstantArguments.constantOrder;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -124,6 +127,38 @@ public class TestVec2Pix {
         }).toString());
     }
 
+    @Test
+    void constantArguments() throws HiveException {
+        ObjectInspector[] params = new ObjectInspector[] {
+                constantOrder(10), PrimitiveObjectInspectorFactory.writableFloatObjectInspector,
+                PrimitiveObjectInspectorFactory.writableFloatObjectInspector,
+                PrimitiveObjectInspectorFactory.writableFloatObjectInspector, constantFlag(true),
+        };
+
+        assertEquals(udf.initialize(params), outputOI);
+
+        // Constant arguments are only read in initialize
+        assertEquals("108023", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new FloatWritable((float) 0.6039522774664349)),
+                new DeferredJavaObject(new FloatWritable((float) 0.7200114879523387)),
+                new DeferredJavaObject(new FloatWritable((float) 0.341796875)), new DeferredJavaObject(null),
+        }).toString());
+
+        assertEquals(udf.initialize(Arrays.copyOfRange(params, 0, 4)), outputOI);
+
+        assertEquals("4139577", udf.evaluate(new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new FloatWritable((float) 0.6039522774664349)),
+                new DeferredJavaObject(new FloatWritable((float) 0.7200114879523387)),
+                new DeferredJavaObject(new FloatWritable((float) 0.341796875)),
+        }).toString());
+
+        assertConstantOrder(udf, params, outputOI, new DeferredJavaObject[] {
+                new DeferredJavaObject(null), new DeferredJavaObject(new FloatWritable((float) 0.6039522774664349)),
+                new DeferredJavaObject(new FloatWritable((float) 0.7200114879523387)),
+                new DeferredJavaObject(new FloatWritable((float) 0.341796875)), new DeferredJavaObject(null),
+        });
+    }
+
     @Test
     void displayString() {
         assertDoesNotThrow(() -> udf.getDisplayString(new String[] {}));
@@ -0,0 +1,148 @@
+package es.pic.hadoop.udf.healpix;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizationContext;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeConstantDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestVectorAng2Pix {
+
+    VectorizedRowBatch batch(double[] theta, double[] phi) {
+        VectorizedRowBatch batch = new VectorizedRowBatch(3);
+        DoubleColumnVector thetaVector = new DoubleColumnVector();
+        DoubleColumnVector phiVector = new DoubleColumnVector();
+        System.arraycopy(theta, 0, thetaVector.vector, 0, theta.length);
+        System.arraycopy(phi, 0, phiVector.vector, 0, phi.length);
+        batch.cols[0] = thetaVector;
+        batch.cols[1] = phiVector;
+        batch.cols[2] = new LongColumnVector();
+        batch.size = theta.length;
+        return batch;
+    }
+
+    @Test
+    void vectorized() throws HiveException {
+        VectorizationContext vc = new VectorizationContext("test", Arrays.asList("theta", "phi"));
+
+        ExprNodeGenericFuncDesc expr = new ExprNodeGenericFuncDesc(TypeInfoFactory.longTypeInfo, new UDFAng2Pix(),
+                "ang2pix", Arrays.<ExprNodeDesc>asList(new ExprNodeConstantDesc(TypeInfoFactory.intTypeInfo, 10),
+                        new ExprNodeColumnDesc(TypeInfoFactory.doubleTypeInfo, "theta", "t", false),
+                        new ExprNodeColumnDesc(TypeInfoFactory.doubleTypeInfo, "phi", "t", false)));
+
+        assertEquals(VectorAng2Pix.class, vc.getVectorExpression(expr).getClass());
+    }
+
+    @Test
+    void validValues() throws HiveException {
+        VectorizedRowBatch batch = batch(new double[] {
+                0.5, 0.5, 0.001, Math.PI
+        }, new double[] {
+                0.2, 0.2 + 2 * Math.PI, 1, -1
+        });
+
+        new VectorAng2Pix(10, 0, 1, 2).evaluate(batch);
+
+        LongColumnVector output = (LongColumnVector) batch.cols[2];
+        assertFalse(output.isRepeating);
+        for (int i = 0; i < batch.size; i++) {
+            double theta = ((DoubleColumnVector) batch.cols[0]).vector[i];
+            double phi = ((DoubleColumnVector) batch.cols[1]).vector[i];
+            assertEquals(HealpixKernel.ang2pixRing(10, theta, phi), output.vector[i]);
+            assertFalse(output.isNull[i]);
+        }
+        assertEquals(770119, output.vector[0]);
+    }
+
+    @Test
+    void nullValues() throws HiveException {
+        VectorizedRowBatch batch = batch(new double[] {
+                0.5, Double.NaN, 0.5
+        }, new double[] {
+                0.2, 0.2, Double.NaN
+        });
+        batch.cols[0].noNulls = false;
+        batch.cols[0].isNull[1] = true;
+        batch.cols[1].noNulls = false;
+        batch.cols[1].isNull[2] = true;
+
+        new VectorAng2Pix(10, 0, 1, 2).evaluate(batch);
+
+        LongColumnVector output = (LongColumnVector) batch.cols[2];
+        assertFalse(output.noNulls);
+        assertFalse(output.isNull[0]);
+        assertEquals(770119, output.vector[0]);
+        assertTrue(output.isNull[1]);
+        assertTrue(output.isNull[2]);
+    }
+
+    @Test
+    void repeatingValues() throws HiveException {
+        VectorizedRowBatch batch = batch(new double[] {
+                0.5, 0.5, 0.5
+        }, new double[] {
+                0.2, 0.3, 0.4
+        });
+        batch.cols[0].isRepeating = true;
+
+        new VectorAng2Pix(10, 0, 1, 2).evaluate(batch);
+
+        LongColumnVector output = (LongColumnVector) batch.cols[2];
+        assertFalse(output.isRepeating);
+        assertEquals(HealpixKernel.ang2pixRing(10, 0.5, 0.4), output.vector[2]);
+
+        batch.cols[1].isRepeating = true;
+        new VectorAng2Pix(10, 0, 1, 2).evaluate(batch);
+
+        assertTrue(output.isRepeating);
+        assertEquals(770119, output.vector[0]);
+    }
+
+    @Test
+    void selectedRows() throws HiveException {
+        VectorizedRowBatch batch = batch(new double[] {
+                0.5, 50, 0.5
+        }, new double[] {
+                0.2, 0.2, 0.3
+        });
+        batch.selectedInUse = true;
+        batch.selected[0] = 0;
+        batch.selected[1] = 2;
+        batch.size = 2;
+
+        new VectorAng2Pix(10, 0, 1, 2).evaluate(batch);
+
+        LongColumnVector output = (LongColumnVector) batch.cols[2];
+        assertEquals(770119, output.vector[0]);
+        assertEquals(HealpixKernel.ang2pixRing(10, 0.5, 0.3), output.vector[2]);
+    }
+
+    @Test
+    void invalidValues() {
+        assertThrows(HiveException.class, () -> new VectorAng2Pix(50, 0, 1, 2).evaluate(batch(new double[] {
+                0.5
+        }, new double[] {
+                0.2
+        })));
+        assertThrows(HiveException.class, () -> new VectorAng2Pix(10, 0, 1, 2).evaluate(batch(new double[] {
+                50
+        }, new double[] {
+                20
+        })));
+    }
+}
@@ -0,0 +1,103 @@
+package es.pic.hadoop.udf.healpix;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizationContext;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeConstantDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestVectorNest2Ring {
+
+    VectorizedRowBatch batch(long... ipix) {
+        VectorizedRowBatch batch = new VectorizedRowBatch(2);
+        LongColumnVector input = new LongColumnVector();
+        System.arraycopy(ipix, 0, input.vector, 0, ipix.length);
+        batch.cols[0] = input;
+        batch.cols[1] = new LongColumnVector();
+        batch.size = ipix.length;
+        return batch;
+    }
+
+    @Test
+    void vectorized() throws HiveException {
+        VectorizationContext vc = new VectorizationContext("test", Arrays.asList("ipix"));
+
+        ExprNodeGenericFuncDesc expr = new ExprNodeGenericFuncDesc(TypeInfoFactory.longTypeInfo, new UDFNest2Ring(),
+                "nest2ring", Arrays.<ExprNodeDesc>asList(new ExprNodeConstantDesc(TypeInfoFactory.intTypeInfo, 10),
+                        new ExprNodeColumnDesc(TypeInfoFactory.longTypeInfo, "ipix", "t", false)));
+
+        assertEquals(VectorNest2Ring.class, vc.getVectorExpression(expr).getClass());
+    }
+
+    @Test
+    void validValues() throws HiveException {
+        VectorizedRowBatch batch = batch(108023, 0, 12L * 1024 * 1024 - 1);
+
+        new VectorNest2Ring(10, 0, 1).evaluate(batch);
+
+        LongColumnVector output = (LongColumnVector) batch.cols[1];
+        assertEquals(4139577, output.vector[0]);
+        for (int i = 0; i < batch.size; i++) {
+            assertFalse(output.isNull[i]);
+            assertEquals(((LongColumnVector) batch.cols[0]).vector[i], HealpixKernel.ring2nest(10, output.vector[i]));
+        }
+    }
+
+    @Test
+    void nullValues() throws HiveException {
+        VectorizedRowBatch batch = batch(108023, -1);
+        batch.cols[0].noNulls = false;
+        batch.cols[0].isNull[1] = true;
+
+        new VectorNest2Ring(10, 0, 1).evaluate(batch);
+
+        LongColumnVector output = (LongColumnVector) batch.cols[1];
+        assertFalse(output.noNulls);
+        assertEquals(4139577, output.vector[0]);
+        assertTrue(output.isNull[1]);
+    }
+
+    @Test
+    void repeatingValues() throws HiveException {
+        VectorizedRowBatch batch = batch(108023, -1, -1);
+        batch.cols[0].isRepeating = true;
+
+        new VectorNest2Ring(10, 0, 1).evaluate(batch);
+
+        LongColumnVector output = (LongColumnVector) batch.cols[1];
+        assertTrue(output.isRepeating);
+        assertEquals(4139577, output.vector[0]);
+    }
+
+    @Test
+    void selectedRows() throws HiveException {
+        VectorizedRowBatch batch = batch(-1, 108023);
+        batch.selectedInUse = true;
+        batch.selected[0] = 1;
+        batch.size = 1;
+
+        new VectorNest2Ring(10, 0, 1).evaluate(batch);
+
+        assertEquals(4139577, ((LongColumnVector) batch.cols[1]).vector[1]);
+    }
+
+    @Test
+    void invalidValues() {
+        assertThrows(HiveException.class, () -> new VectorNest2Ring(50, 0, 1).evaluate(batch(50)));
+        assertThrows(HiveException.class, () -> new VectorNest2Ring(10, 0, 1).evaluate(batch(-50)));
+    }
+}
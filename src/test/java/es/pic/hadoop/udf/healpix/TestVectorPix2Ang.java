@@ -0,0 +1,148 @@
+package es.pic.hadoop.udf.healpix;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ListColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizationContext;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeConstantDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestVectorPix2Ang {
+
+    VectorizedRowBatch batch(long... ipix) {
+        VectorizedRowBatch batch = new VectorizedRowBatch(2);
+        LongColumnVector input = new LongColumnVector();
+        System.arraycopy(ipix, 0, input.vector, 0, ipix.length);
+        batch.cols[0] = input;
+        batch.cols[1] = new ListColumnVector(VectorizedRowBatch.DEFAULT_SIZE, new DoubleColumnVector());
+        batch.size = ipix.length;
+        return batch;
+    }
+
+    void assertAngles(double[] expected, ListColumnVector output, int i) {
+        DoubleColumnVector child = (DoubleColumnVector) output.child;
+        assertFalse(output.isNull[i]);
+        assertEquals(2, output.lengths[i]);
+        assertEquals(expected[0], child.vector[(int) output.offsets[i]]);
+        assertEquals(expected[1], child.vector[(int) output.offsets[i] + 1]);
+    }
+
+    @Test
+    void vectorized() throws HiveException {
+        VectorizationContext vc = new VectorizationContext("test", Arrays.asList("ipix"));
+
+        ExprNodeDesc order = new ExprNodeConstantDesc(TypeInfoFactory.intTypeInfo, 10);
+        ExprNodeDesc ipix = new ExprNodeColumnDesc(TypeInfoFactory.longTypeInfo, "ipix", "t", false);
+        ExprNodeDesc nest = new ExprNodeConstantDesc(TypeInfoFactory.booleanTypeInfo, true);
+
+        assertEquals(VectorPix2Ang.class, vc.getVectorExpression(new ExprNodeGenericFuncDesc(
+                TypeInfoFactory.getListTypeInfo(TypeInfoFactory.doubleTypeInfo), new UDFPix2Ang(), "pix2ang",
+                Arrays.asList(order, ipix))).getClass());
+        assertEquals(VectorPix2AngNest.class, vc.getVectorExpression(new ExprNodeGenericFuncDesc(
+                TypeInfoFactory.getListTypeInfo(TypeInfoFactory.doubleTypeInfo), new UDFPix2Ang(), "pix2ang",
+                Arrays.asList(order, ipix, nest))).getClass());
+    }
+
+    @Test
+    void validValues() throws HiveException {
+        double[] ang = new double[2];
+
+        VectorizedRowBatch batch = batch(770119, 0, 12L * 1024 * 1024 - 1);
+        new VectorPix2Ang(10, 0, 1).evaluate(batch);
+
+        ListColumnVector output = (ListColumnVector) batch.cols[1];
+        for (int i = 0; i < batch.size; i++) {
+            HealpixKernel.pix2angRing(10, ((LongColumnVector) batch.cols[0]).vector[i], ang);
+            assertAngles(ang, output, i);
+        }
+
+        batch = batch(777732, 108023);
+        new VectorPix2AngNest(10, 0, 1, 1).evaluate(batch);
+
+        output = (ListColumnVector) batch.cols[1];
+        HealpixKernel.pix2angNest(10, 777732, ang);
+        assertAngles(ang, output, 0);
+        HealpixKernel.pix2angNest(10, 108023, ang);
+        assertAngles(ang, output, 1);
+    }
+
+    @Test
+    void nullValues() throws HiveException {
+        double[] ang = new double[2];
+
+        VectorizedRowBatch batch = batch(770119, 0);
+        batch.cols[0].noNulls = false;
+        batch.cols[0].isNull[1] = true;
+
+        new VectorPix2Ang(10, 0, 1).evaluate(batch);
+
+        ListColumnVector output = (ListColumnVector) batch.cols[1];
+        assertFalse(output.noNulls);
+        HealpixKernel.pix2angRing(10, 770119, ang);
+        assertAngles(ang, output, 0);
+        assertTrue(output.isNull[1]);
+    }
+
+    @Test
+    void repeatingValues() throws HiveException {
+        double[] ang = new double[2];
+
+        VectorizedRowBatch batch = batch(770119, 770119, 770119);
+        batch.cols[0].isRepeating = true;
+
+        new VectorPix2Ang(10, 0, 1).evaluate(batch);
+
+        ListColumnVector output = (ListColumnVector) batch.cols[1];
+        assertTrue(output.isRepeating);
+        HealpixKernel.pix2angRing(10, 770119, ang);
+        assertAngles(ang, output, 0);
+    }
+
+    @Test
+    void selectedValues() throws HiveException {
+        double[] ang = new double[2];
+        int[] rows = new int[] {
+                600, 1000, VectorizedRowBatch.DEFAULT_SIZE - 1
+        };
+
+        VectorizedRowBatch batch = batch();
+        long[] input = ((LongColumnVector) batch.cols[0]).vector;
+        for (int i = 0; i < rows.length; i++) {
+            input[rows[i]] = 770119 + i;
+            batch.selected[i] = rows[i];
+        }
+        batch.selectedInUse = true;
+        batch.size = rows.length;
+
+        new VectorPix2Ang(10, 0, 1).evaluate(batch);
+
+        ListColumnVector output = (ListColumnVector) batch.cols[1];
+        assertEquals(2 * rows.length, output.childCount);
+        for (int i = 0; i < rows.length; i++) {
+            HealpixKernel.pix2angRing(10, 770119 + i, ang);
+            assertAngles(ang, output, rows[i]);
+        }
+    }
+
+    @Test
+    void invalidValues() {
+        assertThrows(HiveException.class, () -> new VectorPix2Ang(50, 0, 1).evaluate(batch(50)));
+        assertThrows(HiveException.class, () -> new VectorPix2Ang(10, 0, 1).evaluate(batch(-50)));
+        assertThrows(HiveException.class, () -> new VectorPix2AngNest(10, 0, 1, 1).evaluate(batch(-50)));
+    }
+}